@@ -47,6 +47,8 @@ public class Engine {
 		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
 
 		client = new GameClient(InetAddress.getLoopbackAddress(), 2678, "");
+		//the scenes' callbacks run on this thread, when the scenes dispatch the client's events each frame
+		client.setQueueingEvents(true);
 
 		changeScene(new MenuScene(windowID, client));
 	}
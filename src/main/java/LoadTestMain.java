@@ -0,0 +1,273 @@
+import network.general.BoardMessageView;
+import network.general.MessageConstants;
+import network.lobby.*;
+import org.json.simple.JSONObject;
+import settings.ServerSettings;
+import util.Utils;
+
+import java.io.FileWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+//starts a GameServer and fills it with headless bots over loopback, has them play games, and writes what it measured as json
+//latency is from a player sending a board or input chunk to another player in the room receiving it through the server
+//boards are sent as they change, board updates per second is the most each player sends
+//usage: LoadTestMain [lobbies] [players per lobby] [pieces per second] [board updates per second] [seconds] [games per lobby] [lockstep] [port] [output file]
+public class LoadTestMain {
+	//the bots only need to play, not play well, so they search as little as possible to leave the cpu to the server
+	static final int BEAM_WIDTH = 1;
+	static final int SEARCH_DEPTH = 1;
+	//how often the rooms are checked for finished games, and idle ones told to start
+	static final long POLL_INTERVAL_MS = 100;
+
+	static final LongAdder messagesSent = new LongAdder();
+	static final LongAdder messagesReceived = new LongAdder();
+	static final LongAdder bytesSent = new LongAdder();
+	static final LongAdder bytesReceived = new LongAdder();
+	//when each player sent each board or chunk, by name and sequence
+	static final Map<String, Long> sentAt = new ConcurrentHashMap<>();
+	static final Samples latencies = new Samples();
+
+	public static void main(String[] args) throws Exception {
+		int lobbies = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int playersPerLobby = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		double piecesPerSecond = args.length > 2 ? Double.parseDouble(args[2]) : 2.0;
+		double boardUpdatesPerSecond = args.length > 3 ? Double.parseDouble(args[3]) : 10.0;
+		int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 60;
+		int gamesPerLobby = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+		boolean isLockstep = args.length > 6 ? Boolean.parseBoolean(args[6]) : true;
+		int port = args.length > 7 ? Integer.parseInt(args[7]) : 2679;
+		String outputFile = args.length > 8 ? args[8] : "load_test.json";
+
+		ServerSettings settings = new ServerSettings();
+		settings.setPort(port);
+		settings.setLockstep(isLockstep);
+		GameServer server = new GameServer(settings);
+		server.start();
+
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		InetAddress loopback = InetAddress.getLoopbackAddress();
+		List<BotClient> bots = new ArrayList<>();
+		String[] roomNames = new String[lobbies];
+		for (int i = 0; i < lobbies; i++) {
+			//a single lobby just uses the room everyone starts in
+			roomNames[i] = lobbies == 1 ? GameRoom.DEFAULT_ROOM : "load " + i;
+			for (int j = 0; j < playersPerLobby; j++) {
+				BotClient bot = new BotClient(loopback, port, "load " + i + "-" + j, pool, piecesPerSecond,
+					1.0 / boardUpdatesPerSecond, BEAM_WIDTH, SEARCH_DEPTH);
+				GameClient client = bot.getClient();
+				client.registerOnTraffic((byte[] data, boolean isSent) -> {
+					onTraffic(client, data, isSent);
+				});
+				if (!bot.start()) {
+					System.out.println("Could not connect " + bot.getUsername() + ", stopping.");
+					closeAll(bots, server, pool);
+					return;
+				}
+				if (lobbies > 1) {
+					bot.joinRoom(roomNames[i], true);
+				}
+				bots.add(bot);
+			}
+		}
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long serverCpuStart = getServerCpuNanos(threads);
+		long processCpuStart = getProcessCpuNanos();
+		long start = System.nanoTime();
+		long end = start + seconds * 1_000_000_000L;
+		boolean[] wasInGame = new boolean[lobbies];
+		int[] gamesFinished = new int[lobbies];
+		int totalFinished = 0;
+		while (System.nanoTime() < end && totalFinished < lobbies * gamesPerLobby) {
+			for (int i = 0; i < lobbies; i++) {
+				GameRoom room = server.getRoom(roomNames[i]);
+				if (room == null) {
+					continue;
+				}
+				RoomInfo info = room.getInfo();
+				if (wasInGame[i] && !info.isInGame()) {
+					gamesFinished[i]++;
+					totalFinished++;
+				}
+				wasInGame[i] = info.isInGame();
+				//turned down by the room until everyone's in and ready
+				if (!info.isInGame() && info.getPlayerCount() == playersPerLobby && gamesFinished[i] < gamesPerLobby) {
+					room.execute(room::startGame);
+				}
+			}
+			Thread.sleep(POLL_INTERVAL_MS);
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		double serverCpu = (getServerCpuNanos(threads) - serverCpuStart) / 1e9;
+		double processCpu = (getProcessCpuNanos() - processCpuStart) / 1e9;
+		//what the server measured itself, its totals cover the whole run
+		JSONObject serverMetrics = server.getMetrics().getReport();
+		closeAll(bots, server, pool);
+
+		JSONObject config = getConfig(lobbies, playersPerLobby, piecesPerSecond, boardUpdatesPerSecond, seconds, gamesPerLobby, isLockstep);
+		JSONObject results = getResults(config, elapsed, totalFinished, serverCpu, processCpu, serverMetrics);
+
+		try (FileWriter writer = new FileWriter(outputFile)) {
+			writer.write(results.toJSONString());
+		}
+		System.out.printf("%d lobbies x %d players, %.1f s: %d games, %.0f msg/s, %.0f B/s received, latency p50 %.2f ms p99 %.2f ms, server cpu %.2f s%n",
+			lobbies, playersPerLobby, elapsed, totalFinished, messagesReceived.sum() / elapsed, bytesReceived.sum() / elapsed,
+			latencies.percentile(0.50) / 1e6, latencies.percentile(0.99) / 1e6, serverCpu);
+		System.out.println("Wrote " + outputFile);
+	}
+
+	@SuppressWarnings(value = "unchecked")
+	private static JSONObject getConfig(int lobbies, int playersPerLobby, double piecesPerSecond, double boardUpdatesPerSecond,
+										int seconds, int gamesPerLobby, boolean isLockstep) {
+		JSONObject config = new JSONObject();
+		config.put("lobbies", lobbies);
+		config.put("playersPerLobby", playersPerLobby);
+		config.put("piecesPerSecond", piecesPerSecond);
+		config.put("boardUpdatesPerSecond", boardUpdatesPerSecond);
+		config.put("seconds", seconds);
+		config.put("gamesPerLobby", gamesPerLobby);
+		config.put("lockstep", isLockstep);
+		config.put("cores", Runtime.getRuntime().availableProcessors());
+		return config;
+	}
+
+	//everything measured, the server's own report included
+	@SuppressWarnings(value = "unchecked")
+	private static JSONObject getResults(JSONObject config, double elapsed, int totalFinished, double serverCpu, double processCpu, JSONObject serverMetrics) {
+		JSONObject latency = new JSONObject();
+		latency.put("samples", latencies.size());
+		latency.put("p50", latencies.percentile(0.50) / 1e6);
+		latency.put("p90", latencies.percentile(0.90) / 1e6);
+		latency.put("p99", latencies.percentile(0.99) / 1e6);
+		latency.put("max", latencies.percentile(1.0) / 1e6);
+
+		JSONObject results = new JSONObject();
+		results.put("config", config);
+		results.put("elapsedSeconds", elapsed);
+		results.put("gamesFinished", totalFinished);
+		results.put("messagesSent", messagesSent.sum());
+		results.put("messagesReceived", messagesReceived.sum());
+		results.put("messagesReceivedPerSecond", messagesReceived.sum() / elapsed);
+		results.put("bytesSentPerSecond", bytesSent.sum() / elapsed);
+		results.put("bytesReceivedPerSecond", bytesReceived.sum() / elapsed);
+		results.put("relayLatencyMs", latency);
+		//the server's room workers only, the bots share the process so its total is reported separately
+		results.put("serverCpuSeconds", serverCpu);
+		results.put("serverCpuUtilization", serverCpu / elapsed);
+		results.put("processCpuSeconds", processCpu);
+		results.put("serverMetrics", serverMetrics);
+		return results;
+	}
+
+	private static void onTraffic(GameClient client, byte[] data, boolean isSent) {
+		long now = System.nanoTime();
+		if (isSent) {
+			messagesSent.increment();
+			bytesSent.add(data.length);
+		}
+		else {
+			messagesReceived.increment();
+			bytesReceived.add(data.length);
+		}
+		String key = getRelayKey(client, data, isSent);
+		if (key == null) {
+			return;
+		}
+		if (isSent) {
+			sentAt.put(key, now);
+		}
+		else {
+			Long sent = sentAt.get(key);
+			if (sent != null) {
+				latencies.add(now - sent);
+			}
+		}
+	}
+
+	//sender and sequence of a board or input chunk, the same for the message the player sent and the copies the server relays
+	private static String getRelayKey(GameClient client, byte[] data, boolean isSent) {
+		if (data.length < 2) {
+			return null;
+		}
+		byte type = data[1];
+		if (isSent && data[0] == MessageConstants.CLIENT && type == MessageConstants.MESSAGE_CLIENT_INPUT) {
+			return client.getUsername() + "#" + Utils.readInt(data, 2);
+		}
+		if (!isSent && data[0] == MessageConstants.SERVER && type == MessageConstants.MESSAGE_SERVER_INPUT) {
+			return client.getPlayerName(Utils.readShort(data, 2)) + "#" + Utils.readInt(data, 4);
+		}
+		boolean isBoard = isSent ? data[0] == MessageConstants.CLIENT && type == MessageConstants.MESSAGE_CLIENT_BOARD
+			: data[0] == MessageConstants.SERVER && type == MessageConstants.MESSAGE_SERVER_BOARD;
+		if (!isBoard || !BoardMessageView.isCompact(data)) {
+			return null;
+		}
+		BoardMessageView view = new BoardMessageView().wrap(data);
+		if (view.isToppedOut()) {
+			return null;
+		}
+		String sender = isSent ? client.getUsername() : client.getPlayerName(view.getPlayerId());
+		return sender + "#" + view.getBoardSequence();
+	}
+
+	private static long getServerCpuNanos(ThreadMXBean threads) {
+		long total = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("GameServer")) {
+				total += Math.max(0, threads.getThreadCpuTime(thread.getId()));
+			}
+		}
+		return total;
+	}
+
+	private static long getProcessCpuNanos() {
+		if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+			return os.getProcessCpuTime();
+		}
+		return 0;
+	}
+
+	private static void closeAll(List<BotClient> bots, GameServer server, ForkJoinPool pool) {
+		for (BotClient bot : bots) {
+			bot.close();
+		}
+		server.close();
+		pool.shutdownNow();
+	}
+
+	//every latency measured, sorted once at the end for percentiles
+	static class Samples {
+		private long[] values = new long[1024];
+		private int count = 0;
+		private boolean isSorted = true;
+
+		synchronized void add(long value) {
+			if (count == values.length) {
+				values = Arrays.copyOf(values, 2 * count);
+			}
+			values[count++] = value;
+			isSorted = false;
+		}
+
+		synchronized int size() {
+			return count;
+		}
+
+		synchronized double percentile(double p) {
+			if (count == 0) {
+				return 0;
+			}
+			if (!isSorted) {
+				Arrays.sort(values, 0, count);
+				isSorted = true;
+			}
+			int index = (int) Math.ceil(p * count) - 1;
+			return values[Math.max(0, Math.min(count - 1, index))];
+		}
+	}
+}
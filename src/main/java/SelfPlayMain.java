@@ -0,0 +1,52 @@
+import game.*;
+import game.bot.*;
+import game.pieces.PieceFactory;
+import game.randomizer.RandomizerType;
+import settings.GameSettings;
+import util.Constants;
+import util.Utils;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+//runs the bot against itself with no window or network, as fast as the search allows, and prints how it did
+//usage: SelfPlayMain [kick table] [games] [max pieces] [beam width] [depth] [time budget ms]
+public class SelfPlayMain {
+	public static void main(String[] args) throws Exception {
+		String kickTableName = args.length > 0 ? args[0] : "SRS";
+		int games = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		int maxPieces = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		int beamWidth = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+		int depth = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+		long timeBudgetNanos = (args.length > 5 ? Long.parseLong(args[5]) : 100L) * 1_000_000L;
+
+		PieceFactory kickTable = new PieceFactory(new File(Utils.getKickTableLocation(kickTableName)));
+		GameSettings settings = new GameSettings(5, kickTable, Constants.BOARD_HEIGHT, Constants.BOARD_WIDTH, SpinDetector.T_SPIN, RandomizerType.BAG_7);
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		BeamSearchBot bot = new BeamSearchBot(kickTable, new HeuristicEvaluator(), pool, beamWidth, depth, timeBudgetNanos);
+		Random seeds = new Random();
+
+		for (int i = 0; i < games; i++) {
+			long seed = seeds.nextLong();
+			GLTrisSimulation game = new GLTrisSimulation(settings, seed, new Handling());
+			int[] attack = {0};
+			game.registerOnPiecePlacedCallback((int rowsCleared, SpinType spinType, int sent) -> {
+				attack[0] += sent;
+			});
+			game.init();
+			game.setStarted(true);
+			BotController controller = new BotController(game, bot, pool, 0.0);
+
+			long start = System.nanoTime();
+			int pieces = 0;
+			while (pieces < maxPieces && controller.step()) {
+				pieces++;
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("game %d (seed %d): %d pieces, %d lines, %d attack, %s, %.1f pps%n",
+				i + 1, seed, pieces, game.getLinesCleared(), attack[0], game.isGameOver() ? "topped out" : "survived", pieces / seconds);
+		}
+		pool.shutdown();
+	}
+}
@@ -1,34 +1,57 @@
 import network.lobby.GameServer;
+import server_interface.ServerConsole;
 import server_interface.ServerPanel;
 import settings.ServerSettings;
 
 import javax.swing.*;
+import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
 
+//usage: ServerMain [--headless]. runs headless on its own when there's no display
 public class ServerMain {
 	public static final String PROPERTIES_LOCATION = "./server.properties";
+	public static final String HEADLESS_ARG = "--headless";
 
 	public static void main(String[] args) {
-		createAndShowGUI();
+		if (GraphicsEnvironment.isHeadless() || Arrays.asList(args).contains(HEADLESS_ARG)) {
+			runHeadless();
+		}
+		else {
+			createAndShowGUI();
+		}
 	}
 
-	private static void createAndShowGUI() {
+	private static void runHeadless() {
+		ServerSettings settings = loadSettings();
+		ServerConsole console = new ServerConsole(System.in, System.out);
+		GameServer server;
 		try {
-			UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-		} catch (ClassNotFoundException | InstantiationException | IllegalAccessException | UnsupportedLookAndFeelException e) {
+			server = new GameServer(settings);
+			server.registerObserver(console);
+			server.start();
+		} catch (IOException e) {
 			e.printStackTrace();
+			return;
 		}
+		//stopping from the console exits too, either way the server closes on the way out
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+		server.log("Type \"help\" for commands, \"" + ServerConsole.STOP_COMMAND + "\" to stop the server.");
+		if (console.run(server::onCommand)) {
+			System.exit(0);
+		}
+		//no console, e.g. run as a service, it runs until it's killed
+		try {
+			new CountDownLatch(1).await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
 
-		JFrame.setDefaultLookAndFeelDecorated(true);
-
-		JFrame frame = new JFrame();
-		frame.setTitle("GLTris Server");
-		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-
-		ServerPanel panel = new ServerPanel();
-
+	private static ServerSettings loadSettings() {
 		ServerSettings settings;
 		try {
 			settings = new ServerSettings(new File(PROPERTIES_LOCATION));
@@ -41,9 +64,30 @@ public class ServerMain {
 				e1.printStackTrace();
 			}
 		}
+		return settings;
+	}
+
+	private static void createAndShowGUI() {
+		try {
+			UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+		} catch (ClassNotFoundException | InstantiationException | IllegalAccessException | UnsupportedLookAndFeelException e) {
+			e.printStackTrace();
+		}
+
+		JFrame.setDefaultLookAndFeelDecorated(true);
+
+		JFrame frame = new JFrame();
+		frame.setTitle("GLTris Server");
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+		ServerPanel panel = new ServerPanel();
+
+		ServerSettings settings = loadSettings();
 
 		try {
-			GameServer server = new GameServer(settings, panel);
+			GameServer server = new GameServer(settings);
+			server.registerObserver(panel);
+			panel.addCommandCallback(server::onCommand);
 			server.start();
 
 			frame.addWindowListener(new WindowAdapter() {
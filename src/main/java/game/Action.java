@@ -0,0 +1,61 @@
+package game;
+
+//inputs understood by GLTrisSimulation. held inputs (moving, soft drop) have separate press and release actions
+public enum Action {
+	MOVE_LEFT_PRESS(0), MOVE_LEFT_RELEASE(1),
+	MOVE_RIGHT_PRESS(2), MOVE_RIGHT_RELEASE(3),
+	SOFT_DROP_PRESS(4), SOFT_DROP_RELEASE(5),
+	ROTATE_CW(6), ROTATE_CCW(7), ROTATE_180(8),
+	HOLD(9), HARD_DROP(10);
+
+	private int val;
+
+	Action(int val) {
+		this.val = val;
+	}
+
+	public int getVal() {
+		return this.val;
+	}
+
+	public static Action getEnum(int val) {
+		switch(val) {
+			case 0 -> {
+				return MOVE_LEFT_PRESS;
+			}
+			case 1 -> {
+				return MOVE_LEFT_RELEASE;
+			}
+			case 2 -> {
+				return MOVE_RIGHT_PRESS;
+			}
+			case 3 -> {
+				return MOVE_RIGHT_RELEASE;
+			}
+			case 4 -> {
+				return SOFT_DROP_PRESS;
+			}
+			case 5 -> {
+				return SOFT_DROP_RELEASE;
+			}
+			case 6 -> {
+				return ROTATE_CW;
+			}
+			case 7 -> {
+				return ROTATE_CCW;
+			}
+			case 8 -> {
+				return ROTATE_180;
+			}
+			case 9 -> {
+				return HOLD;
+			}
+			case 10 -> {
+				return HARD_DROP;
+			}
+			default -> {
+				throw new IllegalArgumentException("Invalid enum value for value " + val + ".");
+			}
+		}
+	}
+}
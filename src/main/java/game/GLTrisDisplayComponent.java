@@ -70,6 +70,15 @@ public class GLTrisDisplayComponent extends Component {
 		display.setCurrentPieceInfo(pieceX, pieceY, tileMap, pieceColour);
 	}
 
+	public void addSnapshot(long time, TileState[][] board, String heldPiece, String[] queue, int[] garbageQueue,
+							int pieceX, int pieceY, boolean[][] tileMap, PieceColour pieceColour) {
+		display.addSnapshot(time, board, heldPiece, queue, garbageQueue, pieceX, pieceY, tileMap, pieceColour);
+	}
+
+	public void update(long renderTime) {
+		display.update(renderTime);
+	}
+
 	public void setTileSize(float tileSize) {
 		renderer.setTileSize(tileSize);
 		this.width = tileSize * 5.0f + (display.getBoardWidth() + 1) * tileSize + tileSize * 5.0f;
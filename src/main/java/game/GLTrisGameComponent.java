@@ -1,18 +1,33 @@
 package game;
 
 import game.pieces.PieceBuilder;
+import game.replay.ReplayRecorder;
 import menu.component.Component;
 import settings.GameSettings;
+import settings.LocalSettings;
+import util.Utils;
 
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
+import java.util.Random;
 
 public class GLTrisGameComponent extends Component {
 	GLTris game;
 	GLTrisBoardRenderer renderer;
+	GameSettings settings;
+	ReplayRecorder recorder;
 
 	public GLTrisGameComponent(double xPos, double yPos, float tileSize, boolean isActive, GameSettings settings) {
+		this(xPos, yPos, tileSize, isActive, settings, new Random().nextLong());
+	}
+
+	public GLTrisGameComponent(double xPos, double yPos, float tileSize, boolean isActive, GameSettings settings, long seed) {
 		super(xPos, yPos, 0.0, 0.0, "", isActive);
-		game = new GLTris(settings);
+		this.settings = settings;
+		game = new GLTris(settings, seed);
 		renderer = new GLTrisBoardRenderer(this.xPos, this.yPos, tileSize, isActive, game, game.getPieceFactory());
 		this.width = tileSize * 5.0f + (game.getBoardWidth() + 1) * tileSize + tileSize * 5.0f;
 		this.height = game.getBoardHeight() * tileSize;
@@ -22,6 +37,21 @@ public class GLTrisGameComponent extends Component {
 		game.init();
 	}
 
+	//records this game to the replays folder, named after the current time, if replays are turned on in the settings
+	public void startRecording() {
+		if (!LocalSettings.getRecordReplays()) {
+			return;
+		}
+		String name = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
+		try {
+			recorder = new ReplayRecorder(game, settings, new File(Utils.getReplayLocation(name)));
+			recorder.start();
+		} catch (IOException e) {
+			e.printStackTrace();
+			recorder = null;
+		}
+	}
+
 	public void update(double dt) {
 		game.update(dt);
 	}
@@ -49,6 +79,9 @@ public class GLTrisGameComponent extends Component {
 
 	@Override
 	public void destroy() {
+		if (recorder != null) {
+			recorder.stop();
+		}
 		game.destroy();
 		renderer.destroy();
 	}
@@ -0,0 +1,729 @@
+package game;
+
+import game.board.Board;
+import game.callbacks.*;
+import game.pieces.*;
+import game.pieces.util.*;
+import game.randomizer.*;
+import settings.GameSettings;
+import util.Constants;
+import util.IntRingBuffer;
+
+import java.util.*;
+
+import static game.SpinType.*;
+
+//the game logic of GLTris with no dependency on GLFW or local settings, so it can be run headless (tests, bots, the server)
+//input comes in as Actions and time only advances through tick(), so a game is fully determined by its seed, handling and actions
+public class GLTrisSimulation extends GLTrisRender {
+	public static final int TPS = 60;
+	public static final double SPF = 1.0 / TPS;
+
+	private Set<Runnable> nextPieceCallback;
+	private Set<MoveCallback> pieceMoveCallback;
+	private Set<RotateCallback> pieceRotateCallback;
+	private Set<PiecePlacedCallback> piecePlacedCallback;
+	private Set<GameOverCallback> gameOverCallbacks;
+	private Set<ActionCallback> actionCallbacks;
+	private Set<GarbageQueuedCallback> garbageQueuedCallbacks;
+	private Set<RowsChangedCallback> rowsChangedCallbacks;
+
+	private RandomizerType randomizerType;
+	private Randomizer randomizer;
+	private long seed;
+
+	private Queue<Garbage> garbageQueue;
+
+	private PieceFactory pieceFactory;
+	private IntRingBuffer pieceQueue;
+	//number of pieces taken off the queue so far, which together with the seed is enough to rebuild the queue
+	private int piecesDealt = 0;
+	private Board board;
+	//respawned in place rather than replaced, so dealing pieces doesn't allocate
+	private final Piece currentPiece = new Piece();
+	private String heldPiece;
+
+	private Handling handling;
+
+	private Direction lastMovedDirection;
+
+	private boolean isLeftHeld;
+	private boolean isRightHeld;
+	private boolean isSoftDropHeld;
+
+	private int boardHeight = Constants.BOARD_HEIGHT;
+	private int boardWidth = Constants.BOARD_WIDTH;
+	private int numPreviews;
+
+	private double accumulatorSD = 0.0;
+	private double accumulatorARR = 0.0;
+	private double accumulatorDAS = 0.0;
+
+	private long frame = 0;
+
+	private boolean isGameOver = false;
+
+	private int linesCleared = 0;
+	private SpinType currentSpinType = NONE;
+	private SpinDetection spinDetection;
+
+	private int combo = -1;
+	private int b2bLevel = 0;
+
+	private boolean isStarted = false;
+
+	public GLTrisSimulation(GameSettings settings, long seed, Handling handling) {
+		this.seed = seed;
+		this.handling = handling;
+		this.boardHeight = settings.getBoardHeight();
+		this.boardWidth = settings.getBoardWidth();
+		pieceFactory = settings.getKickTable();
+		this.spinDetection = SpinDetector.getDetection(settings.getSpinDetector());
+
+		List<PieceBuilder> pieceInfo = pieceFactory.getBuilders();
+
+		for (PieceBuilder builder : pieceInfo) {
+			//TODO: improve the centering for xSpawn
+			int xSpawn = (this.boardWidth - builder.getTileMapE()[0].length) / 2;
+			//spawn with the lowest occupied row of the piece just above the visible board
+			int yOffset = -builder.getCollisionMask(Orientation.E).getMinRow();
+			int ySpawn = this.boardHeight + yOffset + 1;
+			builder.setSpawnBottomLeftX(xSpawn);
+			builder.setSpawnBottomLeftY(ySpawn);
+		}
+
+		numPreviews = settings.getNumPreviews();
+
+		/*
+		initGravity = settings.getInitGravity();
+		gravityIncrease = settings.getGravityIncrease();
+		gravityIncreaseInterval = settings.getGravityIncreaseInterval();
+		lockDelay = settings.getLockDelay();
+		 */
+
+		garbageQueue = new LinkedList<>();
+
+		randomizerType = settings.getRandomizer();
+		randomizer = RandomizerType.getRandomizer(randomizerType, pieceFactory.getNames().length, seed);
+		pieceQueue = new IntRingBuffer(2 * numPreviews + 2);
+		board = new Board(boardWidth, 2 * boardHeight);
+		nextPieceCallback = Collections.synchronizedSet(new HashSet<>());
+		pieceMoveCallback = Collections.synchronizedSet(new HashSet<>());
+		pieceRotateCallback = Collections.synchronizedSet(new HashSet<>());
+		piecePlacedCallback = Collections.synchronizedSet(new HashSet<>());
+		gameOverCallbacks = Collections.synchronizedSet(new HashSet<>());
+		actionCallbacks = Collections.synchronizedSet(new HashSet<>());
+		garbageQueuedCallbacks = Collections.synchronizedSet(new HashSet<>());
+		rowsChangedCallbacks = Collections.synchronizedSet(new HashSet<>());
+	}
+
+	public void init() {
+		board.clear();
+		randomizer.fill(pieceQueue, numPreviews + 1);
+		setNextPiece();
+		heldPiece = null;
+
+		publishChangedRows();
+		for (BoardUpdateCallback callback : boardUpdateCallbacks) {
+			callback.onBoardUpdate();
+		}
+	}
+
+	public void apply(Action action) {
+		if (!isStarted || isGameOver) {
+			return;
+		}
+		for (ActionCallback callback : actionCallbacks) {
+			callback.onAction(frame, action);
+		}
+		switch (action) {
+			case MOVE_LEFT_PRESS -> {
+				isLeftHeld = true;
+				lastMovedDirection = Direction.LEFT;
+				movePiece(Direction.LEFT);
+				if (handling.isDASCancel()) {
+					accumulatorDAS = 0.0;
+				}
+			}
+			case MOVE_LEFT_RELEASE -> {
+				isLeftHeld = false;
+			}
+			case MOVE_RIGHT_PRESS -> {
+				isRightHeld = true;
+				lastMovedDirection = Direction.RIGHT;
+				movePiece(Direction.RIGHT);
+				if (handling.isDASCancel()) {
+					accumulatorDAS = 0.0;
+				}
+			}
+			case MOVE_RIGHT_RELEASE -> {
+				isRightHeld = false;
+			}
+			case SOFT_DROP_PRESS -> {
+				isSoftDropHeld = true;
+				movePiece(Direction.DOWN);
+			}
+			case SOFT_DROP_RELEASE -> {
+				isSoftDropHeld = false;
+			}
+			case ROTATE_CW -> {
+				rotatePiece(Rotation.CW);
+			}
+			case ROTATE_CCW -> {
+				rotatePiece(Rotation.CCW);
+			}
+			case ROTATE_180 -> {
+				rotatePiece(Rotation.HALF);
+			}
+			case HOLD -> {
+				hold();
+			}
+			case HARD_DROP -> {
+				currentPiece.hardDrop(board);
+				//a piece spawned overlapping the stack can't be placed
+				if (currentPiece.isPlaced()) {
+					onPiecePlaced();
+				}
+			}
+		}
+	}
+
+	//advances the game by one frame (SPF seconds)
+	public void tick() {
+		if (!isGameOver && isStarted) {
+			applyHandling(SPF);
+
+			//applyGravity(dt);
+			if (currentPiece.isPlaced()) {
+				onPiecePlaced();
+			}
+			frame++;
+		}
+	}
+
+	private void onPiecePlaced() {
+		int linesCleared = clearLines();
+
+		int attack;
+		int baseAttack = computeAttack(linesCleared, currentSpinType);
+		if (linesCleared > 0) {
+			attack = cancelGarbageQueue(baseAttack);
+		}
+		else {
+			attack = 0;
+			addBoardGarbage();
+		}
+
+		for (PiecePlacedCallback callback : piecePlacedCallback) {
+			callback.run(linesCleared, currentSpinType, attack);
+		}
+		setNextPiece();
+		publishChangedRows();
+		for (BoardUpdateCallback callback : boardUpdateCallbacks) {
+			callback.onBoardUpdate();
+		}
+		if (!isGameOver && currentPiece.testCollision(board, 0, 0)) {
+			gameOver();
+		}
+	}
+
+	private void applyHandling(double dt) {
+		boolean isLeft = isLeftHeld;
+		boolean isRight = isRightHeld;
+		boolean isDropping = false;
+
+		if (isLeft) {
+			if (!isRight || lastMovedDirection == Direction.LEFT) {
+				moveKey(Direction.LEFT, dt);
+			}
+		}
+		if (isRight) {
+			if (!isLeft || lastMovedDirection == Direction.RIGHT) {
+				moveKey(Direction.RIGHT, dt);
+			}
+		}
+
+		if (isSoftDropHeld) {
+			if (handling.getSDF() > Constants.MAX_SDF) {
+				while (currentPiece.move(Direction.DOWN, board));
+			}
+			else {
+				accumulatorSD += dt;
+				if (accumulatorSD >= 0.13 / handling.getSDF()) {
+					currentPiece.move(Direction.DOWN, board);
+					accumulatorSD = 0.0;
+				}
+				isDropping = true;
+			}
+		}
+
+		if (!isLeft && !isRight) {
+			accumulatorDAS = 0.0;
+			accumulatorARR = 0.0;
+		}
+		if (!isDropping) {
+			accumulatorSD = 0.0;
+		}
+	}
+
+	private void moveKey(Direction dir, double dt) {
+		accumulatorDAS += dt;
+		if (accumulatorDAS >= handling.getDAS() * SPF) {
+			if (handling.getARR() <= 0.0f) {
+				while (currentPiece.move(dir, board));
+			}
+			else {
+				accumulatorARR += dt;
+				if (accumulatorARR >= handling.getARR() * SPF) {
+					while (accumulatorARR >= 0.0) {
+						currentPiece.move(dir, board);
+						accumulatorARR -= SPF;
+					}
+					accumulatorARR = 0.0;
+				}
+			}
+		}
+	}
+
+	private void hold() {
+
+		if (heldPiece == null) {
+			heldPiece = currentPiece.getName();
+			setNextPiece();
+		}
+		else {
+			String temp = heldPiece;
+			heldPiece = currentPiece.getName();
+			pieceFactory.spawnPiece(temp, currentPiece);
+		}
+
+		currentSpinType = SpinType.NONE;
+		for (BoardUpdateCallback callback : boardUpdateCallbacks) {
+			callback.onBoardUpdate();
+		}
+	}
+
+	private void movePiece(Direction dir) {
+		boolean hasMoved = currentPiece.move(dir, board);
+		if (hasMoved) {
+			for (MoveCallback callback : pieceMoveCallback) {
+				callback.run(dir);
+			}
+		}
+	}
+
+	private void rotatePiece(Rotation rot) {
+		int kickIndex = currentPiece.rotate(rot, board);
+		//detect spin, if any
+		//can have support for different spin detection methods
+		testSpinDefault(kickIndex);
+
+		for (RotateCallback runnable : pieceRotateCallback) {
+			runnable.run(currentPiece.getPieceColour(), rot, kickIndex);
+		}
+	}
+
+	private void testSpinDefault(int kickIndex) {
+		currentSpinType = spinDetection.detectSpin(currentPiece, board, kickIndex);
+	}
+
+	private int clearLines() {
+		int linesCleared = checkLineClears();
+		this.linesCleared += linesCleared; //TODO: get this out of here
+		return linesCleared;
+	}
+
+	//only the rows the piece was just placed in can have become full
+	private int checkLineClears() {
+		PieceMask mask = currentPiece.getCollisionMask();
+		int y = currentPiece.getBottomLeftY();
+		return board.clearFullRows(y + mask.getMinRow(), y + mask.getMaxRow());
+	}
+
+	private void publishChangedRows() {
+		BitSet rows = board.getDirtyRows();
+		if (rows.isEmpty()) {
+			return;
+		}
+		for (RowsChangedCallback callback : rowsChangedCallbacks) {
+			callback.onRowsChanged(rows);
+		}
+		board.clearDirtyRows();
+	}
+
+	private int computeAttack(int rowsCleared, SpinType spinType) {
+		int linesToSend;
+		if (rowsCleared > 0) {
+			//TODO: add combo table support
+			//it's gonna be hardcoded for the time being
+			//function is G(b, c, n) = ((c + b) / 4) * n + c + b, where
+			//b = b2b level, c = clear type (1 for double/t-mini double, 2 for triple/tss, 4 for quad/tsd, 6 for tst), n is the combo
+			int linesBase;
+			boolean isB2B;
+			switch (spinType) {
+				case T_SPIN -> {
+					linesBase = 2 * rowsCleared;
+					isB2B = true;
+				}
+				case T_SPIN_MINI -> {
+					linesBase = (4 * (rowsCleared - 1)) / 3;
+					isB2B = true;
+				}
+				default -> {
+					//evaluates to 0, 1, 2, 4 for inputs 1, 2, 3, 4
+					linesBase = (4 * (rowsCleared - 1)) / 3;
+					isB2B = rowsCleared >= 4;
+					if (!isB2B) {
+						b2bLevel = 0;
+					}
+				}
+			}
+			combo++;
+			if (rowsCleared < 2) {
+				if (combo < 2) {
+					linesToSend = 0;
+				}
+				else if (combo < 6) {
+					linesToSend = 1;
+				}
+				else if (combo < 16) {
+					linesToSend = 2;
+				}
+				else if (combo < 43) {
+					linesToSend = 3;
+				}
+				else if (combo < 118) {
+					linesToSend = 4;
+				}
+				else {
+					linesToSend = 5;
+				}
+			}
+			else {
+				linesToSend = ((linesBase + b2bLevel) / 4) * combo + linesBase + b2bLevel;
+			}
+			b2bLevel = isB2B ? 1 : 0;
+		}
+		else {
+			combo = -1;
+			linesToSend = 0;
+		}
+		return linesToSend;
+	}
+
+	private int cancelGarbageQueue(int attack) {
+		int remainingAttack = attack;
+		while (remainingAttack > 0 && !garbageQueue.isEmpty()) {
+			Garbage garbage = garbageQueue.peek();
+			if (remainingAttack >= garbage.amount) {
+				garbageQueue.poll();
+				remainingAttack -= garbage.amount;
+			}
+			else {
+				garbage.amount -= remainingAttack;
+				remainingAttack = 0;
+			}
+		}
+		return remainingAttack;
+	}
+
+	private void addBoardGarbage() {
+		if (garbageQueue.isEmpty()) {
+			return;
+		}
+		//TODO: add garbage cap
+		int inserted = 0;
+		boolean hasFullRows = false;
+		while (!garbageQueue.isEmpty()) {
+			Garbage garbage = garbageQueue.poll();
+			inserted += garbage.amount;
+			//a hole outside the board means the garbage has none, so it comes in as full rows
+			hasFullRows |= garbage.column < 0 || garbage.column >= board.getWidth();
+			//if anything is pushed off the top of the board, end the game
+			if (board.addGarbage(garbage.amount, garbage.column)) {
+				gameOver();
+			}
+		}
+		//everything just inserted is at the bottom, the piece's rows were already checked
+		if (hasFullRows) {
+			board.clearFullRows(0, inserted - 1);
+		}
+	}
+
+	private void setNextPiece() {
+		nextPieceHelper();
+		currentSpinType = SpinType.NONE;
+		for (Runnable runnable : nextPieceCallback) {
+			runnable.run();
+		}
+	}
+
+	private void nextPieceHelper() {
+		randomizer.fill(pieceQueue, numPreviews + 1);
+		piecesDealt++;
+		pieceFactory.spawnPiece(pieceQueue.poll(), currentPiece);
+	}
+
+	private void gameOver() {
+		isGameOver = true;
+		//over a copy, a listener can unregister itself when the game ends
+		for (GameOverCallback callback : List.copyOf(gameOverCallbacks)) {
+			callback.onGameOver();
+		}
+	}
+
+	private void addQueueGarbage(Garbage garbage) {
+		garbageQueue.add(garbage);
+	}
+
+	public void addQueueGarbage(List<Garbage> garbageList) {
+		for (GarbageQueuedCallback callback : garbageQueuedCallbacks) {
+			callback.onGarbageQueued(frame, garbageList);
+		}
+		for (Garbage garbage : garbageList) {
+			addQueueGarbage(garbage);
+		}
+		for (BoardUpdateCallback callback : boardUpdateCallbacks) {
+			callback.onBoardUpdate();
+		}
+	}
+
+	public GLTrisSnapshot snapshot() {
+		int[] queue = new int[pieceQueue.size()];
+		for (int i = 0; i < queue.length; i++) {
+			queue[i] = pieceQueue.get(i);
+		}
+		int[] garbageAmounts = new int[garbageQueue.size()];
+		int[] garbageColumns = new int[garbageQueue.size()];
+		int i = 0;
+		for (Garbage garbage : garbageQueue) {
+			garbageAmounts[i] = garbage.amount;
+			garbageColumns[i] = garbage.column;
+			i++;
+		}
+		return new GLTrisSnapshot(frame, new Board(board), currentPiece.copy(), heldPiece, queue, piecesDealt,
+			garbageAmounts, garbageColumns,
+			lastMovedDirection, isLeftHeld, isRightHeld, isSoftDropHeld,
+			accumulatorSD, accumulatorARR, accumulatorDAS,
+			isStarted, isGameOver, linesCleared, currentSpinType, combo, b2bLevel);
+	}
+
+	//snapshot has to come from a simulation with the same settings and seed
+	public void restore(GLTrisSnapshot snapshot) {
+		frame = snapshot.frame;
+		board.copyFrom(snapshot.board);
+		currentPiece.copyFrom(snapshot.currentPiece);
+		heldPiece = snapshot.heldPiece;
+
+		//every piece produced so far has either been dealt or is still in the queue
+		randomizer = RandomizerType.getRandomizer(randomizerType, pieceFactory.getNames().length, seed);
+		for (int i = 0; i < snapshot.piecesDealt + snapshot.pieceQueue.length; i++) {
+			randomizer.next();
+		}
+		pieceQueue.clear();
+		for (int piece : snapshot.pieceQueue) {
+			pieceQueue.offer(piece);
+		}
+		piecesDealt = snapshot.piecesDealt;
+
+		garbageQueue.clear();
+		for (int i = 0; i < snapshot.garbageAmounts.length; i++) {
+			garbageQueue.add(new Garbage(snapshot.garbageAmounts[i], snapshot.garbageColumns[i]));
+		}
+
+		lastMovedDirection = snapshot.lastMovedDirection;
+		isLeftHeld = snapshot.isLeftHeld;
+		isRightHeld = snapshot.isRightHeld;
+		isSoftDropHeld = snapshot.isSoftDropHeld;
+		accumulatorSD = snapshot.accumulatorSD;
+		accumulatorARR = snapshot.accumulatorARR;
+		accumulatorDAS = snapshot.accumulatorDAS;
+
+		isStarted = snapshot.isStarted;
+		isGameOver = snapshot.isGameOver;
+		linesCleared = snapshot.linesCleared;
+		currentSpinType = snapshot.currentSpinType;
+		combo = snapshot.combo;
+		b2bLevel = snapshot.b2bLevel;
+
+		publishChangedRows();
+		for (BoardUpdateCallback callback : boardUpdateCallbacks) {
+			callback.onBoardUpdate();
+		}
+	}
+
+	@Override
+	public int getBoardHeight() {
+		return boardHeight;
+	}
+
+	@Override
+	public int getBoardWidth() {
+		return boardWidth;
+	}
+
+	@Override
+	public TileState[][] getBoard() {
+		return this.board.getTiles();
+	}
+
+	//a copy of the board, safe to hand to another thread
+	public Board copyBoard() {
+		return new Board(board);
+	}
+
+	//the live piece, only valid until the next action or tick. use copyCurrentPiece to keep it around or hand it to another thread
+	public Piece getCurrentPiece() {
+		return this.currentPiece;
+	}
+
+	public void copyCurrentPiece(Piece target) {
+		target.copyFrom(currentPiece);
+	}
+
+	@Override
+	int getPieceX() {
+		return currentPiece.getBottomLeftX();
+	}
+
+	@Override
+	int getPieceY() {
+		return currentPiece.getBottomLeftY();
+	}
+
+	@Override
+	boolean[][] getTileMap() {
+		return currentPiece.getTileMap();
+	}
+
+	@Override
+	PieceColour getPieceColour() {
+		return currentPiece.getPieceColour();
+	}
+
+	@Override
+	public String getHeldPiece() {
+		return heldPiece;
+	}
+
+	@Override
+	public String[] getPieceQueue() {
+		String[] ret = new String[pieceQueue.size()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = pieceFactory.getName(pieceQueue.get(i));
+		}
+		return ret;
+	}
+
+	@Override
+	public int[] getGarbageQueue() {
+		int[] list = new int[garbageQueue.size()];
+		int i = 0;
+		for (Garbage garbage : garbageQueue) {
+			if (i > list.length) {
+				break;
+			}
+			list[i] = garbage.amount;
+			i++;
+		}
+		return list;
+	}
+
+	public PieceFactory getPieceFactory() {
+		return pieceFactory;
+	}
+
+	@Override
+	public int getNumPreviews() {
+		return numPreviews;
+	}
+
+	public int getLinesCleared() {
+		return linesCleared;
+	}
+
+	public boolean isGameOver() {
+		return isGameOver;
+	}
+
+	public void setStarted(boolean started) {
+		isStarted = started;
+	}
+
+	public boolean isStarted() {
+		return isStarted;
+	}
+
+	public long getFrame() {
+		return frame;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getPiecesDealt() {
+		return piecesDealt;
+	}
+
+	//lockstep peers compare this after re-simulating someone's inputs
+	public long getBoardHash() {
+		return board.contentHash();
+	}
+
+	public int getEmptyCells() {
+		return board.getEmptyCells();
+	}
+
+	public Handling getHandling() {
+		return handling;
+	}
+
+	public void registerOnPiecePlacedCallback(PiecePlacedCallback callback) {
+		piecePlacedCallback.add(callback);
+	}
+
+	public void unregisterOnPiecePlacedCallback(PiecePlacedCallback callback) {
+		piecePlacedCallback.remove(callback);
+	}
+
+	public void registerOnNextPieceListener(Runnable listener) {
+		nextPieceCallback.add(listener);
+	}
+
+	public void registerOnRotateListener(RotateCallback callback) {
+		pieceRotateCallback.add(callback);
+	}
+
+	public void registerOnGameOverListener(GameOverCallback callback) {
+		gameOverCallbacks.add(callback);
+	}
+
+	public void unregisterOnGameOverListener(GameOverCallback callback) {
+		gameOverCallbacks.remove(callback);
+	}
+
+	public void registerOnActionListener(ActionCallback callback) {
+		actionCallbacks.add(callback);
+	}
+
+	public void unregisterOnActionListener(ActionCallback callback) {
+		actionCallbacks.remove(callback);
+	}
+
+	public void registerOnGarbageQueuedListener(GarbageQueuedCallback callback) {
+		garbageQueuedCallbacks.add(callback);
+	}
+
+	public void unregisterOnGarbageQueuedListener(GarbageQueuedCallback callback) {
+		garbageQueuedCallbacks.remove(callback);
+	}
+
+	public void registerOnRowsChangedListener(RowsChangedCallback callback) {
+		rowsChangedCallbacks.add(callback);
+	}
+
+	public void unregisterOnRowsChangedListener(RowsChangedCallback callback) {
+		rowsChangedCallbacks.remove(callback);
+	}
+}
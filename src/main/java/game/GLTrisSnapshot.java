@@ -0,0 +1,68 @@
+package game;
+
+import game.board.Board;
+import game.pieces.util.*;
+
+//a copy of everything GLTrisSimulation needs to carry on from a given frame, taken with snapshot() and applied with restore()
+//the randomizer isn't copied, only how many pieces it has produced, restoring replays it from the seed
+public class GLTrisSnapshot {
+	final long frame;
+	final Board board;
+	final Piece currentPiece;
+	final String heldPiece;
+	final int[] pieceQueue;
+	final int piecesDealt;
+	final int[] garbageAmounts;
+	final int[] garbageColumns;
+
+	final Direction lastMovedDirection;
+	final boolean isLeftHeld;
+	final boolean isRightHeld;
+	final boolean isSoftDropHeld;
+	final double accumulatorSD;
+	final double accumulatorARR;
+	final double accumulatorDAS;
+
+	final boolean isStarted;
+	final boolean isGameOver;
+	final int linesCleared;
+	final SpinType currentSpinType;
+	final int combo;
+	final int b2bLevel;
+
+	GLTrisSnapshot(long frame, Board board, Piece currentPiece, String heldPiece, int[] pieceQueue, int piecesDealt,
+				   int[] garbageAmounts, int[] garbageColumns,
+				   Direction lastMovedDirection, boolean isLeftHeld, boolean isRightHeld, boolean isSoftDropHeld,
+				   double accumulatorSD, double accumulatorARR, double accumulatorDAS,
+				   boolean isStarted, boolean isGameOver, int linesCleared, SpinType currentSpinType, int combo, int b2bLevel) {
+		this.frame = frame;
+		this.board = board;
+		this.currentPiece = currentPiece;
+		this.heldPiece = heldPiece;
+		this.pieceQueue = pieceQueue;
+		this.piecesDealt = piecesDealt;
+		this.garbageAmounts = garbageAmounts;
+		this.garbageColumns = garbageColumns;
+		this.lastMovedDirection = lastMovedDirection;
+		this.isLeftHeld = isLeftHeld;
+		this.isRightHeld = isRightHeld;
+		this.isSoftDropHeld = isSoftDropHeld;
+		this.accumulatorSD = accumulatorSD;
+		this.accumulatorARR = accumulatorARR;
+		this.accumulatorDAS = accumulatorDAS;
+		this.isStarted = isStarted;
+		this.isGameOver = isGameOver;
+		this.linesCleared = linesCleared;
+		this.currentSpinType = currentSpinType;
+		this.combo = combo;
+		this.b2bLevel = b2bLevel;
+	}
+
+	public long getFrame() {
+		return frame;
+	}
+
+	public Board getBoard() {
+		return board;
+	}
+}
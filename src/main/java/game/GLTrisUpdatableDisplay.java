@@ -4,7 +4,16 @@ import game.callbacks.BoardUpdateCallback;
 import game.pieces.util.*;
 import util.Constants;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Objects;
+
 public class GLTrisUpdatableDisplay extends GLTrisRender{
+	//snapshots waiting to be shown, past this the oldest are dropped
+	public static final int MAX_SNAPSHOTS = 16;
+	//snapshots further apart than this aren't interpolated between, the piece most likely sat still for most of it
+	public static final long MAX_INTERPOLATED_GAP_NANOS = 250_000_000L;
 
 	TileState[][] board;
 	String[] queue;
@@ -16,6 +25,10 @@ public class GLTrisUpdatableDisplay extends GLTrisRender{
 	boolean[][] tileMap;
 	PieceColour pieceColour;
 
+	//other players' boards are shown a little in the past, so there's usually a newer snapshot to move the piece towards
+	Deque<Snapshot> snapshots = new ArrayDeque<>();
+	Snapshot shown;
+
 	public GLTrisUpdatableDisplay(int numPreviews) {
 		this.numPreviews = numPreviews;
 		board = new TileState[2 * Constants.BOARD_HEIGHT][2 * Constants.BOARD_WIDTH];
@@ -109,4 +122,102 @@ public class GLTrisUpdatableDisplay extends GLTrisRender{
 		this.tileMap = tileMap;
 		this.pieceColour = pieceColour;
 	}
+
+	//time is when the board was sent, on whatever clock update is given
+	public void addSnapshot(long time, TileState[][] board, String heldPiece, String[] queue, int[] garbageQueue,
+							int pieceX, int pieceY, boolean[][] tileMap, PieceColour pieceColour) {
+		Snapshot last = snapshots.isEmpty() ? shown : snapshots.peekLast();
+		//they arrive in the order they were sent, only the estimate of when can go backwards
+		if (last != null && time < last.time) {
+			time = last.time;
+		}
+		snapshots.addLast(new Snapshot(time, board, heldPiece, queue, garbageQueue, pieceX, pieceY, tileMap, pieceColour));
+		if (snapshots.size() > MAX_SNAPSHOTS) {
+			snapshots.pollFirst();
+		}
+	}
+
+	//shows the board as it was at renderTime. the piece slides between snapshots a cell at a time, everything else changes when the snapshot is reached
+	public void update(long renderTime) {
+		Snapshot next = snapshots.peekFirst();
+		while (next != null && next.time <= renderTime) {
+			show(snapshots.pollFirst());
+			next = snapshots.peekFirst();
+		}
+		if (shown == null) {
+			return;
+		}
+		pieceX = shown.pieceX;
+		pieceY = shown.pieceY;
+		if (next == null || !next.isSamePiece(shown) || next.time - shown.time > MAX_INTERPOLATED_GAP_NANOS || next.time <= shown.time) {
+			return;
+		}
+		double t = (double) (renderTime - shown.time) / (next.time - shown.time);
+		int x = (int) Math.round(shown.pieceX + (next.pieceX - shown.pieceX) * t);
+		int y = (int) Math.round(shown.pieceY + (next.pieceY - shown.pieceY) * t);
+		//a straight line between two spots the piece fit in can still cut through the stack
+		if (fits(x, y)) {
+			pieceX = x;
+			pieceY = y;
+		}
+	}
+
+	private void show(Snapshot snapshot) {
+		shown = snapshot;
+		board = snapshot.board;
+		heldPiece = snapshot.heldPiece;
+		garbageQueue = snapshot.garbageQueue;
+		tileMap = snapshot.tileMap;
+		pieceColour = snapshot.pieceColour;
+		pieceX = snapshot.pieceX;
+		pieceY = snapshot.pieceY;
+		setQueue(snapshot.queue);
+	}
+
+	private boolean fits(int x, int y) {
+		if (tileMap == null) {
+			return false;
+		}
+		for (int i = 0; i < tileMap.length; i++) {
+			for (int j = 0; j < tileMap[i].length; j++) {
+				if (tileMap[i][j] &&
+					!(x + j >= 0 && x + j < board[0].length &&
+					y + i >= 0 && y + i < board.length &&
+					board[y + i][x + j] == TileState.EMPTY)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static class Snapshot {
+		final long time;
+		final TileState[][] board;
+		final String heldPiece;
+		final String[] queue;
+		final int[] garbageQueue;
+		final int pieceX, pieceY;
+		final boolean[][] tileMap;
+		final PieceColour pieceColour;
+
+		Snapshot(long time, TileState[][] board, String heldPiece, String[] queue, int[] garbageQueue,
+				 int pieceX, int pieceY, boolean[][] tileMap, PieceColour pieceColour) {
+			this.time = time;
+			this.board = board;
+			this.heldPiece = heldPiece;
+			this.queue = queue;
+			this.garbageQueue = garbageQueue;
+			this.pieceX = pieceX;
+			this.pieceY = pieceY;
+			this.tileMap = tileMap;
+			this.pieceColour = pieceColour;
+		}
+
+		//the same piece in the same orientation, rather than the next piece that happens to match
+		boolean isSamePiece(Snapshot other) {
+			return pieceColour == other.pieceColour && Arrays.deepEquals(tileMap, other.tileMap) &&
+				Arrays.equals(queue, other.queue) && Objects.equals(heldPiece, other.heldPiece);
+		}
+	}
 }
@@ -0,0 +1,40 @@
+package game;
+
+//units are in frames, same as LocalSettings
+public class Handling {
+	public static final double DEFAULT_ARR = 0.0;
+	public static final double DEFAULT_DAS = 8.0;
+	public static final double DEFAULT_SDF = 6.0;
+
+	private final double arr;
+	private final double das;
+	private final double sdf; //sdf units in tiles/frame, 1sdf is 1 tile/frame, 40sdf is 40 tiles/frame
+	private final boolean isDASCancel;
+
+	public Handling() {
+		this(DEFAULT_ARR, DEFAULT_DAS, DEFAULT_SDF, false);
+	}
+
+	public Handling(double arr, double das, double sdf, boolean isDASCancel) {
+		this.arr = arr;
+		this.das = das;
+		this.sdf = sdf;
+		this.isDASCancel = isDASCancel;
+	}
+
+	public double getARR() {
+		return arr;
+	}
+
+	public double getDAS() {
+		return das;
+	}
+
+	public double getSDF() {
+		return sdf;
+	}
+
+	public boolean isDASCancel() {
+		return isDASCancel;
+	}
+}
@@ -1,8 +1,8 @@
 package game;
 
+import game.board.Board;
 import game.pieces.util.Piece;
-import game.pieces.util.TileState;
 
 public interface SpinDetection {
-	SpinType detectSpin(Piece piece, TileState[][] board, int kickIndex);
+	SpinType detectSpin(Piece piece, Board board, int kickIndex);
 }
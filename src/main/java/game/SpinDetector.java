@@ -1,5 +1,6 @@
 package game;
 
+import game.board.Board;
 import game.pieces.util.*;
 
 import static game.SpinType.*;
@@ -29,33 +30,31 @@ public enum SpinDetector {
 		SpinDetection ret;
 		switch (type) {
 			case T_SPIN -> {
-				ret = (Piece piece, TileState[][] board, int kickIndex) -> {
-					int boardHeight = board.length;
-					int boardWidth = board[0].length;
+				ret = (Piece piece, Board board, int kickIndex) -> {
 					int forwardCornerCount = 0;
 					int cornerCount = 0;
 					int tCenterX = piece.getBottomLeftX() + 1;
 					int tCenterY = piece.getBottomLeftY() + 1;
 					Orientation orientation = piece.getOrientation();
-					if (tCenterX - 1 < 0 || tCenterY - 1 < 0 || tCenterX - 1 >= boardWidth || tCenterY - 1 >= boardHeight || board[tCenterY - 1][tCenterX - 1] != TileState.EMPTY) {
+					if (board.isOccupied(tCenterX - 1, tCenterY - 1)) {
 						if (orientation == R2 || orientation == R3) {
 							forwardCornerCount++;
 						}
 						cornerCount++;
 					}
-					if (tCenterX - 1 < 0 || tCenterY + 1 >= boardHeight || tCenterX - 1 >= boardWidth || tCenterY + 1 < 0 || board[tCenterY + 1][tCenterX - 1] != TileState.EMPTY) {
+					if (board.isOccupied(tCenterX - 1, tCenterY + 1)) {
 						if (orientation == E || orientation == R3) {
 							forwardCornerCount++;
 						}
 						cornerCount++;
 					}
-					if (tCenterX + 1 >= boardWidth || tCenterY - 1 < 0 || tCenterX + 1 < 0 || tCenterY - 1 >= boardHeight || board[tCenterY - 1][tCenterX + 1] != TileState.EMPTY) {
+					if (board.isOccupied(tCenterX + 1, tCenterY - 1)) {
 						if (orientation == R || orientation == R2) {
 							forwardCornerCount++;
 						}
 						cornerCount++;
 					}
-					if (tCenterX + 1 >= boardWidth || tCenterY + 1 >= boardHeight || tCenterX + 1 < 0 || tCenterY + 1 < 0 || board[tCenterY + 1][tCenterX + 1] != TileState.EMPTY) {
+					if (board.isOccupied(tCenterX + 1, tCenterY + 1)) {
 						if (orientation == E || orientation == R) {
 							forwardCornerCount++;
 						}
@@ -81,7 +80,7 @@ public enum SpinDetector {
 				ret = getAllSpinDetector();
 			}
 			default -> {
-				ret = (Piece piece, TileState[][] board, int kickIndex) -> {
+				ret = (Piece piece, Board board, int kickIndex) -> {
 					return SpinType.NONE;
 				};
 			}
@@ -90,7 +89,7 @@ public enum SpinDetector {
 	}
 
 	private static SpinDetection getAllSpinDetector() {
-		return (Piece piece, TileState[][] board, int kickIndex) -> {
+		return (Piece piece, Board board, int kickIndex) -> {
 			SpinType currentSpinType = SpinType.NONE;
 			switch(piece.getPieceColour()) {
 				case I -> {
@@ -136,32 +135,30 @@ public enum SpinDetector {
 					}
 				}
 				case T -> {
-					int boardHeight = board.length;
-					int boardWidth = board[0].length;
 					int forwardCornerCount = 0;
 					int cornerCount = 0;
 					int tCenterX = piece.getBottomLeftX() + 1;
 					int tCenterY = piece.getBottomLeftY() + 1;
 					Orientation orientation = piece.getOrientation();
-					if (tCenterX - 1 < 0 || tCenterY - 1 < 0 || tCenterX - 1 >= boardWidth || tCenterY - 1 >= boardHeight || board[tCenterY - 1][tCenterX - 1] != TileState.EMPTY) {
+					if (board.isOccupied(tCenterX - 1, tCenterY - 1)) {
 						if (orientation == R2 || orientation == R3) {
 							forwardCornerCount++;
 						}
 						cornerCount++;
 					}
-					if (tCenterX - 1 < 0 || tCenterY + 1 >= boardHeight || tCenterX - 1 >= boardWidth || tCenterY + 1 < 0 || board[tCenterY + 1][tCenterX - 1] != TileState.EMPTY) {
+					if (board.isOccupied(tCenterX - 1, tCenterY + 1)) {
 						if (orientation == E || orientation == R3) {
 							forwardCornerCount++;
 						}
 						cornerCount++;
 					}
-					if (tCenterX + 1 >= boardWidth || tCenterY - 1 < 0 || tCenterX + 1 < 0 || tCenterY - 1 >= boardHeight || board[tCenterY - 1][tCenterX + 1] != TileState.EMPTY) {
+					if (board.isOccupied(tCenterX + 1, tCenterY - 1)) {
 						if (orientation == R || orientation == R2) {
 							forwardCornerCount++;
 						}
 						cornerCount++;
 					}
-					if (tCenterX + 1 >= boardWidth || tCenterY + 1 >= boardHeight || tCenterX + 1 < 0 || tCenterY + 1 < 0 || board[tCenterY + 1][tCenterX + 1] != TileState.EMPTY) {
+					if (board.isOccupied(tCenterX + 1, tCenterY + 1)) {
 						if (orientation == E || orientation == R) {
 							forwardCornerCount++;
 						}
@@ -0,0 +1,350 @@
+package game.board;
+
+import game.pieces.util.PieceMask;
+import game.pieces.util.TileState;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class Board {
+	//one bit per column, so a row has to fit in a long
+	public static final int MAX_WIDTH = Long.SIZE;
+
+	private final int width;
+	private final int height;
+	private final long fullRow;
+
+	//rows live in physical slots that never move, only the slot indices do
+	//logical row y (0 is the bottom of the board) is stored in slot slots[(base + y) % height]
+	//so garbage pushes in at the bottom by moving base down, and line clears only shuffle slot indices
+	private final int[] slots;
+	private int base = 0;
+	//scratch space for clearFullRows
+	private final int[] clearedSlots;
+
+	//occupancy masks by slot, bit j is set if the tile at column j of that row is filled
+	private final long[] rows;
+	//colour plane by slot, TileState values. only read by rendering and the network
+	private final byte[] tiles;
+
+	private int filledCells = 0;
+
+	//logical rows changed since the last clearDirtyRows, for subscribers that only want to redo what changed
+	private final BitSet dirtyRows;
+	//rows of tileView that are out of date, tracked separately so subscribers clearing theirs doesn't affect it
+	private final BitSet staleViewRows;
+	private TileState[][] tileView;
+
+	public Board(int width, int height) {
+		if (width <= 0 || width > MAX_WIDTH) {
+			throw new IllegalArgumentException("Board width must be between 1 and " + MAX_WIDTH + ".");
+		}
+		if (height <= 0) {
+			throw new IllegalArgumentException("Board height must be greater than 0.");
+		}
+		this.width = width;
+		this.height = height;
+		this.fullRow = width == MAX_WIDTH ? -1L : (1L << width) - 1;
+		this.slots = new int[height];
+		this.clearedSlots = new int[height];
+		for (int i = 0; i < height; i++) {
+			slots[i] = i;
+		}
+		this.rows = new long[height];
+		this.tiles = new byte[width * height];
+		this.dirtyRows = new BitSet(height);
+		this.staleViewRows = new BitSet(height);
+	}
+
+	public Board(Board src) {
+		this(src.width, src.height);
+		copyFrom(src);
+	}
+
+	public void copyFrom(Board src) {
+		if (src.width != width || src.height != height) {
+			throw new IllegalArgumentException("Cannot copy a " + src.width + "x" + src.height + " board into a " + width + "x" + height + " board.");
+		}
+		System.arraycopy(src.slots, 0, slots, 0, height);
+		base = src.base;
+		System.arraycopy(src.rows, 0, rows, 0, height);
+		System.arraycopy(src.tiles, 0, tiles, 0, tiles.length);
+		filledCells = src.filledCells;
+		markDirty(0, height);
+	}
+
+	//marks logical rows [from, to) as changed
+	private void markDirty(int from, int to) {
+		dirtyRows.set(from, to);
+		staleViewRows.set(from, to);
+	}
+
+	private int slot(int y) {
+		int index = base + y;
+		return slots[index >= height ? index - height : index];
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public long getFullRowMask() {
+		return fullRow;
+	}
+
+	public long getRow(int y) {
+		return rows[slot(y)];
+	}
+
+	public boolean isRowFull(int y) {
+		return rows[slot(y)] == fullRow;
+	}
+
+	public boolean isRowEmpty(int y) {
+		return rows[slot(y)] == 0;
+	}
+
+	public int getRowFill(int y) {
+		return Long.bitCount(rows[slot(y)]);
+	}
+
+	public int getFilledCells() {
+		return filledCells;
+	}
+
+	//hash of the colours in logical row order, boards with the same tiles hash the same whatever their slot layout
+	public long contentHash() {
+		long hash = 17;
+		for (int y = 0; y < height; y++) {
+			int offset = slot(y) * width;
+			for (int x = 0; x < width; x++) {
+				hash = hash * 31 + tiles[offset + x];
+			}
+		}
+		return hash;
+	}
+
+	public int getEmptyCells() {
+		return width * height - filledCells;
+	}
+
+	//the returned set is live and reused, copy it or OR it into your own before the next change
+	public BitSet getDirtyRows() {
+		return dirtyRows;
+	}
+
+	public void clearDirtyRows() {
+		dirtyRows.clear();
+	}
+
+	//anything outside the board counts as occupied
+	public boolean isOccupied(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return true;
+		}
+		return (rows[slot(y)] & (1L << x)) != 0;
+	}
+
+	public TileState getTile(int x, int y) {
+		return TileState.getEnum(tiles[slot(y) * width + x]);
+	}
+
+	public void setTile(int x, int y, TileState tile) {
+		int slot = slot(y);
+		long old = rows[slot];
+		if (tile == TileState.EMPTY) {
+			rows[slot] &= ~(1L << x);
+		}
+		else {
+			rows[slot] |= 1L << x;
+		}
+		filledCells += Long.bitCount(rows[slot]) - Long.bitCount(old);
+		tiles[slot * width + x] = (byte) tile.getVal();
+		dirtyRows.set(y);
+		staleViewRows.set(y);
+	}
+
+	//rowMask is relative to x, i.e. bit j of rowMask refers to column x + j
+	public boolean collides(long rowMask, int x, int y) {
+		if (rowMask == 0) {
+			return false;
+		}
+		if (y < 0 || y >= height) {
+			return true;
+		}
+		long shifted;
+		if (x < 0) {
+			if (-x >= Long.SIZE || (rowMask & ((1L << -x) - 1)) != 0) {
+				return true;
+			}
+			shifted = rowMask >>> -x;
+		}
+		else {
+			int highestColumn = x + (Long.SIZE - 1 - Long.numberOfLeadingZeros(rowMask));
+			if (highestColumn >= width) {
+				return true;
+			}
+			shifted = rowMask << x;
+		}
+		return (rows[slot(y)] & shifted) != 0;
+	}
+
+	//tests a precompiled piece mask with its tile map's bottom left corner at (x, y)
+	public boolean collides(PieceMask mask, int x, int y) {
+		if (mask.isEmpty()) {
+			return false;
+		}
+		int left = x + mask.getMinColumn();
+		int bottom = y + mask.getMinRow();
+		if (left < 0 || bottom < 0 || x + mask.getMaxColumn() >= width || y + mask.getMaxRow() >= height) {
+			return true;
+		}
+		long[] rowMasks = mask.getRowMasks();
+		for (int i = 0; i < rowMasks.length; i++) {
+			if ((rows[slot(bottom + i)] & (rowMasks[i] << left)) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	//stamps a piece mask onto the board without any collision check, for search code that works on board copies
+	public void place(PieceMask mask, int x, int y, TileState tile) {
+		long[] rowMasks = mask.getRowMasks();
+		int left = x + mask.getMinColumn();
+		int bottom = y + mask.getMinRow();
+		for (int i = 0; i < rowMasks.length; i++) {
+			long rowMask = rowMasks[i];
+			while (rowMask != 0) {
+				int column = Long.numberOfTrailingZeros(rowMask);
+				setTile(left + column, bottom + i, tile);
+				rowMask &= rowMask - 1;
+			}
+		}
+	}
+
+	//removes every full row and shifts the rows above it down, returns the number of rows removed
+	public int clearFullRows() {
+		return clearFullRows(0, height - 1);
+	}
+
+	//same as above, but only rows minY to maxY are checked for being full, e.g. the rows the last piece was placed in
+	//only slot indices move, the cleared slots are emptied and reused as the new top rows
+	public int clearFullRows(int minY, int maxY) {
+		int firstFull = -1;
+		for (int y = Math.max(minY, 0); y <= Math.min(maxY, height - 1); y++) {
+			long row = rows[slot(y)];
+			if (row == fullRow) {
+				firstFull = y;
+				break;
+			}
+			if (row == 0) {
+				break;
+			}
+		}
+		if (firstFull < 0) {
+			return 0;
+		}
+
+		int writeIndex = firstFull;
+		int readIndex = firstFull;
+		int cleared = 0;
+		while (readIndex < height && rows[slot(readIndex)] != 0) {
+			int slot = slot(readIndex);
+			if (rows[slot] != fullRow) {
+				if (writeIndex != readIndex) {
+					setSlot(writeIndex, slot);
+				}
+				writeIndex++;
+			}
+			else {
+				//remember the slot so it can be emptied and reused as a top row
+				clearedSlots[cleared++] = slot;
+			}
+			readIndex++;
+		}
+		//everything above the last non-empty row is already empty, so the cleared slots just fill the gap left below it
+		for (int i = 0; i < cleared; i++) {
+			int slot = clearedSlots[i];
+			rows[slot] = 0;
+			Arrays.fill(tiles, slot * width, (slot + 1) * width, (byte) TileState.EMPTY.getVal());
+			setSlot(writeIndex + i, slot);
+		}
+		filledCells -= cleared * width;
+		markDirty(firstFull, readIndex);
+		return cleared;
+	}
+
+	private void setSlot(int y, int slot) {
+		int index = base + y;
+		slots[index >= height ? index - height : index] = slot;
+	}
+
+	//pushes amount rows of garbage in at the bottom, with an empty tile at holeColumn
+	//returns true if any filled tile was pushed off the top of the board
+	public boolean addGarbage(int amount, int holeColumn) {
+		amount = Math.min(amount, height);
+		if (amount <= 0) {
+			return false;
+		}
+		boolean isOverflow = false;
+		for (int i = height - amount; i < height; i++) {
+			if (rows[slot(i)] != 0) {
+				isOverflow = true;
+			}
+			filledCells -= Long.bitCount(rows[slot(i)]);
+		}
+		int top = height - 1;
+		while (top >= 0 && rows[slot(top)] == 0) {
+			top--;
+		}
+		//the top amount rows wrap around to become the bottom ones, and get overwritten with garbage
+		base -= amount;
+		if (base < 0) {
+			base += height;
+		}
+
+		boolean hasHole = holeColumn >= 0 && holeColumn < width;
+		long garbageRow = hasHole ? fullRow & ~(1L << holeColumn) : fullRow;
+		for (int i = 0; i < amount; i++) {
+			int slot = slot(i);
+			rows[slot] = garbageRow;
+			Arrays.fill(tiles, slot * width, (slot + 1) * width, (byte) TileState.GARBAGE.getVal());
+			if (hasHole) {
+				tiles[slot * width + holeColumn] = (byte) TileState.EMPTY.getVal();
+			}
+		}
+		filledCells += amount * Long.bitCount(garbageRow);
+		//every row up to the old top of the stack moved up by amount
+		markDirty(0, Math.min(height, top + 1 + amount));
+		return isOverflow;
+	}
+
+	public void clear() {
+		Arrays.fill(rows, 0);
+		Arrays.fill(tiles, (byte) TileState.EMPTY.getVal());
+		filledCells = 0;
+		markDirty(0, height);
+	}
+
+	//adapter for code that still expects a TileState grid (rendering, network messages)
+	//the returned array is reused between calls, so it should not be held on to across updates
+	public TileState[][] getTiles() {
+		if (tileView == null) {
+			tileView = new TileState[height][width];
+			staleViewRows.set(0, height);
+		}
+		for (int i = staleViewRows.nextSetBit(0); i >= 0; i = staleViewRows.nextSetBit(i + 1)) {
+			int slot = slot(i);
+			for (int j = 0; j < width; j++) {
+				tileView[i][j] = TileState.getEnum(tiles[slot * width + j]);
+			}
+		}
+		staleViewRows.clear();
+		return tileView;
+	}
+}
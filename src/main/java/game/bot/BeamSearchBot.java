@@ -0,0 +1,171 @@
+package game.bot;
+
+import game.board.Board;
+import game.pieces.PieceBuilder;
+import game.pieces.PieceFactory;
+import game.pieces.util.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//beam search over placements of the current piece, the hold piece and the visible queue
+//each depth keeps the beamWidth best positions, and the move that started the best line found is returned
+//children of a depth are expanded in parallel on the pool. once the time budget is spent the depth being expanded is abandoned
+//and the best line of the last finished depth is used, only the first depth always runs to the end so there's a move to return
+public class BeamSearchBot {
+	private final PieceFactory pieceFactory;
+	private final BoardEvaluator evaluator;
+	private final ForkJoinPool pool;
+	private final int beamWidth;
+	private final int maxDepth;
+	private final long timeBudgetNanos;
+
+	private final ThreadLocal<MoveGenerator> moveGenerators;
+
+	public BeamSearchBot(PieceFactory pieceFactory, BoardEvaluator evaluator, ForkJoinPool pool, int beamWidth, int maxDepth, long timeBudgetNanos) {
+		if (beamWidth <= 0 || maxDepth <= 0) {
+			throw new IllegalArgumentException("Beam width and depth must be greater than 0.");
+		}
+		this.pieceFactory = pieceFactory;
+		this.evaluator = evaluator;
+		this.pool = pool;
+		this.beamWidth = beamWidth;
+		this.maxDepth = maxDepth;
+		this.timeBudgetNanos = timeBudgetNanos;
+		this.moveGenerators = ThreadLocal.withInitial(() -> new MoveGenerator(pieceFactory));
+	}
+
+	private static class Node {
+		final Board board;
+		final String current;
+		final int currentX, currentY;
+		final Orientation currentOrientation;
+		final String hold;
+		final int queueIndex;
+		final double accumulated;
+		final double score;
+		final BotMove root;
+
+		Node(Board board, String current, int currentX, int currentY, Orientation currentOrientation,
+			 String hold, int queueIndex, double accumulated, double score, BotMove root) {
+			this.board = board;
+			this.current = current;
+			this.currentX = currentX;
+			this.currentY = currentY;
+			this.currentOrientation = currentOrientation;
+			this.hold = hold;
+			this.queueIndex = queueIndex;
+			this.accumulated = accumulated;
+			this.score = score;
+			this.root = root;
+		}
+	}
+
+	//current is the piece in play at its current position, queue is the upcoming pieces in order
+	//returns null if the current piece has nowhere to go
+	public BotMove findMove(Board board, Piece current, String hold, String[] queue) {
+		long deadline = System.nanoTime() + timeBudgetNanos;
+		List<Node> beam = new ArrayList<>();
+		beam.add(new Node(board, current.getName(), current.getBottomLeftX(), current.getBottomLeftY(), current.getOrientation(),
+			hold, 0, 0.0, 0.0, null));
+
+		BotMove best = null;
+		for (int depth = 0; depth < maxDepth; depth++) {
+			List<Node> parents = beam;
+			boolean isTimed = depth > 0;
+			AtomicBoolean isOutOfTime = new AtomicBoolean(false);
+			List<Node> children = pool.submit(() -> parents.parallelStream()
+				.flatMap((Node node) -> {
+					//nodes not started by the deadline are skipped, the rest of the depth is thrown away anyway
+					if (isTimed && (isOutOfTime.get() || System.nanoTime() >= deadline)) {
+						isOutOfTime.set(true);
+						return Stream.<Node>empty();
+					}
+					return expand(node, queue).stream();
+				})
+				.collect(Collectors.toList())).join();
+			//a partly expanded depth would favour whichever parents happened to go first
+			if (isOutOfTime.get()) {
+				break;
+			}
+			if (children.isEmpty()) {
+				break;
+			}
+			children.sort(Comparator.comparingDouble((Node node) -> -node.score));
+			beam = children.size() > beamWidth ? new ArrayList<>(children.subList(0, beamWidth)) : children;
+			best = beam.get(0).root;
+			if (System.nanoTime() >= deadline) {
+				break;
+			}
+		}
+		return best;
+	}
+
+	private List<Node> expand(Node node, String[] queue) {
+		List<Node> children = new ArrayList<>();
+		if (node.current == null) {
+			return children;
+		}
+		String next = node.queueIndex < queue.length ? queue[node.queueIndex] : null;
+
+		expandPiece(node, node.current, node.currentX, node.currentY, node.currentOrientation, false,
+			node.hold, next, node.queueIndex + 1, queue, children);
+
+		//holding swaps in the hold piece, or the next piece if nothing is held yet, at its spawn position
+		String swapped = node.hold != null ? node.hold : next;
+		if (swapped != null && !swapped.equals(node.current)) {
+			int queueIndex = node.hold != null ? node.queueIndex : node.queueIndex + 1;
+			String afterSwap = queueIndex < queue.length ? queue[queueIndex] : null;
+			PieceBuilder builder = pieceFactory.getBuilder(swapped);
+			expandPiece(node, swapped, builder.getSpawnBottomLeftX(), builder.getSpawnBottomLeftY(), Orientation.E, true,
+				node.current, afterSwap, queueIndex + 1, queue, children);
+		}
+		return children;
+	}
+
+	private void expandPiece(Node node, String pieceName, int x, int y, Orientation orientation, boolean isHold,
+							 String newHold, String newCurrent, int newQueueIndex, String[] queue, List<Node> children) {
+		PieceBuilder builder = pieceFactory.getBuilder(pieceName);
+		TileState tile = TileState.getEnum(builder.getPieceColour());
+		List<Placement> placements = moveGenerators.get().generate(node.board, pieceName, x, y, orientation);
+		for (Placement placement : placements) {
+			PieceMask mask = builder.getCollisionMask(placement.getOrientation());
+			boolean isSpin = builder.getPieceColour() == PieceColour.T && placement.isLastMoveRotation()
+				&& countCorners(node.board, placement.getX() + 1, placement.getY() + 1) >= 3;
+
+			Board child = new Board(node.board);
+			child.place(mask, placement.getX(), placement.getY(), tile);
+			int linesCleared = child.clearFullRows();
+			double accumulated = node.accumulated + evaluator.evaluateClear(linesCleared, isSpin);
+			double score = accumulated + evaluator.evaluate(child);
+
+			BotMove root = node.root != null ? node.root : new BotMove(isHold, placement, score);
+			if (newCurrent == null) {
+				//ran out of queue, this child can be scored but not expanded further
+				children.add(new Node(child, null, 0, 0, Orientation.E, newHold, newQueueIndex, accumulated, score, root));
+				continue;
+			}
+			PieceBuilder nextBuilder = pieceFactory.getBuilder(newCurrent);
+			children.add(new Node(child, newCurrent, nextBuilder.getSpawnBottomLeftX(), nextBuilder.getSpawnBottomLeftY(), Orientation.E,
+				newHold, newQueueIndex, accumulated, score, root));
+		}
+	}
+
+	private static int countCorners(Board board, int centerX, int centerY) {
+		int corners = 0;
+		corners += board.isOccupied(centerX - 1, centerY - 1) ? 1 : 0;
+		corners += board.isOccupied(centerX + 1, centerY - 1) ? 1 : 0;
+		corners += board.isOccupied(centerX - 1, centerY + 1) ? 1 : 0;
+		corners += board.isOccupied(centerX + 1, centerY + 1) ? 1 : 0;
+		return corners;
+	}
+
+	public PieceFactory getPieceFactory() {
+		return pieceFactory;
+	}
+}
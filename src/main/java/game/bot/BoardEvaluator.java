@@ -0,0 +1,12 @@
+package game.bot;
+
+import game.board.Board;
+
+//scores positions for the bot, higher is better. implementations must be thread safe, the search calls them from several threads
+public interface BoardEvaluator {
+	//static score of a board
+	double evaluate(Board board);
+
+	//reward for the placement that produced the board, on top of the board's own score
+	double evaluateClear(int linesCleared, boolean isSpin);
+}
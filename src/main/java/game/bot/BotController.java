@@ -0,0 +1,126 @@
+package game.bot;
+
+import game.Action;
+import game.GLTrisSimulation;
+import game.board.Board;
+import game.pieces.util.Piece;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+//plays a GLTrisSimulation with a BeamSearchBot, through the same Actions a human's key presses turn into
+//update() never blocks: the search runs on the pool and its move is applied on a later update once it's done
+public class BotController {
+	private final GLTrisSimulation game;
+	private final BeamSearchBot bot;
+	private final ForkJoinPool pool;
+	private final double piecesPerSecond;
+
+	private CompletableFuture<BotMove> pendingMove;
+	private int plannedPiece = -1;
+	//the piece the pending search was started from, only rewritten once that search is done
+	private final Piece plannedState = new Piece();
+	private double accumulator = 0.0;
+
+	//piecesPerSecond <= 0 plays as fast as the search allows
+	public BotController(GLTrisSimulation game, BeamSearchBot bot, ForkJoinPool pool, double piecesPerSecond) {
+		this.game = game;
+		this.bot = bot;
+		this.pool = pool;
+		this.piecesPerSecond = piecesPerSecond;
+	}
+
+	public void update(double dt) {
+		if (!game.isStarted() || game.isGameOver()) {
+			return;
+		}
+		accumulator += dt;
+		if (pendingMove == null) {
+			if (plannedPiece != game.getPiecesDealt()) {
+				plannedPiece = game.getPiecesDealt();
+				//copied here so the search never touches state the game thread is changing
+				game.copyCurrentPiece(plannedState);
+				Board board = game.copyBoard();
+				String hold = game.getHeldPiece();
+				String[] queue = game.getPieceQueue();
+				pendingMove = CompletableFuture.supplyAsync(() -> bot.findMove(board, plannedState, hold, queue), pool);
+			}
+			return;
+		}
+		if (!pendingMove.isDone() || (piecesPerSecond > 0 && accumulator < 1.0 / piecesPerSecond)) {
+			return;
+		}
+		BotMove move = pendingMove.join();
+		pendingMove = null;
+		accumulator = 0.0;
+		if (move != null) {
+			execute(move);
+		}
+		else {
+			//nowhere to go, topping out is all that's left
+			game.apply(Action.HARD_DROP);
+		}
+	}
+
+	//plans and plays one piece on the calling thread, for self-play and analysis where nothing else needs the thread
+	public boolean step() {
+		if (!game.isStarted() || game.isGameOver()) {
+			return false;
+		}
+		BotMove move = bot.findMove(game.copyBoard(), game.getCurrentPiece(), game.getHeldPiece(), game.getPieceQueue());
+		if (move == null) {
+			game.apply(Action.HARD_DROP);
+			return false;
+		}
+		execute(move);
+		return !game.isGameOver();
+	}
+
+	private void execute(BotMove move) {
+		if (move.isHold()) {
+			game.apply(Action.HOLD);
+		}
+		for (MoveInput input : move.getPlacement().getPath()) {
+			switch (input) {
+				case LEFT -> {
+					game.apply(Action.MOVE_LEFT_PRESS);
+					game.apply(Action.MOVE_LEFT_RELEASE);
+				}
+				case RIGHT -> {
+					game.apply(Action.MOVE_RIGHT_PRESS);
+					game.apply(Action.MOVE_RIGHT_RELEASE);
+				}
+				case DOWN -> {
+					game.apply(Action.SOFT_DROP_PRESS);
+					game.apply(Action.SOFT_DROP_RELEASE);
+				}
+				case SONIC_DROP -> {
+					//tap soft drop until the piece stops moving
+					int y;
+					do {
+						y = game.getCurrentPiece().getBottomLeftY();
+						game.apply(Action.SOFT_DROP_PRESS);
+						game.apply(Action.SOFT_DROP_RELEASE);
+					} while (game.getCurrentPiece().getBottomLeftY() != y);
+				}
+				case ROTATE_CW -> {
+					game.apply(Action.ROTATE_CW);
+				}
+				case ROTATE_CCW -> {
+					game.apply(Action.ROTATE_CCW);
+				}
+				case ROTATE_180 -> {
+					game.apply(Action.ROTATE_180);
+				}
+			}
+		}
+		game.apply(Action.HARD_DROP);
+	}
+
+	public void cancel() {
+		if (pendingMove != null) {
+			pendingMove.cancel(false);
+			pendingMove = null;
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package game.bot;
+
+//what the bot decided to do with the current piece: optionally hold first, then take placement's path and hard drop
+public class BotMove {
+	private final boolean isHold;
+	private final Placement placement;
+	private final double score;
+
+	public BotMove(boolean isHold, Placement placement, double score) {
+		this.isHold = isHold;
+		this.placement = placement;
+		this.score = score;
+	}
+
+	public boolean isHold() {
+		return isHold;
+	}
+
+	public Placement getPlacement() {
+		return placement;
+	}
+
+	public double getScore() {
+		return score;
+	}
+}
@@ -0,0 +1,116 @@
+package game.bot;
+
+import game.board.Board;
+
+//the usual hand tuned features: height, holes, bumpiness, one deep well, and open T-spin double slots
+public class HeuristicEvaluator implements BoardEvaluator {
+	private final double heightWeight;
+	private final double holeWeight;
+	private final double bumpinessWeight;
+	private final double wellWeight;
+	private final double tSlotWeight;
+	private final double[] clearRewards;
+	private final double spinReward;
+
+	public HeuristicEvaluator() {
+		this(-0.5, -4.0, -0.35, 0.3, 1.5, new double[] {0.0, -1.5, -1.0, -0.5, 6.0}, 4.0);
+	}
+
+	public HeuristicEvaluator(double heightWeight, double holeWeight, double bumpinessWeight, double wellWeight,
+							  double tSlotWeight, double[] clearRewards, double spinReward) {
+		this.heightWeight = heightWeight;
+		this.holeWeight = holeWeight;
+		this.bumpinessWeight = bumpinessWeight;
+		this.wellWeight = wellWeight;
+		this.tSlotWeight = tSlotWeight;
+		this.clearRewards = clearRewards;
+		this.spinReward = spinReward;
+	}
+
+	@Override
+	public double evaluate(Board board) {
+		int width = board.getWidth();
+		int[] heights = new int[width];
+		int maxHeight = 0;
+		for (int y = board.getHeight() - 1; y >= 0; y--) {
+			long row = board.getRow(y);
+			if (row != 0) {
+				maxHeight = y + 1;
+				break;
+			}
+		}
+
+		//walk down from the top, once a column has been seen every empty cell below it is a hole
+		long covered = 0;
+		int holes = 0;
+		for (int y = maxHeight - 1; y >= 0; y--) {
+			long row = board.getRow(y);
+			long newColumns = row & ~covered;
+			while (newColumns != 0) {
+				int x = Long.numberOfTrailingZeros(newColumns);
+				heights[x] = y + 1;
+				newColumns &= newColumns - 1;
+			}
+			covered |= row;
+			holes += Long.bitCount(covered & ~row);
+		}
+
+		int aggregateHeight = 0;
+		int bumpiness = 0;
+		int deepestWell = 0;
+		for (int x = 0; x < width; x++) {
+			aggregateHeight += heights[x];
+			if (x > 0) {
+				bumpiness += Math.abs(heights[x] - heights[x - 1]);
+			}
+			//the walls count as infinitely high neighbours
+			int left = x > 0 ? heights[x - 1] : board.getHeight();
+			int right = x < width - 1 ? heights[x + 1] : board.getHeight();
+			deepestWell = Math.max(deepestWell, Math.min(left, right) - heights[x]);
+		}
+		//a well is only useful up to a quad, deeper than that just wastes height
+		double wellScore = Math.min(deepestWell, 4) - Math.max(0, deepestWell - 4);
+
+		return heightWeight * aggregateHeight / width
+			+ holeWeight * holes
+			+ bumpinessWeight * bumpiness
+			+ wellWeight * wellScore
+			+ tSlotWeight * countTSlots(board, maxHeight)
+			- Math.max(0, maxHeight - board.getHeight() / 4);
+	}
+
+	//a T-spin double slot: a single empty cell in an otherwise full row, with an open row above it and an overhang on one side
+	private static int countTSlots(Board board, int maxHeight) {
+		int width = board.getWidth();
+		long fullRow = board.getFullRowMask();
+		int slots = 0;
+		for (int y = 0; y + 2 < board.getHeight() && y < maxHeight; y++) {
+			long bottom = board.getRow(y);
+			long middle = board.getRow(y + 1);
+			long top = board.getRow(y + 2);
+			long hole = ~bottom & fullRow;
+			if (Long.bitCount(hole) != 1) {
+				continue;
+			}
+			int x = Long.numberOfTrailingZeros(hole);
+			if (x == 0 || x == width - 1) {
+				continue;
+			}
+			long opening = 0b111L << (x - 1);
+			boolean hasOverhang = (top & (0b101L << (x - 1))) != 0 && (top & (1L << x)) == 0;
+			if ((middle & opening) == 0 && hasOverhang) {
+				slots++;
+			}
+		}
+		return slots;
+	}
+
+	@Override
+	public double evaluateClear(int linesCleared, boolean isSpin) {
+		double reward = clearRewards[Math.min(linesCleared, clearRewards.length - 1)];
+		if (isSpin && linesCleared > 0) {
+			reward += spinReward * linesCleared;
+		}
+		return reward;
+	}
+}
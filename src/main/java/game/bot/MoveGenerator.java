@@ -0,0 +1,190 @@
+package game.bot;
+
+import game.board.Board;
+import game.pieces.PieceBuilder;
+import game.pieces.PieceFactory;
+import game.pieces.util.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//lists every placement a piece can reach from where it is, with the same movement and kick rules as Piece.move and Piece.rotate
+//breadth first over (x, y, orientation), so the first path found to a state is a shortest one
+//all search state lives in reused primitive arrays, nothing is allocated per visited state. not thread safe, use one per thread
+public class MoveGenerator {
+	private static final int KEY_OFFSET = 128;
+	private static final int NO_KICK = -1;
+
+	private final PieceFactory pieceFactory;
+
+	//open addressing visited set. a slot belongs to the current search only if its stamp matches, so clearing is free
+	private int[] slotKeys = new int[1024];
+	private int[] slotStamps = new int[1024];
+	private int slotCount = 0;
+	private int stamp = 0;
+
+	//bfs nodes, also the queue. the parent links give the path back to the start
+	private int[] nodeX = new int[256];
+	private int[] nodeY = new int[256];
+	private int[] nodeOrientation = new int[256];
+	private int[] nodeParent = new int[256];
+	private byte[] nodeInput = new byte[256];
+	private byte[] nodeKick = new byte[256];
+	private int numNodes = 0;
+
+	public MoveGenerator(PieceFactory pieceFactory) {
+		this.pieceFactory = pieceFactory;
+	}
+
+	public List<Placement> generate(Board board, Piece piece) {
+		return generate(board, piece.getName(), piece.getBottomLeftX(), piece.getBottomLeftY(), piece.getOrientation());
+	}
+
+	public List<Placement> generate(Board board, String pieceName, int x, int y, Orientation orientation) {
+		PieceBuilder builder = pieceFactory.getBuilder(pieceName);
+		if (builder == null) {
+			throw new IllegalArgumentException("Piece " + pieceName + " is not in the kick table.");
+		}
+		PieceMask[] masks = new PieceMask[4];
+		for (int i = 0; i < 4; i++) {
+			masks[i] = builder.getCollisionMask(Orientation.getEnum(i));
+		}
+		List<Placement> placements = new ArrayList<>();
+		if (board.collides(masks[orientation.getVal()], x, y)) {
+			return placements;
+		}
+
+		startSearch();
+		addNode(x, y, orientation.getVal(), -1, -1, NO_KICK);
+		for (int current = 0; current < numNodes; current++) {
+			int cx = nodeX[current];
+			int cy = nodeY[current];
+			int co = nodeOrientation[current];
+			PieceMask mask = masks[co];
+
+			if (!board.collides(mask, cx - 1, cy)) {
+				addNode(cx - 1, cy, co, current, MoveInput.LEFT.getVal(), NO_KICK);
+			}
+			if (!board.collides(mask, cx + 1, cy)) {
+				addNode(cx + 1, cy, co, current, MoveInput.RIGHT.getVal(), NO_KICK);
+			}
+			if (!board.collides(mask, cx, cy - 1)) {
+				addNode(cx, cy - 1, co, current, MoveInput.DOWN.getVal(), NO_KICK);
+				int dropY = cy - 1;
+				while (!board.collides(mask, cx, dropY - 1)) {
+					dropY--;
+				}
+				addNode(cx, dropY, co, current, MoveInput.SONIC_DROP.getVal(), NO_KICK);
+			}
+			else {
+				placements.add(toPlacement(current, pieceName));
+			}
+
+			tryRotate(board, masks, builder.getKickTableCW(), current, (co + 1) & 3, MoveInput.ROTATE_CW);
+			tryRotate(board, masks, builder.getKickTableCCW(), current, (co + 3) & 3, MoveInput.ROTATE_CCW);
+			tryRotate(board, masks, builder.getKickTableHalf(), current, (co + 2) & 3, MoveInput.ROTATE_180);
+		}
+		return placements;
+	}
+
+	private void tryRotate(Board board, PieceMask[] masks, int[][][] kickTable, int current, int targetOrientation, MoveInput input) {
+		int[][] kicks = kickTable[nodeOrientation[current]];
+		PieceMask mask = masks[targetOrientation];
+		for (int i = 0; i < kicks.length; i++) {
+			int x = nodeX[current] + kicks[i][0];
+			int y = nodeY[current] + kicks[i][1];
+			if (!board.collides(mask, x, y)) {
+				addNode(x, y, targetOrientation, current, input.getVal(), i);
+				return;
+			}
+		}
+	}
+
+	private Placement toPlacement(int node, String pieceName) {
+		int length = 0;
+		for (int i = node; nodeParent[i] >= 0; i = nodeParent[i]) {
+			length++;
+		}
+		MoveInput[] path = new MoveInput[length];
+		for (int i = node; nodeParent[i] >= 0; i = nodeParent[i]) {
+			path[--length] = MoveInput.getEnum(nodeInput[i]);
+		}
+		return new Placement(pieceName, nodeX[node], nodeY[node], Orientation.getEnum(nodeOrientation[node]), path, nodeKick[node]);
+	}
+
+	private void startSearch() {
+		numNodes = 0;
+		slotCount = 0;
+		stamp++;
+		if (stamp == 0) {
+			//wrapped around, old stamps could collide with new ones
+			Arrays.fill(slotStamps, 0);
+			stamp = 1;
+		}
+	}
+
+	private void addNode(int x, int y, int orientation, int parent, int input, int kick) {
+		if (!markVisited(((x + KEY_OFFSET) << 20) | ((y + KEY_OFFSET) << 2) | orientation)) {
+			return;
+		}
+		if (numNodes == nodeX.length) {
+			int newLength = nodeX.length * 2;
+			nodeX = Arrays.copyOf(nodeX, newLength);
+			nodeY = Arrays.copyOf(nodeY, newLength);
+			nodeOrientation = Arrays.copyOf(nodeOrientation, newLength);
+			nodeParent = Arrays.copyOf(nodeParent, newLength);
+			nodeInput = Arrays.copyOf(nodeInput, newLength);
+			nodeKick = Arrays.copyOf(nodeKick, newLength);
+		}
+		nodeX[numNodes] = x;
+		nodeY[numNodes] = y;
+		nodeOrientation[numNodes] = orientation;
+		nodeParent[numNodes] = parent;
+		nodeInput[numNodes] = (byte) input;
+		nodeKick[numNodes] = (byte) kick;
+		numNodes++;
+	}
+
+	//returns false if the key was already visited in this search
+	private boolean markVisited(int key) {
+		if (2 * (slotCount + 1) > slotKeys.length) {
+			growSlots();
+		}
+		int mask = slotKeys.length - 1;
+		int slot = mix(key) & mask;
+		while (slotStamps[slot] == stamp) {
+			if (slotKeys[slot] == key) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		slotKeys[slot] = key;
+		slotStamps[slot] = stamp;
+		slotCount++;
+		return true;
+	}
+
+	private void growSlots() {
+		int[] oldKeys = slotKeys;
+		int[] oldStamps = slotStamps;
+		slotKeys = new int[oldKeys.length * 2];
+		slotStamps = new int[oldKeys.length * 2];
+		int mask = slotKeys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldStamps[i] == stamp) {
+				int slot = mix(oldKeys[i]) & mask;
+				while (slotStamps[slot] == stamp) {
+					slot = (slot + 1) & mask;
+				}
+				slotKeys[slot] = oldKeys[i];
+				slotStamps[slot] = stamp;
+			}
+		}
+	}
+
+	private static int mix(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
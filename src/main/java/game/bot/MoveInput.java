@@ -0,0 +1,46 @@
+package game.bot;
+
+//inputs the move generator searches over. SONIC_DROP is a soft drop with infinite SDF, DOWN moves a single row
+public enum MoveInput {
+	LEFT(0), RIGHT(1), DOWN(2), SONIC_DROP(3),
+	ROTATE_CW(4), ROTATE_CCW(5), ROTATE_180(6);
+
+	private int val;
+
+	MoveInput(int val) {
+		this.val = val;
+	}
+
+	public int getVal() {
+		return this.val;
+	}
+
+	public static MoveInput getEnum(int val) {
+		switch(val) {
+			case 0 -> {
+				return LEFT;
+			}
+			case 1 -> {
+				return RIGHT;
+			}
+			case 2 -> {
+				return DOWN;
+			}
+			case 3 -> {
+				return SONIC_DROP;
+			}
+			case 4 -> {
+				return ROTATE_CW;
+			}
+			case 5 -> {
+				return ROTATE_CCW;
+			}
+			case 6 -> {
+				return ROTATE_180;
+			}
+			default -> {
+				throw new IllegalArgumentException("Invalid enum value for value " + val + ".");
+			}
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package game.bot;
+
+import game.pieces.util.Orientation;
+
+//a final resting position of a piece, and the shortest sequence of inputs from spawn that gets it there
+//the hard drop at the end is implied
+public class Placement {
+	private final String pieceName;
+	private final int x;
+	private final int y;
+	private final Orientation orientation;
+	private final MoveInput[] path;
+	//kick index of the last rotation if the last input was a rotation, -1 otherwise. used for spin detection
+	private final int lastKickIndex;
+
+	public Placement(String pieceName, int x, int y, Orientation orientation, MoveInput[] path, int lastKickIndex) {
+		this.pieceName = pieceName;
+		this.x = x;
+		this.y = y;
+		this.orientation = orientation;
+		this.path = path;
+		this.lastKickIndex = lastKickIndex;
+	}
+
+	public String getPieceName() {
+		return pieceName;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
+	public Orientation getOrientation() {
+		return orientation;
+	}
+
+	public MoveInput[] getPath() {
+		return path;
+	}
+
+	public boolean isLastMoveRotation() {
+		return lastKickIndex >= 0;
+	}
+
+	public int getLastKickIndex() {
+		return lastKickIndex;
+	}
+
+	@Override
+	public String toString() {
+		return pieceName + " " + orientation + " (" + x + ", " + y + ")";
+	}
+}
@@ -0,0 +1,7 @@
+package game.callbacks;
+
+import game.Action;
+
+public interface ActionCallback {
+	void onAction(long frame, Action action);
+}
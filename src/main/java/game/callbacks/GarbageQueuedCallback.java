@@ -0,0 +1,9 @@
+package game.callbacks;
+
+import game.Garbage;
+
+import java.util.List;
+
+public interface GarbageQueuedCallback {
+	void onGarbageQueued(long frame, List<Garbage> garbage);
+}
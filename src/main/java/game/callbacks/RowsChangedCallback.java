@@ -0,0 +1,8 @@
+package game.callbacks;
+
+import java.util.BitSet;
+
+//rows is indexed by board row (0 is the bottom) and is reused by the simulation, so copy or OR it into your own set to keep it
+public interface RowsChangedCallback {
+	void onRowsChanged(BitSet rows);
+}
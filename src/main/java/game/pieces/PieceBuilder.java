@@ -20,6 +20,7 @@ public class PieceBuilder {
 	protected boolean[][] tileMapR;
 	protected boolean[][] tileMapR2;
 	protected boolean[][] tileMapR3;
+	protected PieceMask[] collisionMasks;
 	protected int[][][] kickTableCW;
 	protected int[][][] kickTableCCW;
 	protected int[][][] kickTableHalf;
@@ -41,6 +42,7 @@ public class PieceBuilder {
 		this.kickTableHalf = kickTableHalf;
 		this.pieceColour = pieceColour;
 		this.name = name;
+		compileCollisionMasks();
 	}
 
 	public PieceBuilder(JSONObject json) {
@@ -149,6 +151,16 @@ public class PieceBuilder {
 		this.kickTableCW = kickCW;
 		this.kickTableCCW = kickCCW;
 		this.kickTableHalf = kickHalf;
+		compileCollisionMasks();
+	}
+
+	//bake each orientation into row bitmasks once, so collision tests don't have to walk the tile maps
+	private void compileCollisionMasks() {
+		collisionMasks = new PieceMask[4];
+		collisionMasks[Orientation.E.getVal()] = new PieceMask(tileMapE);
+		collisionMasks[Orientation.R.getVal()] = new PieceMask(tileMapR);
+		collisionMasks[Orientation.R2.getVal()] = new PieceMask(tileMapR2);
+		collisionMasks[Orientation.R3.getVal()] = new PieceMask(tileMapR3);
 	}
 
 	public static List<PieceBuilder> getPieces(File path) throws IOException, ParseException {
@@ -170,12 +182,6 @@ public class PieceBuilder {
 		return pieceBuilders;
 	}
 
-	public Piece generate() {
-		return new Piece(name, pieceColour, spawnBottomLeftX, spawnBottomLeftY, Orientation.E,
-		tileMapE, tileMapR, tileMapR2, tileMapR3,
-		kickTableCW, kickTableCCW, kickTableHalf) {};
-	}
-
 	public String getName() {
 		return name;
 	}
@@ -208,6 +214,27 @@ public class PieceBuilder {
 		return tileMapR3;
 	}
 
+	public boolean[][] getTileMap(Orientation orientation) {
+		switch (orientation) {
+			case R -> {
+				return tileMapR;
+			}
+			case R2 -> {
+				return tileMapR2;
+			}
+			case R3 -> {
+				return tileMapR3;
+			}
+			default -> {
+				return tileMapE;
+			}
+		}
+	}
+
+	public PieceMask getCollisionMask(Orientation orientation) {
+		return collisionMasks[orientation.getVal()];
+	}
+
 	public int[][][] getKickTableCW() {
 		return kickTableCW;
 	}
@@ -15,6 +15,11 @@ public class PieceFactory {
 	private List<String> names = new ArrayList<>();
 	private Map<String, Integer> nameIndices = new HashMap<>();
 
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	private long hash;
+	private boolean isHashDirty = true;
+
 	public PieceFactory(List<PieceBuilder> info){
 		for (PieceBuilder builder : info) {
 			registerPiece(builder);
@@ -33,6 +38,7 @@ public class PieceFactory {
 		map.put(info.name, info);
 		names.add(info.name);
 		nameIndices.put(info.name, names.size() - 1);
+		isHashDirty = true;
 	}
 
 	public PieceBuilder getBuilder(String name) {
@@ -44,7 +50,16 @@ public class PieceFactory {
 	}
 
 	public Piece generatePiece(String name) {
-		return map.get(name).generate();
+		return new Piece(map.get(name), nameIndices.get(name));
+	}
+
+	//respawns target as the given piece instead of allocating a new one
+	public void spawnPiece(int index, Piece target) {
+		target.spawn(map.get(names.get(index)), index);
+	}
+
+	public void spawnPiece(String name, Piece target) {
+		target.spawn(map.get(name), nameIndices.get(name));
 	}
 
 	public String[] getNames() {
@@ -61,6 +76,64 @@ public class PieceFactory {
 		return names.get(index);
 	}
 
+	//lenient lookups for values that came off the network, anything that isn't a piece comes back as null or -1
+	public String findName(int index) {
+		return index >= 0 && index < names.size() ? names.get(index) : null;
+	}
+
+	public int findIndex(String name) {
+		Integer index = name == null ? null : nameIndices.get(name);
+		return index == null ? -1 : index;
+	}
+
+	//64 bit FNV-1a over everything that affects gameplay (names, colours, tile maps and kicks, in registration order)
+	//two kick tables with the same hash behave the same, regardless of how their json was formatted
+	public long getHash() {
+		if (!isHashDirty) {
+			return hash;
+		}
+		long h = FNV_OFFSET_BASIS;
+		for (String name : names) {
+			PieceBuilder builder = map.get(name);
+			for (int i = 0; i < name.length(); i++) {
+				h = hashInt(h, name.charAt(i));
+			}
+			h = hashInt(h, builder.pieceColour.ordinal());
+			for (boolean[][] tileMap : new boolean[][][] {builder.tileMapE, builder.tileMapR, builder.tileMapR2, builder.tileMapR3}) {
+				h = hashInt(h, tileMap.length);
+				for (boolean[] row : tileMap) {
+					h = hashInt(h, row.length);
+					for (boolean tile : row) {
+						h = hashInt(h, tile ? 1 : 0);
+					}
+				}
+			}
+			for (int[][][] kickTable : new int[][][][] {builder.kickTableCW, builder.kickTableCCW, builder.kickTableHalf}) {
+				h = hashInt(h, kickTable.length);
+				for (int[][] rotationKicks : kickTable) {
+					h = hashInt(h, rotationKicks.length);
+					for (int[] kick : rotationKicks) {
+						h = hashInt(h, kick.length);
+						for (int offset : kick) {
+							h = hashInt(h, offset);
+						}
+					}
+				}
+			}
+		}
+		hash = h;
+		isHashDirty = false;
+		return hash;
+	}
+
+	private static long hashInt(long h, int value) {
+		for (int i = 0; i < Integer.BYTES; i++) {
+			h ^= (value >>> (8 * i)) & 0xFF;
+			h *= FNV_PRIME;
+		}
+		return h;
+	}
+
 	@SuppressWarnings(value = "unchecked")
 	public String getJson() {
 		JSONObject top = new JSONObject();
@@ -1,199 +1,93 @@
 package game.pieces.util;
 
-import static game.pieces.util.Orientation.*;
+import game.board.Board;
+import game.pieces.PieceBuilder;
 
-public abstract class Piece {
+//the active piece as a small mutable value: which piece it is, where it is and which way it faces
+//tile maps, masks and kicks are shared through the PieceBuilder, so a piece can be respawned, copied and restored without allocating
+public class Piece {
 	//remember that when you're putting the tile map in an array, index 0 is at the bottom on the board, so the resulting figure is vertically flipped
+	protected PieceBuilder shape;
+	protected int index = -1;
 	protected int bottomLeftX;
 	protected int bottomLeftY;
+	protected Orientation orientation = Orientation.E;
 	protected boolean placed;
-	protected boolean[][] tileMap;
-	protected boolean[][] tileMapE;
-	protected boolean[][] tileMapR;
-	protected boolean[][] tileMapR2;
-	protected boolean[][] tileMapR3;
-	protected int[][][] kickTableCW;
-	protected int[][][] kickTableCCW;
-	protected int[][][] kickTableHalf;
-	protected Orientation orientation;
-	protected PieceColour pieceColour;
-	protected String name;
 
-	public Piece(
-				String name, PieceColour pieceColour, int bottomLeftX, int bottomLeftY, Orientation orientation,
-				boolean[][] tileMapE, boolean[][] tileMapR, boolean[][] tileMapR2, boolean[][] tileMapR3,
-				int[][][] kickTableCW, int[][][] kickTableCCW, int[][][] kickTableHalf
-				) {
+	//an empty piece, to be filled in by spawn or copyFrom
+	public Piece() {
+	}
+
+	public Piece(PieceBuilder shape, int index) {
+		spawn(shape, index);
+	}
+
+	public Piece(Piece src) {
+		copyFrom(src);
+	}
+
+	//resets this piece to a freshly spawned one of the given shape
+	public void spawn(PieceBuilder shape, int index) {
+		set(shape, index, shape.getSpawnBottomLeftX(), shape.getSpawnBottomLeftY(), Orientation.E);
+	}
+
+	public void set(PieceBuilder shape, int index, int bottomLeftX, int bottomLeftY, Orientation orientation) {
+		this.shape = shape;
+		this.index = index;
 		this.bottomLeftX = bottomLeftX;
 		this.bottomLeftY = bottomLeftY;
-		this.placed = false;
-		this.tileMapE = tileMapE;
-		this.tileMapR = tileMapR;
-		this.tileMapR2 = tileMapR2;
-		this.tileMapR3 = tileMapR3;
-		this.kickTableCW = kickTableCW;
-		this.kickTableCCW = kickTableCCW;
-		this.kickTableHalf = kickTableHalf;
 		this.orientation = orientation;
-		switch (orientation) {
-			case E -> {
-				this.tileMap = tileMapE;
-			}
-			case R -> {
-				this.tileMap = tileMapR;
-			}
-			case R2 -> {
-				this.tileMap = tileMapR2;
-			}
-			case R3 -> {
-				this.tileMap = tileMapR3;
-			}
-		}
-		this.name = name;
-		this.pieceColour = pieceColour;
+		this.placed = false;
 	}
 
-	public Piece(Piece src) {
+	public void copyFrom(Piece src) {
+		this.shape = src.shape;
+		this.index = src.index;
 		this.bottomLeftX = src.bottomLeftX;
 		this.bottomLeftY = src.bottomLeftY;
-		this.placed = false;
-		this.tileMap = src.tileMap;
 		this.orientation = src.orientation;
-		this.name = src.name;
-		this.pieceColour = src.pieceColour;
-
-		this.tileMapE = src.tileMapE;
-		this.tileMapR = src.tileMapR;
-		this.tileMapR2 = src.tileMapR2;
-		this.tileMapR3 = src.tileMapR3;
-
-		this.kickTableCW = src.kickTableCW;
-		this.kickTableCCW = src.kickTableCCW;
-		this.kickTableHalf = src.kickTableHalf;
+		this.placed = src.placed;
 	}
 
 	//returns index of kick used
-	public int rotate(Rotation rot, TileState[][] board) {
-		boolean[][] potentialRotation;
-		Orientation potentialOrientation;
-		int potentialX = bottomLeftX;
-		int potentialY = bottomLeftY;
-
-		switch(rot) {
-			case CW -> {
-				switch (orientation) {
-					case E -> {
-						potentialRotation = getTileMapR();
-						potentialOrientation = R;
-					}
-					case R -> {
-						potentialRotation = getTileMapR2();
-						potentialOrientation = R2;
-					}
-					case R2 -> {
-						potentialRotation = getTileMapR3();
-						potentialOrientation = R3;
-					}
-					case R3 -> {
-						potentialRotation = getTileMapE();
-						potentialOrientation = E;
-					}
-					default -> {
-						return -1;
-					}
-				}
-			}
-			case CCW -> {
-				switch (orientation) {
-					case E -> {
-						potentialRotation = getTileMapR3();
-						potentialOrientation = R3;
-					}
-					case R -> {
-						potentialRotation = getTileMapE();
-						potentialOrientation = E;
-					}
-					case R2 -> {
-						potentialRotation = getTileMapR();
-						potentialOrientation = R;
-					}
-					case R3 -> {
-						potentialRotation = getTileMapR2();
-						potentialOrientation = R2;
-					}
-					default -> {
-						return -1;
-					}
-				}
-			}
-			case HALF -> {
-				switch (orientation) {
-					case E -> {
-						potentialRotation =getTileMapR2();
-						potentialOrientation = R2;
-					}
-					case R -> {
-						potentialRotation = getTileMapR3();
-						potentialOrientation = R3;
-					}
-					case R2 -> {
-						potentialRotation = getTileMapE();
-						potentialOrientation = E;
-					}
-					case R3 -> {
-						potentialRotation = getTileMapR();
-						potentialOrientation = R;
-					}
-					default -> {
-						return -1;
-					}
-				}
-			}
-			default -> {
-				return -1;
-			}
-		}
-
-		boolean validKick = false;
+	public int rotate(Rotation rot, Board board) {
 		int[][][] kickTable;
+		int turns;
 		switch(rot) {
 			case CW -> {
 				kickTable = getKickTableCW();
+				turns = 1;
 			}
 			case CCW -> {
 				kickTable = getKickTableCCW();
+				turns = 3;
 			}
 			case HALF -> {
 				kickTable = getKickTableHALF();
+				turns = 2;
 			}
 			default -> {
 				return -1;
 			}
 		}
-
-		int kickUsed = -1;
-
-		for (int i = 0; i < kickTable[orientation.getVal()].length; i++) {
-			potentialX = bottomLeftX + kickTable[orientation.getVal()][i][0];
-			potentialY = bottomLeftY + kickTable[orientation.getVal()][i][1];
-			if (!isCollision(board, potentialRotation, potentialX, potentialY)) {
-				kickUsed = i;
-				validKick = true;
-				break;
+		Orientation potentialOrientation = Orientation.getEnum((orientation.getVal() + turns) & 3);
+		PieceMask potentialMask = shape.getCollisionMask(potentialOrientation);
+
+		int[][] kicks = kickTable[orientation.getVal()];
+		for (int i = 0; i < kicks.length; i++) {
+			int potentialX = bottomLeftX + kicks[i][0];
+			int potentialY = bottomLeftY + kicks[i][1];
+			if (!isCollision(board, potentialMask, potentialX, potentialY)) {
+				orientation = potentialOrientation;
+				bottomLeftX = potentialX;
+				bottomLeftY = potentialY;
+				return i;
 			}
 		}
-
-		if (validKick) {
-			tileMap = potentialRotation;
-			orientation = potentialOrientation;
-			bottomLeftX = potentialX;
-			bottomLeftY = potentialY;
-		}
-
-		return kickUsed;
+		return -1;
 	}
 
-	public boolean move(Direction dir, TileState[][] board) {
+	public boolean move(Direction dir, Board board) {
 		int potentialX;
 		int potentialY;
 		switch(dir) {
@@ -213,7 +107,7 @@ public abstract class Piece {
 				return false;
 			}
 		}
-		if (isCollision(board, this.tileMap, potentialX, potentialY)) {
+		if (isCollision(board, getCollisionMask(), potentialX, potentialY)) {
 			return false;
 		}
 		bottomLeftX = potentialX;
@@ -222,112 +116,72 @@ public abstract class Piece {
 	}
 
 	//returns true if successfully placed, false if there was something in the way
-	public boolean place(TileState[][] board) {
-		if (isCollision(board, tileMap, bottomLeftX, bottomLeftY)) {
+	public boolean place(Board board) {
+		PieceMask mask = getCollisionMask();
+		if (isCollision(board, mask, bottomLeftX, bottomLeftY)) {
 			return false;
 		}
-
-		TileState placedTileType;
-		switch(pieceColour) {
-			case I -> {
-				placedTileType = TileState.I;
-			}
-			case O -> {
-				placedTileType = TileState.O;
-			}
-			case L -> {
-				placedTileType = TileState.L;
-			}
-			case J -> {
-				placedTileType = TileState.J;
-			}
-			case S -> {
-				placedTileType = TileState.S;
-			}
-			case Z -> {
-				placedTileType = TileState.Z;
-			}
-			case T -> {
-				placedTileType = TileState.T;
-			}
-			default -> {
-				placedTileType = TileState.GARBAGE;
-			}
-		}
-		for (int i = 0; i < tileMap.length; i++) {
-			for (int j = 0; j < tileMap[i].length; j++) {
-				if (tileMap[i][j]) {
-					int xIndex = bottomLeftX + j;
-					int yIndex = bottomLeftY + i;
-					board[yIndex][xIndex] = placedTileType;
-				}
-			}
-		}
+		board.place(mask, bottomLeftX, bottomLeftY, TileState.getEnum(getPieceColour()));
 		placed = true;
 		return true;
 	}
 
-	public void hardDrop(TileState[][] board) {
+	public void hardDrop(Board board) {
 		while (move(Direction.DOWN, board)) {
 			//move down as far as possible
 		}
 		place(board);
 	}
 
-	public boolean gravity(TileState[][] board) {
+	public boolean gravity(Board board) {
 		return move(Direction.DOWN, board);
 	}
 
+	public PieceBuilder getShape() {
+		return shape;
+	}
+
 	public boolean[][] getTileMapE() {
-		return this.tileMapE;
+		return shape.getTileMapE();
 	}
 	public boolean[][] getTileMapR() {
-		return this.tileMapR;
+		return shape.getTileMapR();
 	}
 	public boolean[][] getTileMapR2() {
-		return this.tileMapR2;
+		return shape.getTileMapR2();
 	}
 	public boolean[][] getTileMapR3() {
-		return this.tileMapR3;
+		return shape.getTileMapR3();
+	}
+
+	public PieceMask getCollisionMask() {
+		return shape.getCollisionMask(orientation);
 	}
 
 	public int[][][] getKickTableCW() {
-		return this.kickTableCW;
+		return shape.getKickTableCW();
 	}
 	public int[][][] getKickTableCCW() {
-		return this.kickTableCCW;
+		return shape.getKickTableCCW();
 	}
 	public int[][][] getKickTableHALF() {
-		return this.kickTableHalf;
+		return shape.getKickTableHalf();
 	}
 
 	public Piece copy() {
-		return new Piece(this) {};
+		return new Piece(this);
 	}
 
-	protected boolean isCollision(TileState[][] board, boolean[][] potentialMap, int potentialX, int potentialY) {
-		for (int i = 0; i < potentialMap.length; i++) {
-			for (int j = 0; j < potentialMap[i].length; j++) {
-				int testX = potentialX + j;
-				int testY = potentialY + i;
-				if (testX < 0 || testY < 0 || testX >= board[0].length || testY >= board.length) {
-					if (potentialMap[i][j]) {
-						return true;
-					}
-					else {
-						continue;
-					}
-				}
-				if (potentialMap[i][j] && board[testY][testX] != TileState.EMPTY) {
-					return true;
-				}
-			}
-		}
-		return false;
+	protected boolean isCollision(Board board, PieceMask potentialMask, int potentialX, int potentialY) {
+		return board.collides(potentialMask, potentialX, potentialY);
+	}
+
+	public boolean testCollision(Board board, int directionX, int directionY) {
+		return isCollision(board, getCollisionMask(), this.bottomLeftX + directionX, this.bottomLeftY + directionY);
 	}
 
-	public boolean testCollision(TileState[][] board, int directionX, int directionY) {
-		return isCollision(board, this.tileMap, this.bottomLeftX + directionX, this.bottomLeftY + directionY);
+	public int getIndex() {
+		return index;
 	}
 
 	public int getBottomLeftX() {
@@ -339,7 +193,7 @@ public abstract class Piece {
 	}
 
 	public boolean[][] getTileMap() {
-		return tileMap;
+		return shape.getTileMap(orientation);
 	}
 
 	public boolean isPlaced() {
@@ -347,11 +201,11 @@ public abstract class Piece {
 	}
 
 	public PieceColour getPieceColour() {
-		return pieceColour;
+		return shape.getPieceColour();
 	}
 
 	public String getName() {
-		return name;
+		return shape.getName();
 	}
 
 	public Orientation getOrientation() {
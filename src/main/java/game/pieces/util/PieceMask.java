@@ -0,0 +1,79 @@
+package game.pieces.util;
+
+//one orientation of a piece compiled down to row bitmasks, trimmed to the occupied bounding box
+//rowMasks[0] is row minRow of the tile map, and bit 0 of each mask is column minColumn
+public class PieceMask {
+	private final long[] rowMasks;
+	private final int minColumn;
+	private final int maxColumn;
+	private final int minRow;
+	private final int maxRow;
+
+	public PieceMask(boolean[][] tileMap) {
+		int minColumn = Integer.MAX_VALUE;
+		int maxColumn = -1;
+		int minRow = Integer.MAX_VALUE;
+		int maxRow = -1;
+		for (int i = 0; i < tileMap.length; i++) {
+			for (int j = 0; j < tileMap[i].length; j++) {
+				if (tileMap[i][j]) {
+					minColumn = Math.min(minColumn, j);
+					maxColumn = Math.max(maxColumn, j);
+					minRow = Math.min(minRow, i);
+					maxRow = Math.max(maxRow, i);
+				}
+			}
+		}
+
+		if (maxRow < 0) {
+			this.rowMasks = new long[0];
+			this.minColumn = 0;
+			this.maxColumn = -1;
+			this.minRow = 0;
+			this.maxRow = -1;
+			return;
+		}
+		if (maxColumn - minColumn >= Long.SIZE) {
+			throw new IllegalArgumentException("Piece is too wide to be stored as a bitmask.");
+		}
+
+		this.rowMasks = new long[maxRow - minRow + 1];
+		for (int i = minRow; i <= maxRow; i++) {
+			long mask = 0;
+			for (int j = minColumn; j <= maxColumn && j < tileMap[i].length; j++) {
+				if (tileMap[i][j]) {
+					mask |= 1L << (j - minColumn);
+				}
+			}
+			this.rowMasks[i - minRow] = mask;
+		}
+		this.minColumn = minColumn;
+		this.maxColumn = maxColumn;
+		this.minRow = minRow;
+		this.maxRow = maxRow;
+	}
+
+	public boolean isEmpty() {
+		return rowMasks.length == 0;
+	}
+
+	public long[] getRowMasks() {
+		return rowMasks;
+	}
+
+	public int getMinColumn() {
+		return minColumn;
+	}
+
+	public int getMaxColumn() {
+		return maxColumn;
+	}
+
+	public int getMinRow() {
+		return minRow;
+	}
+
+	public int getMaxRow() {
+		return maxRow;
+	}
+}
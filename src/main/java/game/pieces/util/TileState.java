@@ -50,4 +50,33 @@ public enum TileState {
 		}
 		return tileState;
 	}
+
+	public static TileState getEnum(PieceColour colour) {
+		switch(colour) {
+			case I -> {
+				return I;
+			}
+			case O -> {
+				return O;
+			}
+			case L -> {
+				return L;
+			}
+			case J -> {
+				return J;
+			}
+			case S -> {
+				return S;
+			}
+			case Z -> {
+				return Z;
+			}
+			case T -> {
+				return T;
+			}
+			default -> {
+				return GARBAGE;
+			}
+		}
+	}
 }
@@ -0,0 +1,38 @@
+package game.randomizer;
+
+//deals every piece copies times per bag in a random order, i.e. a 7-bag with copies = 1 or a 14-bag with copies = 2
+public class BagRandomizer extends Randomizer {
+	private final int[] bag;
+	private int position;
+
+	public BagRandomizer(int numPieces, int copies, long seed) {
+		super(numPieces, seed);
+		if (copies <= 0) {
+			throw new IllegalArgumentException("Bag must contain at least one copy of each piece.");
+		}
+		bag = new int[numPieces * copies];
+		for (int i = 0; i < bag.length; i++) {
+			bag[i] = i % numPieces;
+		}
+		position = bag.length;
+	}
+
+	@Override
+	public int next() {
+		if (position == bag.length) {
+			shuffle();
+			position = 0;
+		}
+		return bag[position++];
+	}
+
+	private void shuffle() {
+		//Fisher-Yates shuffle, j has to be able to land on i so every permutation is equally likely
+		for (int i = bag.length - 1; i >= 1; i--) {
+			int j = rng.nextInt(i + 1);
+			int temp = bag[i];
+			bag[i] = bag[j];
+			bag[j] = temp;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package game.randomizer;
+
+//TGM style: remembers the last few pieces dealt and rerolls a limited number of times to avoid repeating them
+public class HistoryRandomizer extends Randomizer {
+	public static final int DEFAULT_HISTORY_LENGTH = 4;
+	public static final int DEFAULT_ROLLS = 6;
+
+	private final int[] history;
+	private final int rolls;
+	private int historyIndex = 0;
+
+	public HistoryRandomizer(int numPieces, long seed) {
+		this(numPieces, DEFAULT_HISTORY_LENGTH, DEFAULT_ROLLS, seed);
+	}
+
+	public HistoryRandomizer(int numPieces, int historyLength, int rolls, long seed) {
+		super(numPieces, seed);
+		if (rolls <= 0) {
+			throw new IllegalArgumentException("History randomizer needs at least one roll.");
+		}
+		//a history as long as the piece set would make every roll fail, so cap it
+		this.history = new int[Math.min(historyLength, numPieces - 1)];
+		for (int i = 0; i < history.length; i++) {
+			history[i] = -1;
+		}
+		this.rolls = rolls;
+	}
+
+	@Override
+	public int next() {
+		int piece = rng.nextInt(numPieces);
+		for (int i = 1; i < rolls && isInHistory(piece); i++) {
+			piece = rng.nextInt(numPieces);
+		}
+		if (history.length > 0) {
+			history[historyIndex] = piece;
+			historyIndex = (historyIndex + 1) % history.length;
+		}
+		return piece;
+	}
+
+	private boolean isInHistory(int piece) {
+		for (int previous : history) {
+			if (previous == piece) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
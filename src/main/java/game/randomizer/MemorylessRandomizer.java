@@ -0,0 +1,13 @@
+package game.randomizer;
+
+//every piece is picked uniformly at random, independent of what came before
+public class MemorylessRandomizer extends Randomizer {
+	public MemorylessRandomizer(int numPieces, long seed) {
+		super(numPieces, seed);
+	}
+
+	@Override
+	public int next() {
+		return rng.nextInt(numPieces);
+	}
+}
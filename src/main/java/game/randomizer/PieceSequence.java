@@ -0,0 +1,35 @@
+package game.randomizer;
+
+import game.pieces.PieceFactory;
+
+import java.util.Arrays;
+
+//the full piece sequence for a seed, generated lazily and kept so any position can be looked up again
+//lets a client rebuild an opponent's queue from how many pieces they've drawn, instead of receiving it
+public class PieceSequence {
+	private final Randomizer randomizer;
+	private int[] pieces = new int[64];
+	private int size = 0;
+
+	public PieceSequence(RandomizerType type, int numPieces, long seed) {
+		this.randomizer = RandomizerType.getRandomizer(type, numPieces, seed);
+	}
+
+	public int get(int index) {
+		while (size <= index) {
+			if (size == pieces.length) {
+				pieces = Arrays.copyOf(pieces, pieces.length * 2);
+			}
+			pieces[size++] = randomizer.next();
+		}
+		return pieces[index];
+	}
+
+	public String[] getNames(PieceFactory pieceFactory, int start, int count) {
+		String[] names = new String[count];
+		for (int i = 0; i < count; i++) {
+			names[i] = pieceFactory.getName(get(start + i));
+		}
+		return names;
+	}
+}
@@ -0,0 +1,38 @@
+package game.randomizer;
+
+import util.IntRingBuffer;
+
+import java.util.SplittableRandom;
+
+//produces a stream of piece indices (as given by PieceFactory.getIndex) from a 64 bit seed
+//two randomizers of the same type, piece count and seed always produce the same sequence
+public abstract class Randomizer {
+	protected final int numPieces;
+	protected final long seed;
+	protected SplittableRandom rng;
+
+	protected Randomizer(int numPieces, long seed) {
+		if (numPieces <= 0) {
+			throw new IllegalArgumentException("Randomizer needs at least one piece.");
+		}
+		this.numPieces = numPieces;
+		this.seed = seed;
+		this.rng = new SplittableRandom(seed);
+	}
+
+	public abstract int next();
+
+	public void fill(IntRingBuffer queue, int minSize) {
+		while (queue.size() < minSize) {
+			queue.offer(next());
+		}
+	}
+
+	public int getNumPieces() {
+		return numPieces;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+}
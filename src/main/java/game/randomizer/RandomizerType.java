@@ -0,0 +1,45 @@
+package game.randomizer;
+
+public enum RandomizerType {
+	BAG_7,
+	BAG_14,
+	CLASSIC,
+	HISTORY;
+
+	public static RandomizerType getEnum(String name) {
+		if (name == null) {
+			return BAG_7;
+		}
+		switch (name) {
+			case "BAG_14" -> {
+				return BAG_14;
+			}
+			case "CLASSIC" -> {
+				return CLASSIC;
+			}
+			case "HISTORY" -> {
+				return HISTORY;
+			}
+			default -> {
+				return BAG_7;
+			}
+		}
+	}
+
+	public static Randomizer getRandomizer(RandomizerType type, int numPieces, long seed) {
+		switch (type) {
+			case BAG_14 -> {
+				return new BagRandomizer(numPieces, 2, seed);
+			}
+			case CLASSIC -> {
+				return new MemorylessRandomizer(numPieces, seed);
+			}
+			case HISTORY -> {
+				return new HistoryRandomizer(numPieces, seed);
+			}
+			default -> {
+				return new BagRandomizer(numPieces, 1, seed);
+			}
+		}
+	}
+}
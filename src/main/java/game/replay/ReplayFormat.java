@@ -0,0 +1,13 @@
+package game.replay;
+
+//layout of a .glr file:
+//header: magic, version, seed, kick table hash, board height/width, previews, spin detector, randomizer, handling
+//then a stream of events, each one a varint frame delta from the previous event followed by a tag byte
+//tags below ACTION_COUNT are Action values, garbage is followed by its entries, and END marks the last frame of the game
+class ReplayFormat {
+	static final int MAGIC = 0x474C5250; //"GLRP"
+	static final byte VERSION = 1;
+
+	static final int TAG_GARBAGE = 0x40;
+	static final int TAG_END = 0x7F;
+}
@@ -0,0 +1,198 @@
+package game.replay;
+
+import game.*;
+import game.pieces.PieceFactory;
+import game.randomizer.RandomizerType;
+import settings.GameSettings;
+import util.Utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//rebuilds a recorded game by feeding its inputs back into a headless simulation as fast as it will go
+//keyframes are taken every KEYFRAME_INTERVAL frames on the way through, so seeking backwards only re-simulates from the nearest one
+public class ReplayPlayer {
+	public static final int KEYFRAME_INTERVAL = 10 * GLTrisSimulation.TPS;
+
+	private final GameSettings settings;
+	private final GLTrisSimulation simulation;
+
+	private long[] eventFrames;
+	private int[] eventTags;
+	private List<int[]> garbagePayloads = new ArrayList<>();
+	private int[] eventPayloads;
+	private int numEvents = 0;
+	private long endFrame;
+
+	private int eventIndex = 0;
+	private List<GLTrisSnapshot> keyframes = new ArrayList<>();
+	private List<Integer> keyframeEventIndices = new ArrayList<>();
+
+	public ReplayPlayer(File file, PieceFactory kickTable) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != ReplayFormat.MAGIC) {
+				throw new IOException("Not a replay file.");
+			}
+			byte version = in.readByte();
+			if (version != ReplayFormat.VERSION) {
+				throw new IOException("Unsupported replay version " + version + ".");
+			}
+			long seed = in.readLong();
+			long kickTableHash = in.readLong();
+			if (kickTableHash != kickTable.getHash()) {
+				throw new IllegalArgumentException("Replay was recorded with a different kick table.");
+			}
+			int boardHeight = in.readShort();
+			int boardWidth = in.readShort();
+			int numPreviews = in.readShort();
+			SpinDetector spinDetector = SpinDetector.getEnum(readString(in));
+			RandomizerType randomizer = RandomizerType.getEnum(readString(in));
+			Handling handling = new Handling(in.readDouble(), in.readDouble(), in.readDouble(), in.readBoolean());
+
+			settings = new GameSettings(numPreviews, kickTable, boardHeight, boardWidth, spinDetector, randomizer);
+			simulation = new GLTrisSimulation(settings, seed, handling);
+			readEvents(in);
+		}
+
+		simulation.init();
+		simulation.setStarted(true);
+		addKeyframe();
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readShort()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private void readEvents(DataInputStream in) throws IOException {
+		eventFrames = new long[256];
+		eventTags = new int[256];
+		eventPayloads = new int[256];
+		long frame = 0;
+		boolean hasEnd = false;
+		//a recording that was cut off (crash, killed process) just ends at its last complete event
+		try {
+			while (!hasEnd) {
+				long nextFrame = frame + Utils.readVarLong(in);
+				int tag = in.readUnsignedByte();
+				int payload = -1;
+				if (tag == ReplayFormat.TAG_GARBAGE) {
+					int count = (int) Utils.readVarLong(in);
+					int[] garbage = new int[2 * count];
+					for (int i = 0; i < count; i++) {
+						garbage[2 * i] = (int) Utils.readVarLong(in);
+						garbage[2 * i + 1] = (int) Utils.readVarLong(in) - 1;
+					}
+					payload = garbagePayloads.size();
+					garbagePayloads.add(garbage);
+				}
+				else if (tag == ReplayFormat.TAG_END) {
+					hasEnd = true;
+				}
+				else {
+					//throws on anything that isn't an action
+					Action.getEnum(tag);
+				}
+				frame = nextFrame;
+				if (!hasEnd) {
+					addEvent(frame, tag, payload);
+				}
+			}
+		} catch (EOFException e) {
+			//truncated, keep what was read
+		}
+		endFrame = frame;
+	}
+
+	private void addEvent(long frame, int tag, int payload) {
+		if (numEvents == eventFrames.length) {
+			int newLength = eventFrames.length * 2;
+			eventFrames = Arrays.copyOf(eventFrames, newLength);
+			eventTags = Arrays.copyOf(eventTags, newLength);
+			eventPayloads = Arrays.copyOf(eventPayloads, newLength);
+		}
+		eventFrames[numEvents] = frame;
+		eventTags[numEvents] = tag;
+		eventPayloads[numEvents] = payload;
+		numEvents++;
+	}
+
+	//puts the simulation in the state it was in after frame ticks, with every event recorded on or before that frame applied
+	public void seek(long frame) {
+		frame = Math.max(0, Math.min(frame, endFrame));
+		//keyframe i is always at frame i * KEYFRAME_INTERVAL
+		int nearest = (int) Math.min(frame / KEYFRAME_INTERVAL, keyframes.size() - 1);
+		GLTrisSnapshot keyframe = keyframes.get(nearest);
+		//only jump if going backwards or if the keyframe is ahead of the current frame, otherwise just keep simulating
+		if (frame < simulation.getFrame() || keyframe.getFrame() > simulation.getFrame()) {
+			simulation.restore(keyframe);
+			eventIndex = keyframeEventIndices.get(nearest);
+		}
+		advanceTo(frame);
+	}
+
+	public void runToEnd() {
+		seek(endFrame);
+	}
+
+	private void advanceTo(long frame) {
+		while (true) {
+			while (eventIndex < numEvents && eventFrames[eventIndex] <= simulation.getFrame()) {
+				applyEvent(eventIndex);
+				eventIndex++;
+			}
+			if (simulation.getFrame() >= frame || simulation.isGameOver()) {
+				return;
+			}
+			simulation.tick();
+			if (simulation.getFrame() % KEYFRAME_INTERVAL == 0 && simulation.getFrame() / KEYFRAME_INTERVAL == keyframes.size()) {
+				addKeyframe();
+			}
+		}
+	}
+
+	private void applyEvent(int index) {
+		int tag = eventTags[index];
+		if (tag == ReplayFormat.TAG_GARBAGE) {
+			int[] payload = garbagePayloads.get(eventPayloads[index]);
+			//the simulation consumes garbage as it cancels it, so it gets fresh objects every time
+			List<Garbage> garbage = new ArrayList<>(payload.length / 2);
+			for (int i = 0; i < payload.length; i += 2) {
+				garbage.add(new Garbage(payload[i], payload[i + 1]));
+			}
+			simulation.addQueueGarbage(garbage);
+		}
+		else {
+			simulation.apply(Action.getEnum(tag));
+		}
+	}
+
+	private void addKeyframe() {
+		keyframes.add(simulation.snapshot());
+		keyframeEventIndices.add(eventIndex);
+	}
+
+	public GLTrisSimulation getSimulation() {
+		return simulation;
+	}
+
+	public GameSettings getSettings() {
+		return settings;
+	}
+
+	public long getFrame() {
+		return simulation.getFrame();
+	}
+
+	public long getEndFrame() {
+		return endFrame;
+	}
+
+	public int getNumEvents() {
+		return numEvents;
+	}
+}
@@ -0,0 +1,117 @@
+package game.replay;
+
+import game.*;
+import game.callbacks.*;
+import settings.GameSettings;
+import util.Utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+//writes every action and incoming garbage of a game to an append-only file, together with what's needed to re-simulate it
+//a replay is only the inputs, so it is a few bytes per piece instead of a board per frame
+public class ReplayRecorder {
+	private final GLTrisSimulation game;
+	private DataOutputStream out;
+	private long lastFrame = 0;
+
+	private ActionCallback actionCallback;
+	private GarbageQueuedCallback garbageCallback;
+	private GameOverCallback gameOverCallback;
+
+	public ReplayRecorder(GLTrisSimulation game, GameSettings settings, File file) throws IOException {
+		this.game = game;
+		File parent = file.getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs()) {
+			throw new IOException("Could not create replay directory " + parent + ".");
+		}
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		writeHeader(settings);
+	}
+
+	private void writeHeader(GameSettings settings) throws IOException {
+		Handling handling = game.getHandling();
+		out.writeInt(ReplayFormat.MAGIC);
+		out.writeByte(ReplayFormat.VERSION);
+		out.writeLong(game.getSeed());
+		out.writeLong(settings.getKickTable().getHash());
+		out.writeShort(settings.getBoardHeight());
+		out.writeShort(settings.getBoardWidth());
+		out.writeShort(settings.getNumPreviews());
+		writeString(settings.getSpinDetector().name());
+		writeString(settings.getRandomizer().name());
+		out.writeDouble(handling.getARR());
+		out.writeDouble(handling.getDAS());
+		out.writeDouble(handling.getSDF());
+		out.writeBoolean(handling.isDASCancel());
+	}
+
+	private void writeString(String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	public void start() {
+		actionCallback = (long frame, Action action) -> {
+			record(frame, action.getVal(), null);
+		};
+		garbageCallback = (long frame, List<Garbage> garbage) -> {
+			record(frame, ReplayFormat.TAG_GARBAGE, garbage);
+		};
+		gameOverCallback = () -> {
+			stop();
+		};
+		game.registerOnActionListener(actionCallback);
+		game.registerOnGarbageQueuedListener(garbageCallback);
+		game.registerOnGameOverListener(gameOverCallback);
+	}
+
+	private synchronized void record(long frame, int tag, List<Garbage> garbage) {
+		if (out == null) {
+			return;
+		}
+		try {
+			Utils.writeVarLong(out, frame - lastFrame);
+			out.writeByte(tag);
+			if (garbage != null) {
+				Utils.writeVarLong(out, garbage.size());
+				for (Garbage g : garbage) {
+					Utils.writeVarLong(out, g.amount);
+					//column is -1 for garbage without a hole
+					Utils.writeVarLong(out, g.column + 1);
+				}
+			}
+			lastFrame = frame;
+		} catch (IOException e) {
+			e.printStackTrace();
+			close();
+		}
+	}
+
+	//writes the end marker and closes the file, safe to call more than once
+	public synchronized void stop() {
+		if (out == null) {
+			return;
+		}
+		record(game.getFrame(), ReplayFormat.TAG_END, null);
+		game.unregisterOnActionListener(actionCallback);
+		game.unregisterOnGarbageQueuedListener(garbageCallback);
+		game.unregisterOnGameOverListener(gameOverCallback);
+		close();
+	}
+
+	private void close() {
+		try {
+			out.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		out = null;
+	}
+
+	public boolean isRecording() {
+		return out != null;
+	}
+}
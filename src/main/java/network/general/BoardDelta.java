@@ -0,0 +1,61 @@
+package network.general;
+
+import game.pieces.util.TileState;
+
+import java.nio.ByteBuffer;
+
+//the board part of a board message: either a keyframe with the whole board, or only the rows that differ from an earlier board (the baseline)
+//rows are nibble packed, two tiles to a byte, row 0 being the bottom of the board
+public class BoardDelta {
+	public static final int NO_BASELINE = -1;
+
+	public int sequence;
+	//sequence of the board this delta was taken against, NO_BASELINE for a keyframe
+	public int baselineId;
+	public int height, width;
+	//keyframes leave out the empty rows above the stack, so rowIndices only counts up to the highest non-empty row
+	public int[] rowIndices;
+	public TileState[][] rows;
+
+	public BoardDelta(int sequence, int baselineId, int height, int width, int[] rowIndices, TileState[][] rows) {
+		this.sequence = sequence;
+		this.baselineId = baselineId;
+		this.height = height;
+		this.width = width;
+		this.rowIndices = rowIndices;
+		this.rows = rows;
+	}
+
+	public boolean isKeyframe() {
+		return baselineId == NO_BASELINE;
+	}
+
+	private static int getRowBytes(int width) {
+		return (width + 1) / 2;
+	}
+
+	public int getSize() {
+		int rowBytes = getRowBytes(width) + (isKeyframe() ? 0 : Short.BYTES);
+		return 2 * Integer.BYTES + 3 * Short.BYTES + rows.length * rowBytes;
+	}
+
+	public void write(ByteBuffer buffer) {
+		buffer.putInt(sequence);
+		buffer.putInt(baselineId);
+		buffer.putShort((short) height);
+		buffer.putShort((short) width);
+		buffer.putShort((short) rows.length);
+		for (int i = 0; i < rows.length; i++) {
+			//keyframe rows are always 0 to rows.length - 1, so their indices aren't sent
+			if (!isKeyframe()) {
+				buffer.putShort((short) rowIndices[i]);
+			}
+			TileState[] row = rows[i];
+			for (int j = 0; j < width; j += 2) {
+				int low = row[j].getVal() & 0x0F;
+				int high = j + 1 < width ? (row[j + 1].getVal() & 0x0F) << 4 : 0;
+				buffer.put((byte) (low | high));
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package network.general;
+
+import game.pieces.util.TileState;
+
+import java.util.Arrays;
+
+//receiver side of the board delta protocol, one per board being received
+//keeps the last few decoded boards around, since the sender may still be diffing against any of them
+public class BoardDeltaDecoder {
+	private final TileState[][][] history;
+	private final int[] historySequences;
+	private int lastSequence = BoardDelta.NO_BASELINE;
+
+	public BoardDeltaDecoder() {
+		this(BoardDeltaEncoder.DEFAULT_HISTORY);
+	}
+
+	//historySize has to be at least the history size of the encoder on the other end
+	public BoardDeltaDecoder(int historySize) {
+		this.history = new TileState[historySize][][];
+		this.historySequences = new int[historySize];
+		Arrays.fill(historySequences, BoardDelta.NO_BASELINE);
+	}
+
+	//reads the delta in place from a received message, starting at offset
+	//returns the full board, or null if the delta is older than the last one decoded or its baseline never arrived
+	//the returned board is a fresh array, so it can be handed off to other threads
+	public TileState[][] decode(byte[] data, int offset) {
+		int sequence = BoardMessageView.readInt(data, offset);
+		int baselineId = BoardMessageView.readInt(data, offset + 4);
+		int height = BoardMessageView.readShort(data, offset + 8);
+		int width = BoardMessageView.readShort(data, offset + 10);
+		int rowCount = BoardMessageView.readShort(data, offset + 12);
+		if (rowCount < 0 || rowCount > height) {
+			throw new IllegalArgumentException("Board delta has " + rowCount + " rows for a board of height " + height + ".");
+		}
+		if (sequence <= lastSequence) {
+			return null;
+		}
+		boolean isKeyframe = baselineId == BoardDelta.NO_BASELINE;
+		TileState[][] board = new TileState[height][];
+		if (isKeyframe) {
+			for (int i = 0; i < height; i++) {
+				board[i] = new TileState[width];
+				Arrays.fill(board[i], TileState.EMPTY);
+			}
+		}
+		else {
+			int index = baselineId % history.length;
+			TileState[][] baseline = history[index];
+			if (historySequences[index] != baselineId || baseline.length != height || (height > 0 && baseline[0].length != width)) {
+				return null;
+			}
+			for (int i = 0; i < height; i++) {
+				board[i] = baseline[i].clone();
+			}
+		}
+		int position = offset + 14;
+		for (int i = 0; i < rowCount; i++) {
+			int rowIndex = i;
+			if (!isKeyframe) {
+				rowIndex = BoardMessageView.readShort(data, position);
+				position += Short.BYTES;
+			}
+			if (rowIndex < 0 || rowIndex >= height) {
+				throw new IllegalArgumentException("Board delta row " + rowIndex + " is outside of the board.");
+			}
+			TileState[] row = board[rowIndex];
+			for (int j = 0; j < width; j += 2) {
+				byte tileData = data[position++];
+				row[j] = TileState.getEnum(tileData & 0x0F);
+				if (j + 1 < width) {
+					row[j + 1] = TileState.getEnum((tileData & 0xF0) >> 4);
+				}
+			}
+		}
+
+		int index = sequence % history.length;
+		history[index] = board;
+		historySequences[index] = sequence;
+		lastSequence = sequence;
+		return board;
+	}
+
+	public int getLastSequence() {
+		return lastSequence;
+	}
+}
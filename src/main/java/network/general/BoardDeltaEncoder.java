@@ -0,0 +1,134 @@
+package network.general;
+
+import game.pieces.util.TileState;
+
+import java.util.Arrays;
+
+//sender side of the board delta protocol, one per board being sent
+//boards are diffed against the newest one the receiver has acknowledged, so a lost update never leaves the receiver unable to decode later ones
+//keyframes go out when nothing usable has been acknowledged, and every keyframeInterval updates so late joiners can catch up
+//acknowledgements usually come in on the network thread, so encode and acknowledge are synchronized
+public class BoardDeltaEncoder {
+	public static final int DEFAULT_HISTORY = 32;
+	public static final int DEFAULT_KEYFRAME_INTERVAL = 20;
+
+	private final int keyframeInterval;
+	//boards sent so far, board sequence s is in history[s % history.length]
+	private final TileState[][][] history;
+	private final int[] historySequences;
+
+	private int sequence = 0;
+	private int lastKeyframe = BoardDelta.NO_BASELINE;
+	private int acknowledged = BoardDelta.NO_BASELINE;
+
+	public BoardDeltaEncoder() {
+		this(DEFAULT_HISTORY, DEFAULT_KEYFRAME_INTERVAL);
+	}
+
+	public BoardDeltaEncoder(int historySize, int keyframeInterval) {
+		if (historySize <= 0 || keyframeInterval <= 0) {
+			throw new IllegalArgumentException("History size and keyframe interval must be greater than 0.");
+		}
+		this.keyframeInterval = keyframeInterval;
+		this.history = new TileState[historySize][][];
+		this.historySequences = new int[historySize];
+		Arrays.fill(historySequences, BoardDelta.NO_BASELINE);
+	}
+
+	public synchronized BoardDelta encode(TileState[][] board) {
+		sequence++;
+		int height = board.length;
+		int width = height == 0 ? 0 : board[0].length;
+
+		TileState[][] baseline = null;
+		if (acknowledged != BoardDelta.NO_BASELINE && sequence - lastKeyframe < keyframeInterval) {
+			int index = acknowledged % history.length;
+			if (historySequences[index] == acknowledged) {
+				baseline = history[index];
+			}
+		}
+		if (baseline != null && (baseline.length != height || (height > 0 && baseline[0].length != width))) {
+			baseline = null;
+		}
+
+		int[] rowIndices;
+		TileState[][] rows;
+		int baselineId;
+		if (baseline == null) {
+			int top = height - 1;
+			while (top >= 0 && isRowEmpty(board[top])) {
+				top--;
+			}
+			rowIndices = new int[top + 1];
+			rows = new TileState[top + 1][];
+			for (int i = 0; i <= top; i++) {
+				rowIndices[i] = i;
+				rows[i] = board[i];
+			}
+			baselineId = BoardDelta.NO_BASELINE;
+			lastKeyframe = sequence;
+		}
+		else {
+			int count = 0;
+			for (int i = 0; i < height; i++) {
+				if (!Arrays.equals(board[i], baseline[i])) {
+					count++;
+				}
+			}
+			rowIndices = new int[count];
+			rows = new TileState[count][];
+			count = 0;
+			for (int i = 0; i < height; i++) {
+				if (!Arrays.equals(board[i], baseline[i])) {
+					rowIndices[count] = i;
+					rows[count] = board[i];
+					count++;
+				}
+			}
+			baselineId = acknowledged;
+		}
+
+		//the board given may be reused by the caller, so the history keeps its own copy
+		int index = sequence % history.length;
+		TileState[][] saved = history[index];
+		if (saved == null || saved.length != height || (height > 0 && saved[0].length != width)) {
+			saved = new TileState[height][width];
+			history[index] = saved;
+		}
+		for (int i = 0; i < height; i++) {
+			System.arraycopy(board[i], 0, saved[i], 0, width);
+		}
+		historySequences[index] = sequence;
+
+		return new BoardDelta(sequence, baselineId, height, width, rowIndices, rows);
+	}
+
+	//the receiver has the board with this sequence, so it can be used as a baseline
+	public synchronized void acknowledge(int sequence) {
+		if (sequence > acknowledged && sequence <= this.sequence) {
+			acknowledged = sequence;
+		}
+	}
+
+	//back to how it was constructed, for a new game. the encoder may be mid encode on another thread, so it's reset in place
+	public synchronized void reset() {
+		sequence = 0;
+		lastKeyframe = BoardDelta.NO_BASELINE;
+		acknowledged = BoardDelta.NO_BASELINE;
+		Arrays.fill(history, null);
+		Arrays.fill(historySequences, BoardDelta.NO_BASELINE);
+	}
+
+	public synchronized int getSequence() {
+		return sequence;
+	}
+
+	private static boolean isRowEmpty(TileState[] row) {
+		for (TileState tile : row) {
+			if (tile != TileState.EMPTY) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,171 @@
+package network.general;
+
+import game.pieces.util.Orientation;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+//reads a compact (PROTOCOL_IDS) board message straight out of the received bytes, client or server side
+//one view is kept per receiver and pointed at each new message with wrap, nothing is copied or allocated unless asked for
+public class BoardMessageView {
+	private static final byte IS_TOPPED_OUT_MASK = 0x01;
+	private static final byte IS_COMPACT_MASK = 0x02;
+	//PROTOCOL_TIMING: the server's clock when it received the board is appended to the compact server layout
+	private static final byte HAS_SERVER_TIME_MASK = 0x04;
+	public static final int NO_PIECE = -1;
+
+	private byte[] data;
+	private boolean isServer;
+	//where the fields after the flags (and the player id, for server messages) start
+	private int offset;
+
+	public BoardMessageView wrap(byte[] data) {
+		if (data.length < 3 || (data[1] != MessageConstants.MESSAGE_CLIENT_BOARD && data[1] != MessageConstants.MESSAGE_SERVER_BOARD)) {
+			throw new IllegalArgumentException("Not a board message.");
+		}
+		this.data = data;
+		this.isServer = data[0] == MessageConstants.SERVER;
+		this.offset = isServer && isCompact() ? 3 + Short.BYTES : 3;
+		return this;
+	}
+
+	public static boolean isCompact(byte[] data) {
+		return data.length >= 3 && (data[2] & IS_COMPACT_MASK) != 0;
+	}
+
+	public boolean isCompact() {
+		return (data[2] & IS_COMPACT_MASK) != 0;
+	}
+
+	public boolean isToppedOut() {
+		return (data[2] & IS_TOPPED_OUT_MASK) != 0;
+	}
+
+	public boolean hasServerTime() {
+		return isServer && (data[2] & HAS_SERVER_TIME_MASK) != 0 && data.length >= offset + Long.BYTES;
+	}
+
+	//in the server's System.nanoTime, only if hasServerTime
+	public long getServerTime() {
+		return ((long) readInt(data, data.length - Long.BYTES) << 32) | (readInt(data, data.length - Integer.BYTES) & 0xFFFFFFFFL);
+	}
+	//only sent by the server
+	public int getPlayerId() {
+		if (!isServer) {
+			throw new IllegalStateException("Client board messages don't carry a player id.");
+		}
+		return readShort(data, 3);
+	}
+
+	public int getHoldIndex() {
+		return isToppedOut() ? NO_PIECE : data[offset];
+	}
+
+	public int getPiecesDealt() {
+		return readInt(data, offset + 1);
+	}
+
+	public int getPieceX() {
+		return data[offset + 5];
+	}
+
+	public int getPieceY() {
+		return data[offset + 6];
+	}
+
+	public Orientation getPieceOrientation() {
+		return Orientation.getEnum(data[offset + 7]);
+	}
+
+	public int getPieceIndex() {
+		return isToppedOut() ? NO_PIECE : data[offset + 8];
+	}
+
+	public int getGarbageLength() {
+		return readShort(data, offset + 9);
+	}
+
+	public int getGarbage(int i) {
+		return data[offset + 11 + i];
+	}
+
+	//allocates, for when the queue has to outlive the received message
+	public int[] getGarbageQueue() {
+		int[] garbageQueue = new int[getGarbageLength()];
+		for (int i = 0; i < garbageQueue.length; i++) {
+			garbageQueue[i] = getGarbage(i);
+		}
+		return garbageQueue;
+	}
+
+	//where the board delta starts, for BoardDeltaDecoder.decode(byte[], int)
+	public int getBoardOffset() {
+		return offset + 11 + getGarbageLength();
+	}
+
+	public int getBoardSequence() {
+		return readInt(data, getBoardOffset());
+	}
+
+	//checks the message is as long as its header says, before any of it is forwarded
+	public boolean isValid() {
+		if (isToppedOut()) {
+			return data.length == offset;
+		}
+		if (data.length < offset + 11 || getGarbageLength() < 0 || data.length < getBoardOffset() + 14) {
+			return false;
+		}
+		int orientation = data[offset + 7];
+		if (orientation < 0 || orientation > 3) {
+			return false;
+		}
+		int boardOffset = getBoardOffset();
+		int baselineId = readInt(data, boardOffset + 4);
+		int height = readShort(data, boardOffset + 8);
+		int width = readShort(data, boardOffset + 10);
+		int rowCount = readShort(data, boardOffset + 12);
+		if (height < 0 || width < 0 || rowCount < 0 || rowCount > height) {
+			return false;
+		}
+		int rowBytes = (width + 1) / 2 + (baselineId == BoardDelta.NO_BASELINE ? 0 : Short.BYTES);
+		return data.length == boardOffset + 14 + rowCount * rowBytes;
+	}
+
+	//a client message as the compact server message relayed to everyone, the only change is the player id after the flags
+	public byte[] toServerCompact(int playerId) {
+		if (isServer) {
+			throw new IllegalStateException("Already a server message.");
+		}
+		byte[] relay = new byte[data.length + Short.BYTES];
+		relay[0] = MessageConstants.SERVER;
+		relay[1] = MessageConstants.MESSAGE_SERVER_BOARD;
+		//only the server says when it received something
+		relay[2] = (byte) (data[2] & ~HAS_SERVER_TIME_MASK);
+		relay[3] = (byte) (playerId >> 8);
+		relay[4] = (byte) playerId;
+		System.arraycopy(data, 3, relay, 5, data.length - 3);
+		return relay;
+	}
+
+	//a compact server message with the server's clock appended, for receivers that connected with PROTOCOL_TIMING
+	//everything before it is untouched, so readers that don't know about it stop before they get to it
+	public static byte[] withServerTime(byte[] compact, long serverTime) {
+		byte[] timed = Arrays.copyOf(compact, compact.length + Long.BYTES);
+		timed[2] |= HAS_SERVER_TIME_MASK;
+		ByteBuffer.wrap(timed, compact.length, Long.BYTES).putLong(serverTime);
+		return timed;
+	}
+
+	public byte[] getData() {
+		return data;
+	}
+
+	//messages are big endian, as written by ByteBuffer
+	static int readShort(byte[] data, int offset) {
+		return (short) (((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF));
+	}
+
+	static int readInt(byte[] data, int offset) {
+		return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16) | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+	}
+}
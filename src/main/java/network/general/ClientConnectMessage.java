@@ -2,27 +2,49 @@ package network.general;
 
 import util.Utils;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 public class ClientConnectMessage extends MessageSerializer{
 	public String username;
+	public int protocolVersion;
+	//the kick tables the client has cached, so the server doesn't send them again
+	public long[] kickTableHashes;
 
 	public ClientConnectMessage(byte[] data) {
 		super(data);
 	}
 
 	public ClientConnectMessage(String username) {
+		this(username, MessageConstants.PROTOCOL_VERSION);
+	}
+
+	public ClientConnectMessage(String username, int protocolVersion) {
+		this(username, protocolVersion, new long[0]);
+	}
+
+	public ClientConnectMessage(String username, int protocolVersion, long[] kickTableHashes) {
 		this.username = username;
+		this.protocolVersion = protocolVersion;
+		this.kickTableHashes = kickTableHashes;
 	}
 
 	@Override
 	public byte[] serialize() {
 		byte[] usernameBytes = this.username.getBytes(StandardCharsets.UTF_8);
-		byte[] data = new byte[2 + Short.BYTES + usernameBytes.length];
+		byte[] data = new byte[2 + Short.BYTES + usernameBytes.length + Byte.BYTES + Short.BYTES + kickTableHashes.length * Long.BYTES];
 		data[0] = MessageConstants.CLIENT;
 		data[1] = MessageConstants.MESSAGE_CLIENT_CONNECT;
 		Utils.copyShort(data, 2, usernameBytes.length);
 		System.arraycopy(usernameBytes, 0, data, 2 + Short.BYTES, usernameBytes.length);
+		//appended last, so older servers just ignore them
+		int versionIndex = 2 + Short.BYTES + usernameBytes.length;
+		data[versionIndex] = (byte) protocolVersion;
+		ByteBuffer buffer = ByteBuffer.wrap(data, versionIndex + 1, data.length - versionIndex - 1);
+		buffer.putShort((short) kickTableHashes.length);
+		for (long hash : kickTableHashes) {
+			buffer.putLong(hash);
+		}
 		return data;
 	}
 
@@ -33,5 +55,16 @@ public class ClientConnectMessage extends MessageSerializer{
 		}
 		int nameLength = Utils.readShort(data, 2);
 		this.username = new String(data, 2 + Short.BYTES, nameLength, StandardCharsets.UTF_8);
+		int versionIndex = 2 + Short.BYTES + nameLength;
+		this.protocolVersion = data.length > versionIndex ? data[versionIndex] : MessageConstants.NO_PROTOCOL;
+		int hashesIndex = versionIndex + 1;
+		int hashCount = data.length >= hashesIndex + Short.BYTES ? Utils.readShort(data, hashesIndex) : 0;
+		//whatever doesn't fit in the message, or past what a client is meant to send, is ignored
+		hashCount = Math.max(0, Math.min(Math.min(hashCount, KickTableCache.MAX_ADVERTISED), (data.length - hashesIndex - Short.BYTES) / Long.BYTES));
+		this.kickTableHashes = new long[hashCount];
+		ByteBuffer buffer = ByteBuffer.wrap(data, hashesIndex + Short.BYTES, hashCount * Long.BYTES);
+		for (int i = 0; i < hashCount; i++) {
+			this.kickTableHashes[i] = buffer.getLong();
+		}
 	}
 }
@@ -0,0 +1,52 @@
+package network.general;
+
+import java.nio.ByteBuffer;
+
+//lockstep replacement for board updates: the sender's inputs, the server re-simulates them instead of trusting a board
+public class ClientInputMessage extends MessageSerializer {
+	public InputChunk chunk;
+
+	public ClientInputMessage(byte[] data) {
+		super(data);
+	}
+
+	public ClientInputMessage(InputChunk chunk) {
+		this.chunk = chunk;
+	}
+
+	@Override
+	public byte[] serialize() {
+		byte[] data = new byte[getSize()];
+		serialize(ByteBuffer.wrap(data));
+		return data;
+	}
+
+	public int getSize() {
+		return 2 + chunk.getSize();
+	}
+
+	public void serialize(ByteBuffer buffer) {
+		buffer.put(MessageConstants.CLIENT);
+		buffer.put(MessageConstants.MESSAGE_CLIENT_INPUT);
+		chunk.write(buffer);
+	}
+
+	@Override
+	public void deserialize(byte[] data) {
+		if (data[0] != MessageConstants.CLIENT || data[1] != MessageConstants.MESSAGE_CLIENT_INPUT) {
+			throw new IllegalArgumentException("Illegal message type given to deserialize.");
+		}
+		this.chunk = InputChunk.read(ByteBuffer.wrap(data, 2, data.length - 2));
+	}
+
+	//the same chunk as the server forwards it, the chunk bytes are copied over as they are
+	public static byte[] toServerMessage(byte[] data, int playerId) {
+		byte[] relay = new byte[data.length + Short.BYTES];
+		relay[0] = MessageConstants.SERVER;
+		relay[1] = MessageConstants.MESSAGE_SERVER_INPUT;
+		relay[2] = (byte) (playerId >> 8);
+		relay[3] = (byte) playerId;
+		System.arraycopy(data, 2, relay, 4, data.length - 2);
+		return relay;
+	}
+}
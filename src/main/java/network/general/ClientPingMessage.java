@@ -0,0 +1,43 @@
+package network.general;
+
+import java.nio.ByteBuffer;
+
+//servers without timing ignore this, so clients can always send it
+public class ClientPingMessage extends MessageSerializer {
+	public static final int NO_LATENCY = -1;
+
+	//the client's System.nanoTime when it sent this, handed back in the pong
+	public long clientTime;
+	//the client's smoothed round trip time in ms, NO_LATENCY until it has one
+	public int latency;
+
+	public ClientPingMessage(byte[] data) {
+		super(data);
+	}
+
+	public ClientPingMessage(long clientTime, int latency) {
+		this.clientTime = clientTime;
+		this.latency = latency;
+	}
+
+	@Override
+	public byte[] serialize() {
+		byte[] data = new byte[2 + Long.BYTES + Short.BYTES];
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		buffer.put(MessageConstants.CLIENT);
+		buffer.put(MessageConstants.MESSAGE_CLIENT_PING);
+		buffer.putLong(clientTime);
+		buffer.putShort((short) Math.min(latency, Short.MAX_VALUE));
+		return data;
+	}
+
+	@Override
+	public void deserialize(byte[] data) {
+		if (data[0] != MessageConstants.CLIENT || data[1] != MessageConstants.MESSAGE_CLIENT_PING) {
+			throw new IllegalArgumentException("Illegal message type given to deserialize.");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(data, 2, data.length - 2);
+		this.clientTime = buffer.getLong();
+		this.latency = buffer.getShort();
+	}
+}
@@ -0,0 +1,53 @@
+package network.general;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+//servers without rooms ignore this, so clients can always send it
+public class ClientRoomMessage extends MessageSerializer {
+	public static final byte REQUEST_LIST = 0;
+	//leaves the current room for the named one
+	public static final byte REQUEST_JOIN = 1;
+	//same as joining, but the room is created if it doesn't exist yet
+	public static final byte REQUEST_JOIN_OR_CREATE = 2;
+	//the lobby state again, kick table included, for when the cached one we advertised couldn't be found
+	public static final byte REQUEST_KICK_TABLE = 3;
+
+	public byte request;
+	public String room;
+
+	public ClientRoomMessage(byte[] data) {
+		super(data);
+	}
+
+	public ClientRoomMessage(byte request, String room) {
+		this.request = request;
+		this.room = room;
+	}
+
+	@Override
+	public byte[] serialize() {
+		byte[] roomBytes = (room == null ? "" : room).getBytes(StandardCharsets.UTF_8);
+		byte[] data = new byte[2 + Byte.BYTES + Short.BYTES + roomBytes.length];
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		buffer.put(MessageConstants.CLIENT);
+		buffer.put(MessageConstants.MESSAGE_CLIENT_ROOM);
+		buffer.put(request);
+		buffer.putShort((short) roomBytes.length);
+		buffer.put(roomBytes);
+		return data;
+	}
+
+	@Override
+	public void deserialize(byte[] data) {
+		if (data[0] != MessageConstants.CLIENT || data[1] != MessageConstants.MESSAGE_CLIENT_ROOM) {
+			throw new IllegalArgumentException("Illegal message type given to deserialize.");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(data, 2, data.length - 2);
+		this.request = buffer.get();
+		int roomLength = buffer.getShort() & 0xFFFF;
+		byte[] roomBytes = new byte[roomLength];
+		buffer.get(roomBytes);
+		this.room = new String(roomBytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,126 @@
+package network.general;
+
+import game.Action;
+import game.Handling;
+import util.Utils;
+
+import java.nio.ByteBuffer;
+
+//the part of an input message shared by client and server: a player's actions and incoming garbage since their last chunk
+//same events as a replay, so anyone with the seed can re-simulate the player exactly. chunks go out once per piece placed
+//frames are varints, the first absolute and the rest deltas from the event before, so a chunk is usually a few bytes per action
+//piecesDealt and boardHash are what the sender's game looked like after the chunk, receivers check their re-simulation against them
+public class InputChunk {
+	private static final byte HAS_HANDLING_MASK = 0x01;
+	private static final byte IS_GAME_OVER_MASK = 0x02;
+	//tags below this are Action values
+	public static final int TAG_GARBAGE = 0x40;
+
+	public int sequence;
+	//only sent with the first chunk of a game, handling changes how held inputs play out
+	public Handling handling;
+	public boolean isGameOver;
+	public int piecesDealt;
+	public long boardHash;
+	public int eventCount;
+	public long[] frames;
+	public int[] tags;
+	//amount and column pairs, only for garbage events
+	public int[][] garbage;
+
+	public InputChunk(int sequence, Handling handling, boolean isGameOver, int piecesDealt, long boardHash,
+					  int eventCount, long[] frames, int[] tags, int[][] garbage) {
+		this.sequence = sequence;
+		this.handling = handling;
+		this.isGameOver = isGameOver;
+		this.piecesDealt = piecesDealt;
+		this.boardHash = boardHash;
+		this.eventCount = eventCount;
+		this.frames = frames;
+		this.tags = tags;
+		this.garbage = garbage;
+	}
+
+	public int getSize() {
+		int size = Integer.BYTES + Byte.BYTES + Integer.BYTES + Long.BYTES + Short.BYTES;
+		if (handling != null) {
+			size += 3 * Double.BYTES + Byte.BYTES;
+		}
+		long lastFrame = 0;
+		for (int i = 0; i < eventCount; i++) {
+			size += Utils.getVarLongSize(frames[i] - lastFrame) + Byte.BYTES;
+			lastFrame = frames[i];
+			if (tags[i] == TAG_GARBAGE) {
+				size += Utils.getVarLongSize(garbage[i].length / 2);
+				for (int j = 0; j < garbage[i].length; j += 2) {
+					size += Utils.getVarLongSize(garbage[i][j]) + Utils.getVarLongSize(garbage[i][j + 1] + 1);
+				}
+			}
+		}
+		return size;
+	}
+
+	public void write(ByteBuffer buffer) {
+		buffer.putInt(sequence);
+		buffer.put((byte) ((handling != null ? HAS_HANDLING_MASK : 0) | (isGameOver ? IS_GAME_OVER_MASK : 0)));
+		if (handling != null) {
+			buffer.putDouble(handling.getARR());
+			buffer.putDouble(handling.getDAS());
+			buffer.putDouble(handling.getSDF());
+			buffer.put((byte) (handling.isDASCancel() ? 1 : 0));
+		}
+		buffer.putInt(piecesDealt);
+		buffer.putLong(boardHash);
+		buffer.putShort((short) eventCount);
+		long lastFrame = 0;
+		for (int i = 0; i < eventCount; i++) {
+			Utils.writeVarLong(buffer, frames[i] - lastFrame);
+			lastFrame = frames[i];
+			buffer.put((byte) tags[i]);
+			if (tags[i] == TAG_GARBAGE) {
+				Utils.writeVarLong(buffer, garbage[i].length / 2);
+				for (int j = 0; j < garbage[i].length; j += 2) {
+					Utils.writeVarLong(buffer, garbage[i][j]);
+					//column is -1 for garbage without a hole
+					Utils.writeVarLong(buffer, garbage[i][j + 1] + 1);
+				}
+			}
+		}
+	}
+
+	public static InputChunk read(ByteBuffer buffer) {
+		int sequence = buffer.getInt();
+		int flags = buffer.get();
+		Handling handling = null;
+		if ((flags & HAS_HANDLING_MASK) != 0) {
+			handling = new Handling(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.get() != 0);
+		}
+		int piecesDealt = buffer.getInt();
+		long boardHash = buffer.getLong();
+		int eventCount = buffer.getShort() & 0xFFFF;
+		long[] frames = new long[eventCount];
+		int[] tags = new int[eventCount];
+		int[][] garbage = new int[eventCount][];
+		long frame = 0;
+		for (int i = 0; i < eventCount; i++) {
+			frame += Utils.readVarLong(buffer);
+			frames[i] = frame;
+			tags[i] = buffer.get();
+			if (tags[i] == TAG_GARBAGE) {
+				int count = (int) Utils.readVarLong(buffer);
+				if (count < 0 || count > buffer.remaining()) {
+					throw new IllegalArgumentException("Garbage event has " + count + " entries.");
+				}
+				garbage[i] = new int[2 * count];
+				for (int j = 0; j < garbage[i].length; j += 2) {
+					garbage[i][j] = (int) Utils.readVarLong(buffer);
+					garbage[i][j + 1] = (int) Utils.readVarLong(buffer) - 1;
+				}
+			}
+			else if (tags[i] < 0 || tags[i] > Action.HARD_DROP.getVal()) {
+				throw new IllegalArgumentException("Unknown input event tag " + tags[i] + ".");
+			}
+		}
+		return new InputChunk(sequence, handling, (flags & IS_GAME_OVER_MASK) != 0, piecesDealt, boardHash, eventCount, frames, tags, garbage);
+	}
+}
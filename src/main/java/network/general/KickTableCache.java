@@ -0,0 +1,133 @@
+package network.general;
+
+import game.pieces.PieceFactory;
+import org.json.simple.parser.ParseException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+//kick tables by their content hash (PieceFactory.getHash), so a table the other side already has isn't sent or parsed again
+//the server encodes each table's json once, clients keep the tables they've parsed and write their json to disk for later runs
+public class KickTableCache {
+	public static final String CACHE_LOCATION = "./kick_cache/";
+	//the most hashes a client tells the server about, so connecting stays one small message
+	public static final int MAX_ADVERTISED = 32;
+	//what servers that don't cache send in place of a hash
+	public static final long NO_HASH = 0;
+
+	private static final Map<Long, byte[]> encoded = new ConcurrentHashMap<>();
+	private static final Map<Long, PieceFactory> parsed = new ConcurrentHashMap<>();
+
+	private KickTableCache() {}
+
+	//the table's json as it's sent, built the first time a table with its contents is asked for
+	public static byte[] getEncoded(PieceFactory kickTable) {
+		return encoded.computeIfAbsent(kickTable.getHash(), (Long hash) -> {
+			return kickTable.getJson().getBytes(StandardCharsets.UTF_8);
+		});
+	}
+
+	//a table that was sent, only parsed if one with the same hash isn't known already. new ones are kept for next time
+	public static PieceFactory getOrParse(long hash, byte[] json) throws ParseException {
+		PieceFactory kickTable = hash == NO_HASH ? null : get(hash);
+		if (kickTable != null) {
+			return kickTable;
+		}
+		kickTable = new PieceFactory(new String(json, StandardCharsets.UTF_8));
+		//servers that don't cache don't send a hash, the table's own is the same thing
+		hash = kickTable.getHash();
+		if (parsed.putIfAbsent(hash, kickTable) == null) {
+			encoded.putIfAbsent(hash, json);
+			long written = hash;
+			CompletableFuture.runAsync(() -> {
+				write(written, json);
+			});
+		}
+		return kickTable;
+	}
+
+	//null if the table isn't in memory or on disk. a file that doesn't check out is deleted
+	public static PieceFactory get(long hash) {
+		PieceFactory kickTable = parsed.get(hash);
+		if (kickTable != null) {
+			return kickTable;
+		}
+		Path path = getPath(hash);
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+		try {
+			byte[] json = Files.readAllBytes(path);
+			kickTable = new PieceFactory(new String(json, StandardCharsets.UTF_8));
+		} catch (IOException | ParseException | RuntimeException e) {
+			e.printStackTrace();
+			delete(path);
+			return null;
+		}
+		//a file that doesn't hash to its name was changed by hand or broken, it isn't trusted
+		if (kickTable.getHash() != hash) {
+			delete(path);
+			return null;
+		}
+		PieceFactory previous = parsed.putIfAbsent(hash, kickTable);
+		encoded.putIfAbsent(hash, getEncoded(kickTable));
+		return previous == null ? kickTable : previous;
+	}
+
+	//what a client has, in memory first, then on disk. files are only advertised once they've loaded and checked out
+	public static long[] getHashes() {
+		Set<Long> hashes = new LinkedHashSet<>(parsed.keySet());
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(CACHE_LOCATION), "*.json")) {
+			for (Path file : files) {
+				if (hashes.size() >= MAX_ADVERTISED) {
+					break;
+				}
+				String name = file.getFileName().toString();
+				long hash;
+				try {
+					hash = Long.parseUnsignedLong(name.substring(0, name.length() - ".json".length()), 16);
+				} catch (NumberFormatException e) {
+					//not one of ours
+					continue;
+				}
+				if (!hashes.contains(hash) && get(hash) != null) {
+					hashes.add(hash);
+				}
+			}
+		} catch (NoSuchFileException e) {
+			//nothing cached yet
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return hashes.stream().limit(MAX_ADVERTISED).mapToLong(Long::longValue).toArray();
+	}
+
+	private static Path getPath(long hash) {
+		return Paths.get(CACHE_LOCATION, String.format("%016x.json", hash));
+	}
+
+	private static void delete(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	//written next to where it goes and moved over, so a half written table is never read back
+	private static void write(long hash, byte[] json) {
+		Path path = getPath(hash);
+		try {
+			Files.createDirectories(path.getParent());
+			Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+			Files.write(temp, json);
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -5,7 +5,11 @@ public class MessageConstants {
 	public static final byte MESSAGE_CLIENT_READY = 1; //send spectating/ready update
 	public static final byte MESSAGE_CLIENT_CONFIRM_START = 2; //respond to server that everything on client's end is prepared to start
 	public static final byte MESSAGE_CLIENT_GARBAGE = 3; //sends garbage to server to be redirected
-	public static final byte MESSAGE_CLIENT_BOARD = 4; //send board, queue, and hold piece, as well as other info like top out and garbage queue(?)
+	public static final byte MESSAGE_CLIENT_BOARD = 4; //send board (as a delta against the last acknowledged one), queue, and hold piece, as well as other info like top out and garbage queue(?)
+	public static final byte MESSAGE_CLIENT_INPUT = 5; //lockstep games: send inputs and received garbage since the last piece placed instead of boards
+	public static final byte MESSAGE_CLIENT_ROOM = 6; //ask for the list of rooms on the server, or to move to (or create) another one
+	//7 is unused, it was for picking a garbage target by hand
+	public static final byte MESSAGE_CLIENT_PING = 8; //sent every second with the client's clock and its last measured round trip time
 
 	public static final byte MESSAGE_SERVER_LOBBY_STATE = 0; //sends what state the client should be in currently (includes lobby settings, in game, etc.)
 	public static final byte MESSAGE_SERVER_LOBBY_UPDATE_PLAYER = 1; //updates a player's state (lobby, in game board etc.) (to be added: queue, hold piece in game)
@@ -13,6 +17,21 @@ public class MessageConstants {
 	public static final byte MESSAGE_SERVER_GARBAGE = 3; //sends garbage to client to be added to their board
 	public static final byte MESSAGE_SERVER_GAME_END = 4; //tells clients the game has ended, includes winner (possibly stats)
 	public static final byte MESSAGE_SERVER_BOARD = 5; //updates an opponent's board
+	public static final byte MESSAGE_SERVER_BOARD_ACK = 6; //tells a client which of its board updates arrived, so it can send later ones as deltas against it
+	public static final byte MESSAGE_SERVER_INPUT = 7; //lockstep games: forwards a player's checked inputs so everyone can re-simulate their board
+	public static final byte MESSAGE_SERVER_ROOM_LIST = 8; //the rooms on the server and which one the client is in, sent on request and whenever the client changes rooms
+	public static final byte MESSAGE_SERVER_PONG = 9; //answers a ping straight away with the server's clock, for the round trip time and the clock offset
+	public static final byte MESSAGE_SERVER_LATENCY = 10; //the round trip times of the players in the room, as they reported them
+
+	//protocol revisions, agreed on at connect. revision 1, which sent players and pieces as utf-8 names, is no longer supported
+	public static final int NO_PROTOCOL = 0; //what clients that don't say which revision they speak are taken to speak
+	public static final int PROTOCOL_IDS = 2; //players are sent as lobby assigned ids, pieces as kick table indices
+	public static final int PROTOCOL_LOCKSTEP = 3; //games can be played by sending inputs, which the server re-simulates
+	public static final int PROTOCOL_KICK_CACHE = 4; //clients say which kick tables they have, the lobby state leaves out one they already have
+	public static final int PROTOCOL_TIMING = 5; //clients ping the server, compact boards carry the server's clock when it received them
+	public static final int PROTOCOL_VERSION = PROTOCOL_TIMING;
+	//clients below this are turned away at connect
+	public static final int PROTOCOL_MINIMUM = PROTOCOL_IDS;
 
 	public static final byte SERVER = 0;
 	public static final byte CLIENT = 1;
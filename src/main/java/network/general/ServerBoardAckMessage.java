@@ -0,0 +1,39 @@
+package network.general;
+
+import java.nio.ByteBuffer;
+
+public class ServerBoardAckMessage extends MessageSerializer {
+	public int sequence;
+
+	public ServerBoardAckMessage(byte[] data) {
+		super(data);
+	}
+
+	public ServerBoardAckMessage(int sequence) {
+		this.sequence = sequence;
+	}
+
+	@Override
+	public byte[] serialize() {
+		byte[] data = new byte[getSize()];
+		serialize(ByteBuffer.wrap(data));
+		return data;
+	}
+
+	public int getSize() {
+		return 2 + Integer.BYTES;
+	}
+
+	public void serialize(ByteBuffer buffer) {
+		buffer.put(MessageConstants.SERVER);
+		buffer.put(MessageConstants.MESSAGE_SERVER_BOARD_ACK);
+		buffer.putInt(sequence);
+	}
+
+	@Override
+	public void deserialize(byte[] data) {
+		assert data[0] == MessageConstants.SERVER && data[1] == MessageConstants.MESSAGE_SERVER_BOARD_ACK : "Illegal message type given to deserialize.";
+		ByteBuffer buffer = ByteBuffer.wrap(data, 2, data.length - 2);
+		this.sequence = buffer.getInt();
+	}
+}
@@ -1,10 +1,16 @@
 package network.general;
 
+import java.nio.ByteBuffer;
+
 public class ServerCountdownMessage extends MessageSerializer {
 	public static final byte TELL_EVERYONE_TO_PREPARE = (byte) 0xFF;
 	public static final byte START = 0;
 
 	public byte state;
+	//only sent with TELL_EVERYONE_TO_PREPARE, every player draws their pieces from this seed
+	public long seed;
+	//also only with TELL_EVERYONE_TO_PREPARE, players send inputs instead of boards (PROTOCOL_LOCKSTEP)
+	public boolean isLockstep;
 
 	public ServerCountdownMessage(byte[] data) {
 		deserialize(data);
@@ -14,9 +20,28 @@ public class ServerCountdownMessage extends MessageSerializer {
 		this.state = state;
 	}
 
+	public ServerCountdownMessage(byte state, long seed) {
+		this(state, seed, false);
+	}
+
+	public ServerCountdownMessage(byte state, long seed, boolean isLockstep) {
+		this.state = state;
+		this.seed = seed;
+		this.isLockstep = isLockstep;
+	}
+
 	@Override
 	public byte[] serialize() {
-		return new byte[] {MessageConstants.SERVER, MessageConstants.MESSAGE_SERVER_COUNTDOWN, state};
+		if (state != TELL_EVERYONE_TO_PREPARE) {
+			return new byte[] {MessageConstants.SERVER, MessageConstants.MESSAGE_SERVER_COUNTDOWN, state};
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(4 * Byte.BYTES + Long.BYTES);
+		buffer.put(MessageConstants.SERVER);
+		buffer.put(MessageConstants.MESSAGE_SERVER_COUNTDOWN);
+		buffer.put(state);
+		buffer.putLong(seed);
+		buffer.put((byte) (isLockstep ? 1 : 0));
+		return buffer.array();
 	}
 
 	@Override
@@ -25,5 +50,11 @@ public class ServerCountdownMessage extends MessageSerializer {
 			throw new IllegalArgumentException("Illegal message type given to deserialize.");
 		}
 		this.state = data[2];
+		if (state == TELL_EVERYONE_TO_PREPARE && data.length >= 3 * Byte.BYTES + Long.BYTES) {
+			this.seed = ByteBuffer.wrap(data, 3, Long.BYTES).getLong();
+		}
+		if (state == TELL_EVERYONE_TO_PREPARE && data.length >= 4 * Byte.BYTES + Long.BYTES) {
+			this.isLockstep = data[3 + Long.BYTES] != 0;
+		}
 	}
 }
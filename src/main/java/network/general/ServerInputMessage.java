@@ -0,0 +1,46 @@
+package network.general;
+
+import java.nio.ByteBuffer;
+
+//another player's inputs, forwarded by the server once it has checked them, for the receiver to re-simulate that player's board
+public class ServerInputMessage extends MessageSerializer {
+	public int playerId;
+	public InputChunk chunk;
+
+	public ServerInputMessage(byte[] data) {
+		super(data);
+	}
+
+	public ServerInputMessage(int playerId, InputChunk chunk) {
+		this.playerId = playerId;
+		this.chunk = chunk;
+	}
+
+	@Override
+	public byte[] serialize() {
+		byte[] data = new byte[getSize()];
+		serialize(ByteBuffer.wrap(data));
+		return data;
+	}
+
+	public int getSize() {
+		return 2 + Short.BYTES + chunk.getSize();
+	}
+
+	public void serialize(ByteBuffer buffer) {
+		buffer.put(MessageConstants.SERVER);
+		buffer.put(MessageConstants.MESSAGE_SERVER_INPUT);
+		buffer.putShort((short) playerId);
+		chunk.write(buffer);
+	}
+
+	@Override
+	public void deserialize(byte[] data) {
+		if (data[0] != MessageConstants.SERVER || data[1] != MessageConstants.MESSAGE_SERVER_INPUT) {
+			throw new IllegalArgumentException("Illegal message type given to deserialize.");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(data, 2, data.length - 2);
+		this.playerId = buffer.getShort();
+		this.chunk = InputChunk.read(buffer);
+	}
+}
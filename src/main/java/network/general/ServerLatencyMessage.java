@@ -0,0 +1,47 @@
+package network.general;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ServerLatencyMessage extends MessageSerializer {
+	//player id to their round trip time in ms
+	public Map<Integer, Integer> latencies;
+
+	public ServerLatencyMessage(byte[] data) {
+		super(data);
+	}
+
+	public ServerLatencyMessage(Map<Integer, Integer> latencies) {
+		this.latencies = latencies;
+	}
+
+	@Override
+	public byte[] serialize() {
+		byte[] data = new byte[2 + Short.BYTES + 2 * Short.BYTES * latencies.size()];
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		buffer.put(MessageConstants.SERVER);
+		buffer.put(MessageConstants.MESSAGE_SERVER_LATENCY);
+		buffer.putShort((short) latencies.size());
+		for (Map.Entry<Integer, Integer> latency : latencies.entrySet()) {
+			buffer.putShort((short) (int) latency.getKey());
+			buffer.putShort((short) Math.min(latency.getValue(), Short.MAX_VALUE));
+		}
+		return data;
+	}
+
+	@Override
+	public void deserialize(byte[] data) {
+		if (data[0] != MessageConstants.SERVER || data[1] != MessageConstants.MESSAGE_SERVER_LATENCY) {
+			throw new IllegalArgumentException("Illegal message type given to deserialize.");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(data, 2, data.length - 2);
+		int count = buffer.getShort() & 0xFFFF;
+		this.latencies = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			int id = buffer.getShort();
+			int latency = buffer.getShort();
+			this.latencies.put(id, latency);
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package network.general;
 
+import network.lobby.Player;
+
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
@@ -9,6 +11,8 @@ public class ServerLobbyPlayerUpdateMessage extends MessageSerializer{
 	protected static final byte SPECTATING_MASK = 0x04;
 
 	public String username;
+	//no initializer, deserialize runs from the super constructor and it would overwrite what it read
+	public int playerId;
 	public boolean isDisconnected;
 	public boolean isReady;
 	public boolean isSpectating;
@@ -22,12 +26,18 @@ public class ServerLobbyPlayerUpdateMessage extends MessageSerializer{
 		this.isDisconnected = isDisconnected;
 		this.isReady = isReady;
 		this.isSpectating = isSpectating;
+		this.playerId = Player.NO_ID;
+	}
+
+	public ServerLobbyPlayerUpdateMessage(String username, int playerId, boolean isDisconnected, boolean isReady, boolean isSpectating) {
+		this(username, isDisconnected, isReady, isSpectating);
+		this.playerId = playerId;
 	}
 
 	@Override
 	public byte[] serialize() {
 		byte[] usernameBytes = this.username.getBytes(StandardCharsets.UTF_8);
-		byte[] data = new byte[2 + 1 + Short.BYTES + usernameBytes.length];
+		byte[] data = new byte[2 + 1 + Short.BYTES + usernameBytes.length + Short.BYTES];
 		byte flags = (byte) ((isDisconnected ? DISCONNECTED_MASK : 0) | (isReady ? READY_MASK : 0) | (isSpectating ? SPECTATING_MASK : 0));
 		ByteBuffer buffer = ByteBuffer.wrap(data);
 		buffer.put(MessageConstants.SERVER);
@@ -35,6 +45,8 @@ public class ServerLobbyPlayerUpdateMessage extends MessageSerializer{
 		buffer.put(flags);
 		buffer.putShort((short) usernameBytes.length);
 		buffer.put(usernameBytes);
+		//appended last, so older clients just ignore it
+		buffer.putShort((short) playerId);
 		return data;
 	}
 
@@ -50,5 +62,6 @@ public class ServerLobbyPlayerUpdateMessage extends MessageSerializer{
 		byte[] nameBytes = new byte[nameLength];
 		buffer.get(nameBytes);
 		username = new String(nameBytes, StandardCharsets.UTF_8);
+		playerId = buffer.remaining() >= Short.BYTES ? buffer.getShort() : Player.NO_ID;
 	}
 }
@@ -2,6 +2,7 @@ package network.general;
 
 import game.SpinDetector;
 import game.pieces.PieceFactory;
+import game.randomizer.RandomizerType;
 import network.lobby.Player;
 import org.json.simple.parser.ParseException;
 import settings.GameSettings;
@@ -21,22 +22,38 @@ public class ServerLobbyStateMessage extends MessageSerializer{
 	public GameSettings settings;
 	public List<Player> players;
 	public boolean isStarting;
+	//the protocol revision the server agreed to, and the id it gave the player receiving this
+	//no initializers, deserialize runs from the super constructor and they would overwrite what it read
+	public int protocolVersion;
+	public int playerId;
+	//kick cache revision: the table's hash is always sent, the table itself is left out when the receiver said they have it
+	public boolean isKickTableOmitted;
+	//the table was left out but isn't in our cache after all, settings is null and the table has to be asked for again
+	public boolean isKickTableMissing;
 
 	public ServerLobbyStateMessage(byte[] data) {
 		super(data);
 	}
 
-	public ServerLobbyStateMessage(GameSettings settings, List<Player> players, boolean isStarting) {
+	public ServerLobbyStateMessage(GameSettings settings, List<Player> players, boolean isStarting, int protocolVersion, int playerId) {
 		this.settings = settings;
 		this.players = players;
 		this.isStarting = isStarting;
+		this.protocolVersion = protocolVersion;
+		this.playerId = playerId;
+	}
+
+	public ServerLobbyStateMessage(GameSettings settings, List<Player> players, boolean isStarting, int protocolVersion, int playerId, boolean isKickTableOmitted) {
+		this(settings, players, isStarting, protocolVersion, playerId);
+		this.isKickTableOmitted = isKickTableOmitted && protocolVersion >= MessageConstants.PROTOCOL_KICK_CACHE;
 	}
 
 	@Override
 	public byte[] serialize() {
-		String kickTable = this.settings.getKickTable().getJson();
 		byte flags = isStarting ? IS_STARTING_MASK : 0;
-		byte[] kickTableBytes = kickTable.getBytes(StandardCharsets.UTF_8);
+		//encoded once per table rather than once per player joining
+		byte[] kickTableBytes = isKickTableOmitted ? new byte[0] : KickTableCache.getEncoded(this.settings.getKickTable());
+		boolean isSendingHash = protocolVersion >= MessageConstants.PROTOCOL_KICK_CACHE;
 		int playerByteSize = 0;
 		for (Player player : players) {
 			String name = player.getName();
@@ -44,7 +61,8 @@ public class ServerLobbyStateMessage extends MessageSerializer{
 			playerByteSize += Byte.BYTES + Short.BYTES + bytes.length;
 		}
 		byte[] spinTypeBytes = this.settings.getSpinDetector().name().getBytes(StandardCharsets.UTF_8);
-		byte[] data = new byte[Byte.BYTES + 3 * Short.BYTES + Short.BYTES + playerByteSize + 3 * Short.BYTES + Short.BYTES + spinTypeBytes.length + Integer.BYTES + kickTableBytes.length];
+		byte[] randomizerBytes = this.settings.getRandomizer().name().getBytes(StandardCharsets.UTF_8);
+		byte[] data = new byte[Byte.BYTES + 3 * Short.BYTES + Short.BYTES + playerByteSize + 3 * Short.BYTES + Short.BYTES + spinTypeBytes.length + Integer.BYTES + kickTableBytes.length + Short.BYTES + randomizerBytes.length + Byte.BYTES + Short.BYTES + players.size() * Short.BYTES + (isSendingHash ? Long.BYTES : 0)];
 
 		ByteBuffer buffer = ByteBuffer.wrap(data);
 		buffer.put(flags);
@@ -69,6 +87,19 @@ public class ServerLobbyStateMessage extends MessageSerializer{
 		buffer.putInt(kickTableBytes.length);
 		buffer.put(kickTableBytes);
 
+		//appended last so the fields before it keep their positions
+		buffer.putShort((short) randomizerBytes.length);
+		buffer.put(randomizerBytes);
+
+		buffer.put((byte) protocolVersion);
+		buffer.putShort((short) playerId);
+		for (Player player : players) {
+			buffer.putShort((short) player.getId());
+		}
+		if (isSendingHash) {
+			buffer.putLong(settings.getKickTable().getHash());
+		}
+
 		System.out.println("data length: " + data.length);
 		return data;
 	}
@@ -105,17 +136,45 @@ public class ServerLobbyStateMessage extends MessageSerializer{
 		String spinDetectorName = new String(spinDetectorNameBytes, StandardCharsets.UTF_8);
 		SpinDetector detector = SpinDetector.getEnum(spinDetectorName);
 
+		//parsed at the end, once it's known whether the table has been cached
 		int kickTableLength = buffer.getInt();
 		byte[] kickTableBytes = new byte[kickTableLength];
 		buffer.get(kickTableBytes);
-		String kickTableJSON = new String(kickTableBytes, StandardCharsets.UTF_8);
+
+		RandomizerType randomizer = RandomizerType.BAG_7;
+		if (buffer.remaining() >= Short.BYTES) {
+			int randomizerNameLength = buffer.getShort();
+			byte[] randomizerNameBytes = new byte[randomizerNameLength];
+			buffer.get(randomizerNameBytes);
+			randomizer = RandomizerType.getEnum(new String(randomizerNameBytes, StandardCharsets.UTF_8));
+		}
+		this.protocolVersion = buffer.get();
+		this.playerId = buffer.getShort();
+		for (Player player : players) {
+			player.setId(buffer.getShort());
+		}
+
+		long kickTableHash = KickTableCache.NO_HASH;
+		if (this.protocolVersion >= MessageConstants.PROTOCOL_KICK_CACHE && buffer.remaining() >= Long.BYTES) {
+			kickTableHash = buffer.getLong();
+		}
+		this.isKickTableOmitted = kickTableLength == 0 && kickTableHash != KickTableCache.NO_HASH;
 		PieceFactory kickTable;
-		try {
-			kickTable = new PieceFactory(kickTableJSON);
-		} catch (ParseException e) {
-			//there should probably be a new exception for this
-			throw new IllegalStateException("Could not parse kick table.");
+		if (isKickTableOmitted) {
+			kickTable = KickTableCache.get(kickTableHash);
+			if (kickTable == null) {
+				this.isKickTableMissing = true;
+				return;
+			}
+		}
+		else {
+			try {
+				kickTable = KickTableCache.getOrParse(kickTableHash, kickTableBytes);
+			} catch (ParseException e) {
+				//there should probably be a new exception for this
+				throw new IllegalStateException("Could not parse kick table.");
+			}
 		}
-		this.settings = new GameSettings(numPreviews, kickTable, boardHeight, boardWidth, detector);
+		this.settings = new GameSettings(numPreviews, kickTable, boardHeight, boardWidth, detector, randomizer);
 	}
 }
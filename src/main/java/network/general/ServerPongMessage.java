@@ -0,0 +1,40 @@
+package network.general;
+
+import java.nio.ByteBuffer;
+
+public class ServerPongMessage extends MessageSerializer {
+	//as it was in the ping
+	public long clientTime;
+	//the server's System.nanoTime when it answered
+	public long serverTime;
+
+	public ServerPongMessage(byte[] data) {
+		super(data);
+	}
+
+	public ServerPongMessage(long clientTime, long serverTime) {
+		this.clientTime = clientTime;
+		this.serverTime = serverTime;
+	}
+
+	@Override
+	public byte[] serialize() {
+		byte[] data = new byte[2 + 2 * Long.BYTES];
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		buffer.put(MessageConstants.SERVER);
+		buffer.put(MessageConstants.MESSAGE_SERVER_PONG);
+		buffer.putLong(clientTime);
+		buffer.putLong(serverTime);
+		return data;
+	}
+
+	@Override
+	public void deserialize(byte[] data) {
+		if (data[0] != MessageConstants.SERVER || data[1] != MessageConstants.MESSAGE_SERVER_PONG) {
+			throw new IllegalArgumentException("Illegal message type given to deserialize.");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(data, 2, data.length - 2);
+		this.clientTime = buffer.getLong();
+		this.serverTime = buffer.getLong();
+	}
+}
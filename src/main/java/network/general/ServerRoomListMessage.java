@@ -0,0 +1,75 @@
+package network.general;
+
+import network.lobby.RoomInfo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ServerRoomListMessage extends MessageSerializer {
+	private static final byte IN_GAME_MASK = 0x01;
+
+	//the room the receiver is in after their request, empty if they're not in one
+	public String room;
+	public List<RoomInfo> rooms;
+
+	public ServerRoomListMessage(byte[] data) {
+		super(data);
+	}
+
+	public ServerRoomListMessage(String room, List<RoomInfo> rooms) {
+		this.room = room;
+		this.rooms = rooms;
+	}
+
+	@Override
+	public byte[] serialize() {
+		byte[] roomBytes = (room == null ? "" : room).getBytes(StandardCharsets.UTF_8);
+		byte[][] nameBytes = new byte[rooms.size()][];
+		int size = 2 + Short.BYTES + roomBytes.length + Short.BYTES;
+		for (int i = 0; i < rooms.size(); i++) {
+			nameBytes[i] = rooms.get(i).getName().getBytes(StandardCharsets.UTF_8);
+			size += Short.BYTES + nameBytes[i].length + Short.BYTES + Byte.BYTES;
+		}
+		byte[] data = new byte[size];
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		buffer.put(MessageConstants.SERVER);
+		buffer.put(MessageConstants.MESSAGE_SERVER_ROOM_LIST);
+		buffer.putShort((short) roomBytes.length);
+		buffer.put(roomBytes);
+		buffer.putShort((short) rooms.size());
+		for (int i = 0; i < rooms.size(); i++) {
+			RoomInfo info = rooms.get(i);
+			buffer.putShort((short) nameBytes[i].length);
+			buffer.put(nameBytes[i]);
+			buffer.putShort((short) info.getPlayerCount());
+			buffer.put(info.isInGame() ? IN_GAME_MASK : 0);
+		}
+		return data;
+	}
+
+	@Override
+	public void deserialize(byte[] data) {
+		if (data[0] != MessageConstants.SERVER || data[1] != MessageConstants.MESSAGE_SERVER_ROOM_LIST) {
+			throw new IllegalArgumentException("Illegal message type given to deserialize.");
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(data, 2, data.length - 2);
+		this.room = readString(buffer);
+		int count = buffer.getShort() & 0xFFFF;
+		this.rooms = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String name = readString(buffer);
+			int playerCount = buffer.getShort() & 0xFFFF;
+			byte flags = buffer.get();
+			rooms.add(new RoomInfo(name, playerCount, (flags & IN_GAME_MASK) != 0));
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getShort() & 0xFFFF;
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
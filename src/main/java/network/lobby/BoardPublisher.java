@@ -0,0 +1,88 @@
+package network.lobby;
+
+import game.Action;
+import game.GLTrisSimulation;
+import game.Garbage;
+import game.SpinType;
+import game.callbacks.*;
+
+import java.util.List;
+
+//sends the local player's board when something changes it (a piece placed, a hold, garbage received) instead of on a timer
+//changes closer together than the minimum interval go out as one update, and an idle player sends nothing at all
+//a heartbeat interval above 0 also sends the falling piece's position that often while it's being moved
+//top outs aren't sent from here, they go out as soon as the game ends (see GameClient.sendGameOver)
+//the game has to be driven from a single thread, update is called from that thread too
+public class BoardPublisher {
+	private final GameClient client;
+	private final GLTrisSimulation game;
+	private final double minInterval;
+	private final double heartbeatInterval;
+
+	private ActionCallback actionCallback;
+	private GarbageQueuedCallback garbageCallback;
+	private PiecePlacedCallback piecePlacedCallback;
+
+	//the board as it starts goes out too
+	private boolean isChanged = true;
+	private boolean isPieceMoved = false;
+	private double sinceLastSent = 0.0;
+
+	public BoardPublisher(GameClient client, GLTrisSimulation game, double minInterval, double heartbeatInterval) {
+		this.client = client;
+		this.game = game;
+		this.minInterval = minInterval;
+		this.heartbeatInterval = heartbeatInterval;
+	}
+
+	public void start() {
+		actionCallback = (long frame, Action action) -> {
+			if (action == Action.HOLD) {
+				onChanged();
+			}
+			else {
+				onPieceMoved();
+			}
+		};
+		garbageCallback = (long frame, List<Garbage> garbage) -> {
+			onChanged();
+		};
+		piecePlacedCallback = (int rowsCleared, SpinType spinType, int attack) -> {
+			onChanged();
+		};
+		game.registerOnActionListener(actionCallback);
+		game.registerOnGarbageQueuedListener(garbageCallback);
+		game.registerOnPiecePlacedCallback(piecePlacedCallback);
+	}
+
+	private synchronized void onChanged() {
+		isChanged = true;
+	}
+
+	private synchronized void onPieceMoved() {
+		isPieceMoved = true;
+	}
+
+	//sends the board if it changed and the minimum interval has passed, or if the heartbeat is due
+	public synchronized void update(double dt) {
+		if (game.isGameOver()) {
+			return;
+		}
+		sinceLastSent += dt;
+		boolean isDue = isChanged ? sinceLastSent >= minInterval
+			: heartbeatInterval > 0 && isPieceMoved && sinceLastSent >= heartbeatInterval;
+		if (!isDue) {
+			return;
+		}
+		client.sendBoardUpdate(game.isGameOver(), game.getHeldPiece(), game.getPiecesDealt(), game.getCurrentPiece(), game.getGarbageQueue(), game.getBoard());
+		isChanged = false;
+		isPieceMoved = false;
+		sinceLastSent = 0.0;
+	}
+
+	public void stop() {
+		game.unregisterOnActionListener(actionCallback);
+		game.unregisterOnGarbageQueuedListener(garbageCallback);
+		game.unregisterOnPiecePlacedCallback(piecePlacedCallback);
+	}
+}
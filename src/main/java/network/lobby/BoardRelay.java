@@ -0,0 +1,100 @@
+package network.lobby;
+
+import network.general.BoardDelta;
+import network.general.BoardMessageView;
+import network.general.MessageConstants;
+import network.general.ServerBoardAckMessage;
+
+import java.net.SocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//board updates waiting to be relayed, at most one per sender
+//a newer board from a sender replaces its older one if that hasn't gone out yet, so a backed up relay never sends stale boards
+//every receiver gets the same latest board from each sender, at most with the time it arrived appended, so each payload is built once and shared
+//senders are only acknowledged once their board has gone out to everyone, so they never diff against a board someone skipped
+class BoardRelay {
+	public static final long FLUSH_INTERVAL_MS = 50;
+
+	private final GameRoom room;
+	private final Map<String, PendingBoard> pending = new LinkedHashMap<>();
+
+	BoardRelay(GameRoom room) {
+		this.room = room;
+	}
+
+	//receivedAt is when the network thread got the board, for the relay latency
+	synchronized void enqueue(String sender, SocketAddress senderAddress, int sequence, byte[] compact, long receivedAt) {
+		PendingBoard board = pending.get(sender);
+		if (board == null) {
+			board = new PendingBoard();
+			pending.put(sender, board);
+		}
+		board.senderAddress = senderAddress;
+		board.sequence = sequence;
+		board.compact = compact;
+		board.timed = null;
+		board.receivedAt = receivedAt;
+	}
+
+	//returns how many boards went out
+	synchronized int flush() {
+		int sent = pending.size();
+		for (PendingBoard board : pending.values()) {
+			send(board);
+		}
+		pending.clear();
+		return sent;
+	}
+
+	//sends whatever is waiting from this sender now, so it goes out before something that has to follow it
+	synchronized void flush(String sender) {
+		PendingBoard board = pending.remove(sender);
+		if (board != null) {
+			send(board);
+		}
+	}
+
+	private void send(PendingBoard board) {
+		for (Map.Entry<String, SocketAddress> client : room.clients.entrySet()) {
+			Player player = room.lobby.getPlayer(client.getKey());
+			if (player != null && player.getProtocolVersion() >= MessageConstants.PROTOCOL_TIMING && board.sequence != BoardDelta.NO_BASELINE) {
+				//stamped with when the board got here, which is closer to when it was sent than when it goes out
+				if (board.timed == null) {
+					board.timed = BoardMessageView.withServerTime(board.compact, board.receivedAt);
+				}
+				room.sendReliable(client.getValue(), board.timed);
+			}
+			else {
+				room.sendReliable(client.getValue(), board.compact);
+			}
+		}
+		//top outs have no board to acknowledge
+		if (board.sequence != BoardDelta.NO_BASELINE) {
+			room.sendRaw(board.senderAddress, new ServerBoardAckMessage(board.sequence).serialize());
+		}
+		room.server.metrics.relayLatency.record(System.nanoTime() - board.receivedAt);
+	}
+
+	synchronized void remove(String sender) {
+		pending.remove(sender);
+	}
+
+	//boards waiting for the next flush
+	synchronized int size() {
+		return pending.size();
+	}
+
+	synchronized void clear() {
+		pending.clear();
+	}
+
+	private static class PendingBoard {
+		SocketAddress senderAddress;
+		int sequence;
+		byte[] compact;
+		//compact with the server's clock appended, built on the first send that needs it
+		byte[] timed;
+		long receivedAt;
+	}
+}
@@ -0,0 +1,197 @@
+package network.lobby;
+
+import game.*;
+import game.bot.*;
+import org.joml.Random;
+import settings.GameSettings;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+//a headless player: joins a lobby like any other client, readies up, and lets a BeamSearchBot play every game on its own thread
+public class BotClient {
+	//boards are sent as they change, at most this often. bots move their pieces too quickly for a heartbeat to show anything
+	public static final double BOARD_UPDATE_INTERVAL = 0.1;
+	public static final int BEAM_WIDTH = 32;
+	public static final int SEARCH_DEPTH = 3;
+	public static final long TIME_BUDGET_NANOS = 20_000_000L;
+
+	private final GameClient client;
+	private final ForkJoinPool pool;
+	private final double piecesPerSecond;
+	private final double boardUpdateInterval;
+	private final int beamWidth;
+	private final int searchDepth;
+
+	//garbage arrives on the network thread, the game thread drains it between ticks
+	private final Queue<List<Garbage>> incomingGarbage = new ConcurrentLinkedQueue<>();
+	private final Random rng = new Random();
+
+	private GLTrisSimulation game;
+	private BotController controller;
+	//lockstep games send the bot's inputs instead of its board
+	private LockstepRecorder lockstepRecorder;
+	//other games send the bot's board whenever it changes
+	private BoardPublisher boardPublisher;
+	private Thread gameThread;
+	private volatile boolean isRunning = false;
+
+	public BotClient(InetAddress address, int port, String username, ForkJoinPool pool, double piecesPerSecond) {
+		this(address, port, username, pool, piecesPerSecond, BOARD_UPDATE_INTERVAL, BEAM_WIDTH, SEARCH_DEPTH);
+	}
+
+	//a narrower, shallower search makes for a weaker bot that's much cheaper to run, e.g. when running lots of them at once
+	public BotClient(InetAddress address, int port, String username, ForkJoinPool pool, double piecesPerSecond,
+					 double boardUpdateInterval, int beamWidth, int searchDepth) {
+		this.client = new GameClient(address, port, username);
+		this.pool = pool;
+		this.piecesPerSecond = piecesPerSecond;
+		this.boardUpdateInterval = boardUpdateInterval;
+		this.beamWidth = beamWidth;
+		this.searchDepth = searchDepth;
+
+		client.registerOnGamePrepare(() -> {
+			prepareGame();
+		});
+		client.registerOnGameStart(() -> {
+			startGame();
+		});
+		client.registerOnGarbageReceived((List<Garbage> garbage) -> {
+			incomingGarbage.add(garbage);
+		});
+		client.registerOnGameFinish((String winner) -> {
+			stopGame();
+			client.sendReadyState(false, true);
+		});
+		//players start out not ready in a room they've just joined
+		client.registerOnRoomList((String currentRoom, List<RoomInfo> rooms) -> {
+			client.sendReadyState(false, true);
+		});
+	}
+
+	public boolean start() {
+		if (!client.start()) {
+			return false;
+		}
+		client.sendUsername();
+		client.sendReadyState(false, true);
+		return true;
+	}
+
+	public void joinRoom(String room, boolean isCreating) {
+		client.joinRoom(room, isCreating);
+	}
+
+	private synchronized void prepareGame() {
+		stopGame();
+		GameSettings settings = client.getLobbySettings();
+		incomingGarbage.clear();
+		game = new GLTrisSimulation(settings, client.getSeed(), new Handling());
+		lockstepRecorder = null;
+		boardPublisher = null;
+		if (client.isLockstep()) {
+			lockstepRecorder = new LockstepRecorder(client, game);
+			lockstepRecorder.start();
+		}
+		else {
+			boardPublisher = new BoardPublisher(client, game, boardUpdateInterval, 0.0);
+			boardPublisher.start();
+		}
+		game.registerOnPiecePlacedCallback((int rowsCleared, SpinType spinType, int attack) -> {
+			//in lockstep the server works out attacks from our inputs
+			if (attack > 0 && lockstepRecorder == null) {
+				List<Garbage> garbage = new ArrayList<>();
+				garbage.add(new Garbage(attack, rng.nextInt(settings.getBoardWidth())));
+				client.sendGarbage(garbage);
+			}
+		});
+		game.registerOnGameOverListener(() -> {
+			if (lockstepRecorder == null) {
+				client.sendGameOver();
+			}
+		});
+		game.init();
+		BeamSearchBot bot = new BeamSearchBot(settings.getKickTable(), new HeuristicEvaluator(), pool, beamWidth, searchDepth, TIME_BUDGET_NANOS);
+		controller = new BotController(game, bot, pool, piecesPerSecond);
+	}
+
+	private synchronized void startGame() {
+		if (game == null || isRunning) {
+			return;
+		}
+		game.setStarted(true);
+		isRunning = true;
+		gameThread = new Thread(this::run, "Bot " + client.getUsername());
+		gameThread.setDaemon(true);
+		gameThread.start();
+	}
+
+	private void run() {
+		long lastTime = System.nanoTime();
+		double tickAccumulator = 0.0;
+		while (isRunning && !game.isGameOver()) {
+			long now = System.nanoTime();
+			double dt = (now - lastTime) / 1e9;
+			lastTime = now;
+
+			List<Garbage> garbage;
+			while ((garbage = incomingGarbage.poll()) != null) {
+				game.addQueueGarbage(garbage);
+			}
+			controller.update(dt);
+			tickAccumulator += dt;
+			while (tickAccumulator >= GLTrisSimulation.SPF) {
+				game.tick();
+				tickAccumulator -= GLTrisSimulation.SPF;
+			}
+
+			if (lockstepRecorder != null) {
+				lockstepRecorder.update();
+			}
+			if (boardPublisher != null) {
+				boardPublisher.update(dt);
+			}
+
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	//the finish callback can fire more than once per game, so this has to be safe to repeat
+	private synchronized void stopGame() {
+		isRunning = false;
+		if (controller != null) {
+			controller.cancel();
+		}
+		if (gameThread != null && gameThread != Thread.currentThread()) {
+			gameThread.interrupt();
+			try {
+				gameThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		gameThread = null;
+	}
+
+	public void close() {
+		stopGame();
+		client.disconnect();
+		client.close();
+	}
+
+	public String getUsername() {
+		return client.getUsername();
+	}
+
+	public GameClient getClient() {
+		return client;
+	}
+}
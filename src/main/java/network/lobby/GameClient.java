@@ -1,8 +1,11 @@
 package network.lobby;
 
+import game.GLTrisSimulation;
 import game.Garbage;
 import game.pieces.PieceBuilder;
+import game.pieces.PieceFactory;
 import game.pieces.util.*;
+import game.randomizer.PieceSequence;
 import network.Client;
 import network.ClientHandler;
 import network.general.*;
@@ -12,26 +15,86 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.SocketAddress;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class GameClient extends Client {
+	//the most queued events a frame dispatches, anything past that waits for the next frame
+	public static final int MAX_EVENTS_PER_FRAME = 64;
+	public static final long PING_INTERVAL_MS = 1000;
+	//pongs kept for the clock offset, the one with the shortest round trip spent the least time queued somewhere
+	static final int PING_SAMPLES = 8;
+
 	//TODO: handle server going down when it doesn't send a disconnect message (send client back to connection menu/main menu)
 	String username;
+	InetAddress address;
+	int port;
 
 	GameState state;
-	Map<String, Player> players = new HashMap<>();
-	GameSettings lobbySettings;
-
-	Set<OnStartGame> startGameCallbacks = new HashSet<>();
-	Set<OnPrepareGame> prepareCallbacks = new HashSet<>();
-	Set<OnGarbageReceived> garbageReceivedCallbacks = new HashSet<>();
-	Set<OnGameFinish> finishCallbacks = new HashSet<>();
-	Set<OnLobbyUpdate> lobbyUpdateCallbacks = new HashSet<>();
-	Set<OnBoardUpdate> boardUpdateCallbacks = new HashSet<>();
+	//written on the network thread, read from whichever thread the events are dispatched on
+	Map<String, Player> players = new ConcurrentHashMap<>();
+	//filled in from the lobby messages, so boards sent with player ids can be matched to a name
+	Map<Integer, String> playerNames = new ConcurrentHashMap<>();
+	//the protocol revision the server agreed to when we connected
+	//these are set on the network thread and read on the render or bot thread sending our board, hence volatile
+	volatile int protocolVersion = MessageConstants.PROTOCOL_MINIMUM;
+	volatile int playerId = Player.NO_ID;
+	volatile GameSettings lobbySettings;
+	volatile long seed;
+	//shared by every player in the current game, used to turn the piece counts in board updates back into queues
+	volatile PieceSequence pieceSequence;
+	//our own board updates are sent as deltas against the last one the server acknowledged
+	//encoded on the sending thread, acknowledged and reset on the network thread, it synchronizes itself
+	final BoardDeltaEncoder boardEncoder = new BoardDeltaEncoder();
+	//other players' boards are relayed as deltas too, one decoder per player
+	Map<String, BoardDeltaDecoder> boardDecoders = new ConcurrentHashMap<>();
+	//lockstep games send inputs instead of boards, other players' boards are re-simulated from theirs, one replica per player id
+	volatile boolean isLockstep = false;
+	Map<Integer, LockstepReplica> replicas = new HashMap<>();
+	//the room we're in on the server, null until the server says (servers without rooms never do)
+	String room;
+	//set before connecting, joined (or created) once we're in
+	String requestedRoom;
+
+	//copy-on-write, scenes register and unregister callbacks on the render thread while events are dispatched
+	Set<OnStartGame> startGameCallbacks = new CopyOnWriteArraySet<>();
+	Set<OnPrepareGame> prepareCallbacks = new CopyOnWriteArraySet<>();
+	Set<OnGarbageReceived> garbageReceivedCallbacks = new CopyOnWriteArraySet<>();
+	Set<OnGameFinish> finishCallbacks = new CopyOnWriteArraySet<>();
+	Set<OnLobbyUpdate> lobbyUpdateCallbacks = new CopyOnWriteArraySet<>();
+	Set<OnBoardUpdate> boardUpdateCallbacks = new CopyOnWriteArraySet<>();
+	Set<OnRoomList> roomListCallbacks = new CopyOnWriteArraySet<>();
+	//always called straight away on the thread sending or receiving, so they see traffic as it happens
+	Set<OnTraffic> trafficCallbacks = new CopyOnWriteArraySet<>();
+
+	//events the network thread has published, waiting for the thread that dispatches them. lock-free, only ever drained by that one thread
+	Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+	//off: events are dispatched on the network thread as they're published, e.g. for bots. on: they wait for dispatchEvents
+	volatile boolean isQueueingEvents = false;
+	//the board event each player has waiting, a newer one from the same player replaces it
+	Map<String, Object> pendingBoards = new ConcurrentHashMap<>();
+
+	ScheduledExecutorService pinger;
+	//only touched on the network thread
+	long[] pingRoundTrips = new long[PING_SAMPLES];
+	long[] pingOffsets = new long[PING_SAMPLES];
+	int pingCount;
+	//the server's System.nanoTime minus ours
+	volatile long clockOffset;
+	volatile boolean isClockSynced = false;
+	//smoothed round trip time in ns, -1 until the first pong
+	volatile long roundTrip = -1;
 
 	public GameClient(InetAddress dstAddress, int dstPort, String username) {
 		super(dstAddress, dstPort);
 		this.setHandler(new GLClientHandler(this));
 		this.username = username;
+		this.address = dstAddress;
+		this.port = dstPort;
 
 		this.state = GameState.LOBBY;
 		//this.lobbySettings = new GameSettings();
@@ -40,45 +103,267 @@ public class GameClient extends Client {
 	public void setAddress(InetAddress address, int port, String username) {
 		super.setAddress(address, port);
 		this.username = username;
+		this.address = address;
+		this.port = port;
 	}
 
 	public boolean start() {
+		//whatever was left over from the last connection isn't for this one
+		events.clear();
+		pendingBoards.clear();
+		pingCount = 0;
+		isClockSynced = false;
+		roundTrip = -1;
 		try {
 			this.connect();
 		} catch (IOException e) {
 			e.printStackTrace();
 			return false;
 		}
+		startPinging();
 		return true;
 	}
 
+	@Override
+	public void disconnect() {
+		stopPinging();
+		super.disconnect();
+	}
+
+	@Override
+	public void close() {
+		stopPinging();
+		super.close();
+	}
+
+	//pings go out raw, a lost one is just a missing sample, and a resent one would measure the resend
+	private void startPinging() {
+		stopPinging();
+		pinger = Executors.newSingleThreadScheduledExecutor((Runnable task) -> {
+			Thread thread = new Thread(task, "GameClient ping");
+			thread.setDaemon(true);
+			return thread;
+		});
+		pinger.scheduleAtFixedRate(() -> {
+			//a ping that throws would cancel every later one
+			try {
+				sendMessageRaw(new ClientPingMessage(System.nanoTime(), getLatency()).serialize());
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}, 0, PING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	private void stopPinging() {
+		if (pinger != null) {
+			pinger.shutdownNow();
+			pinger = null;
+		}
+	}
+
+	void onPong(long clientTime, long serverTime) {
+		long sample = System.nanoTime() - clientTime;
+		if (sample < 0) {
+			return;
+		}
+		int i = pingCount % PING_SAMPLES;
+		pingCount++;
+		pingRoundTrips[i] = sample;
+		//assumes the ping took as long to get there as the pong took to come back
+		pingOffsets[i] = serverTime - (clientTime + sample / 2);
+		int best = 0;
+		for (int j = 1; j < Math.min(pingCount, PING_SAMPLES); j++) {
+			if (pingRoundTrips[j] < pingRoundTrips[best]) {
+				best = j;
+			}
+		}
+		clockOffset = pingOffsets[best];
+		isClockSynced = true;
+		long smoothed = roundTrip;
+		roundTrip = smoothed < 0 ? sample : smoothed + (sample - smoothed) / 8;
+	}
+
+	//smoothed round trip time in ns, -1 until it's been measured
+	public long getRoundTrip() {
+		return roundTrip;
+	}
+
+	//in ms, Player.NO_LATENCY until it's been measured
+	public int getLatency() {
+		long roundTrip = this.roundTrip;
+		return roundTrip < 0 ? Player.NO_LATENCY : (int) Math.min(Integer.MAX_VALUE, roundTrip / 1_000_000);
+	}
+
+	//when a board was sent by its player, on our clock. boards without the server's clock count as sent when they arrived
+	long getBoardTime(BoardMessageView view) {
+		long now = System.nanoTime();
+		if (!view.hasServerTime() || !isClockSynced) {
+			return now;
+		}
+		//a bad offset estimate shouldn't put boards in the future
+		return Math.min(now, view.getServerTime() - clockOffset);
+	}
+
 	public String getUsername() {
 		return username;
 	}
 
+	public InetAddress getAddress() {
+		return address;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	//everything we send goes through these, so traffic callbacks see all of it
+	void sendMessage(byte[] data) {
+		sendReliable(data);
+		notifyTraffic(data, true);
+	}
+
+	void sendMessageRaw(byte[] data) {
+		sendRaw(data);
+		notifyTraffic(data, true);
+	}
+
+	//from now on events wait for dispatchEvents, which the thread that owns the listeners (e.g. the render thread) calls once a frame
+	public void setQueueingEvents(boolean isQueueingEvents) {
+		this.isQueueingEvents = isQueueingEvents;
+	}
+
+	void publish(Runnable event) {
+		if (isQueueingEvents) {
+			events.add(event);
+		}
+		else {
+			event.run();
+		}
+	}
+
+	//dispatches up to max queued events in the order they were published, returns how many there were
+	public int dispatchEvents(int max) {
+		int count = 0;
+		Runnable event;
+		while (count < max && (event = events.poll()) != null) {
+			event.run();
+			count++;
+		}
+		return count;
+	}
+
+	void notifyTraffic(byte[] data, boolean isSent) {
+		for (OnTraffic callback : trafficCallbacks) {
+			callback.onTraffic(data, isSent);
+		}
+	}
+
 	public void sendUsername() {
-		ClientConnectMessage message = new ClientConnectMessage(this.username);
-		sendReliable(message.serialize());
+		ClientConnectMessage message = new ClientConnectMessage(this.username, MessageConstants.PROTOCOL_VERSION, KickTableCache.getHashes());
+		sendMessage(message.serialize());
+	}
+
+	public void requestRooms() {
+		sendMessage(new ClientRoomMessage(ClientRoomMessage.REQUEST_LIST, "").serialize());
+	}
+
+	public void requestKickTable() {
+		sendMessage(new ClientRoomMessage(ClientRoomMessage.REQUEST_KICK_TABLE, "").serialize());
+	}
+
+	public void joinRoom(String room, boolean isCreating) {
+		byte request = isCreating ? ClientRoomMessage.REQUEST_JOIN_OR_CREATE : ClientRoomMessage.REQUEST_JOIN;
+		sendMessage(new ClientRoomMessage(request, room).serialize());
+	}
+
+	public void setRequestedRoom(String requestedRoom) {
+		this.requestedRoom = requestedRoom;
+	}
+
+	//moves to the room asked for before connecting, if there was one
+	public void joinRequestedRoom() {
+		if (requestedRoom != null && !requestedRoom.isBlank()) {
+			joinRoom(requestedRoom.trim(), true);
+		}
+	}
+
+	public String getRoom() {
+		return room;
 	}
 
 	public void sendReadyState(boolean isSpectating, boolean isReady) {
 		ClientReadyMessage message = new ClientReadyMessage(isSpectating, isReady);
-		sendReliable(message.serialize());
+		sendMessage(message.serialize());
 	}
 
 	public void sendGarbage(List<Garbage> garbage) {
 		ClientGarbageMessage message = new ClientGarbageMessage(username, garbage);
-		sendReliable(message.serialize());
+		sendMessage(message.serialize());
 	}
 
 	public void sendGameOver() {
-		ClientBoardMessage topOutMessage = new ClientBoardMessage(username, true, null, null, null, null, null);
-		sendReliable(topOutMessage.serialize());
+		ClientBoardMessage topOutMessage = new ClientBoardMessage(true, ClientBoardMessage.NO_PIECE, 0, null, null, null);
+		sendMessage(topOutMessage.serialize());
+	}
+
+	public void sendBoardUpdate(boolean gameOver, String hold, int piecesDealt, Piece currentPiece, int[] garbageQueue, TileState[][] board) {
+		BoardDelta delta = boardEncoder.encode(board);
+		ClientBoardMessage message = new ClientBoardMessage(gameOver, lobbySettings.getKickTable().findIndex(hold), piecesDealt, currentPiece, garbageQueue, delta);
+		sendMessageRaw(message.serialize());
+	}
+
+	public void sendInputs(InputChunk chunk) {
+		ClientInputMessage message = new ClientInputMessage(chunk);
+		sendMessage(message.serialize());
+	}
+
+	//re-simulates another player from their forwarded inputs, and hands the result out like a board update
+	void applyInputs(int playerId, InputChunk chunk) {
+		String name = getPlayerName(playerId);
+		if (name == null || name.equals(username) || lobbySettings == null) {
+			return;
+		}
+		//the server may have called their game over already, their replica stops there too
+		Player player = getPlayer(name);
+		if (player != null && !player.isAlive()) {
+			return;
+		}
+		LockstepReplica replica = replicas.computeIfAbsent(playerId, (Integer id) -> new LockstepReplica(lobbySettings, seed, false, (GLTrisSimulation simulation) -> {}));
+		boolean wasGameOver = replica.isGameOver();
+		if (replica.receive(chunk).isEmpty() || wasGameOver) {
+			return;
+		}
+		GLTrisSimulation simulation = replica.getSimulation();
+		Piece piece = simulation.getCurrentPiece();
+		//the simulation's tiles are rewritten by the next chunk, the callbacks get their own copy
+		TileState[][] tiles = simulation.getBoard();
+		TileState[][] board = new TileState[tiles.length][];
+		for (int i = 0; i < tiles.length; i++) {
+			board[i] = tiles[i].clone();
+		}
+		updatePlayer(name, simulation.isGameOver(), simulation.getHeldPiece(), simulation.getPiecesDealt(),
+			piece.getBottomLeftX(), piece.getBottomLeftY(), piece.getOrientation(), piece.getName(),
+			simulation.getGarbageQueue(), board, System.nanoTime());
 	}
 
-	public void sendBoardUpdate(boolean gameOver, String hold, String[] queue, Piece currentPiece, int[] garbageQueue, TileState[][] board) {
-		ClientBoardMessage message = new ClientBoardMessage(this.username, gameOver, hold, queue, currentPiece, garbageQueue, board);
-		sendRaw(message.serialize());
+	public boolean isLockstep() {
+		return isLockstep;
+	}
+
+	//board sequences start over every game
+	public void resetBoardDeltas() {
+		boardEncoder.reset();
+		boardDecoders.clear();
+	}
+
+	public void acknowledgeBoard(int sequence) {
+		boardEncoder.acknowledge(sequence);
+	}
+
+	//null if the update can't be decoded yet, e.g. its baseline was missed and the next keyframe hasn't arrived
+	TileState[][] decodeBoard(String username, byte[] data, int offset) {
+		BoardDeltaDecoder decoder = boardDecoders.computeIfAbsent(username, (String name) -> new BoardDeltaDecoder());
+		return decoder.decode(data, offset);
 	}
 
 	public GameSettings getLobbySettings() {
@@ -89,6 +374,15 @@ public class GameClient extends Client {
 		this.lobbySettings = lobbySettings;
 	}
 
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+		this.pieceSequence = new PieceSequence(lobbySettings.getRandomizer(), lobbySettings.getKickTable().getNames().length, seed);
+	}
+
 	public void registerOnGamePrepare(OnPrepareGame callback) {
 		prepareCallbacks.add(callback);
 	}
@@ -137,6 +431,22 @@ public class GameClient extends Client {
 		boardUpdateCallbacks.remove(callback);
 	}
 
+	public void registerOnRoomList(OnRoomList callback) {
+		roomListCallbacks.add(callback);
+	}
+
+	public void unregisterOnRoomList(OnRoomList callback) {
+		roomListCallbacks.remove(callback);
+	}
+
+	public void registerOnTraffic(OnTraffic callback) {
+		trafficCallbacks.add(callback);
+	}
+
+	public void unregisterOnTraffic(OnTraffic callback) {
+		trafficCallbacks.remove(callback);
+	}
+
 	public void triggerLobbyUpdate() {
 		List<Player> players = getPlayerList();
 		for (OnLobbyUpdate callback : this.lobbyUpdateCallbacks) {
@@ -144,17 +454,31 @@ public class GameClient extends Client {
 		}
 	}
 
-	public void updatePlayer(String username, boolean isToppedOut, String hold, String[] queue,
+	public void updatePlayer(String username, boolean isToppedOut, String hold, int piecesDealt,
 							 int pieceX, int pieceY, Orientation orientation, String pieceName,
-							 int[] garbageQueue, TileState[][] board) {
+							 int[] garbageQueue, TileState[][] board, long time) {
 		Player player = this.getPlayer(username);
-		if (player != null) {
-			if (isToppedOut) {
-				player.setAlive(false);
+		//a top out has no piece to show, and only the first one counts, lockstep games can report it twice
+		if (isToppedOut) {
+			if (player == null || !player.isAlive()) {
+				return;
 			}
+			player.setAlive(false);
+			//any board still waiting in the queue is older than this
+			pendingBoards.remove(username);
+			publish(() -> {
+				for (OnBoardUpdate callback : this.boardUpdateCallbacks) {
+					callback.onBoardUpdate(
+						username, true, hold, null,
+						0, 0, null, null,
+						null, null, time);
+				}
+			});
+			return;
 		}
 		PieceBuilder pieceBuilder = this.lobbySettings.getKickTable().getBuilder(pieceName);
-		if (pieceBuilder != null) {
+		if (pieceBuilder != null && orientation != null && pieceSequence != null) {
+			String[] queue = pieceSequence.getNames(this.lobbySettings.getKickTable(), piecesDealt, this.lobbySettings.getNumPreviews());
 			PieceColour colour = pieceBuilder.getPieceColour();
 			boolean[][] tileMap = null;
 			switch(orientation) {
@@ -171,12 +495,21 @@ public class GameClient extends Client {
 					tileMap = pieceBuilder.getTileMapR3();
 				}
 			}
-			for (OnBoardUpdate callback : this.boardUpdateCallbacks) {
-				callback.onBoardUpdate(
-					username, isToppedOut, hold, queue,
-					pieceX, pieceY, tileMap, colour,
-					garbageQueue, board);
-			}
+			boolean[][] pieceTileMap = tileMap;
+			//boards that haven't been dispatched yet are replaced by newer ones, so a slow frame catches up in one go
+			Object token = new Object();
+			pendingBoards.put(username, token);
+			publish(() -> {
+				if (!pendingBoards.remove(username, token)) {
+					return;
+				}
+				for (OnBoardUpdate callback : this.boardUpdateCallbacks) {
+					callback.onBoardUpdate(
+						username, false, hold, queue,
+						pieceX, pieceY, pieceTileMap, colour,
+						garbageQueue, board, time);
+				}
+			});
 		}
 	}
 
@@ -189,16 +522,42 @@ public class GameClient extends Client {
 		return true;
 	}
 
+	public int getProtocolVersion() {
+		return protocolVersion;
+	}
+
+	public int getPlayerId() {
+		return playerId;
+	}
+
+	void setPlayerId(String name, int id) {
+		if (id != Player.NO_ID) {
+			playerNames.put(id, name);
+			Player player = players.get(name);
+			if (player != null) {
+				player.setId(id);
+			}
+		}
+	}
+
+	public String getPlayerName(int id) {
+		return playerNames.get(id);
+	}
+
 	public Player getPlayer(String name) {
 		return players.get(name);
 	}
 
 	public void removePlayer(String name) {
-		players.remove(name);
+		Player player = players.remove(name);
+		if (player != null) {
+			playerNames.remove(player.getId());
+		}
 	}
 
 	public void clearPlayers() {
 		this.players.clear();
+		this.playerNames.clear();
 	}
 
 	public List<Player> getPlayerList() {
@@ -211,20 +570,26 @@ public class GameClient extends Client {
 
 	public void changeState(GameState state, String winningPlayer) {
 		changeState(state);
-		for (OnGameFinish callback : finishCallbacks) {
-			callback.onGameFinish(winningPlayer);
-		}
+		publish(() -> {
+			for (OnGameFinish callback : finishCallbacks) {
+				callback.onGameFinish(winningPlayer);
+			}
+		});
 	}
 
 	public void callStartGame() {
-		for (OnStartGame callback : this.startGameCallbacks) {
-			callback.onStartGame();
-		}
+		publish(() -> {
+			for (OnStartGame callback : this.startGameCallbacks) {
+				callback.onStartGame();
+			}
+		});
 	}
 }
 
 class GLClientHandler extends ClientHandler {
 	GameClient gameClient;
+	//only touched from the network thread, so one view is reused for every board update
+	BoardMessageView boardView = new BoardMessageView();
 
 	public GLClientHandler(GameClient gameClient) {
 		this.gameClient = gameClient;
@@ -242,25 +607,36 @@ class GLClientHandler extends ClientHandler {
 
 	@Override
 	public void onReceive(SocketAddress socketAddress, byte[] bytes) {
+		this.gameClient.notifyTraffic(bytes, false);
 		if (bytes[0] == MessageConstants.SERVER) {
 			switch (bytes[1]) {
 				case MessageConstants.MESSAGE_SERVER_LOBBY_STATE -> {
 					ServerLobbyStateMessage msg = new ServerLobbyStateMessage(bytes);
+					if (msg.isKickTableMissing) {
+						this.gameClient.requestKickTable();
+						return;
+					}
 					this.gameClient.setLobbySettings(msg.settings);
+					this.gameClient.protocolVersion = msg.protocolVersion;
+					this.gameClient.playerId = msg.playerId;
 					for (Player player : msg.players) {
 						this.gameClient.addPlayer(player.getName());
+						this.gameClient.setPlayerId(player.getName(), player.getId());
 						Player currentPlayer = this.gameClient.getPlayer(player.getName());
 						currentPlayer.setReady(player.isReady());
 						currentPlayer.setSpectator(player.isSpectator());
 					}
-					for (OnLobbyUpdate callback : this.gameClient.lobbyUpdateCallbacks) {
-						callback.onLobbyUpdate(msg.players);
-					}
+					this.gameClient.publish(() -> {
+						for (OnLobbyUpdate callback : this.gameClient.lobbyUpdateCallbacks) {
+							callback.onLobbyUpdate(msg.players);
+						}
+					});
 				}
 				case MessageConstants.MESSAGE_SERVER_LOBBY_UPDATE_PLAYER -> {
 					ServerLobbyPlayerUpdateMessage msg = new ServerLobbyPlayerUpdateMessage(bytes);
 					if (this.gameClient.getPlayer(msg.username) == null) {
 						this.gameClient.addPlayer(msg.username);
+						this.gameClient.setPlayerId(msg.username, msg.playerId);
 					}
 					else if (msg.isDisconnected) {
 						this.gameClient.removePlayer(msg.username);
@@ -271,22 +647,33 @@ class GLClientHandler extends ClientHandler {
 						player.setReady(msg.isReady);
 					}
 					List<Player> players = this.gameClient.getPlayerList();
-					for (OnLobbyUpdate callback : this.gameClient.lobbyUpdateCallbacks) {
-						callback.onLobbyUpdate(players);
-					}
+					this.gameClient.publish(() -> {
+						for (OnLobbyUpdate callback : this.gameClient.lobbyUpdateCallbacks) {
+							callback.onLobbyUpdate(players);
+						}
+					});
 				}
 				case MessageConstants.MESSAGE_SERVER_COUNTDOWN -> {
 					ServerCountdownMessage msg = new ServerCountdownMessage(bytes);
 					if (msg.state == ServerCountdownMessage.TELL_EVERYONE_TO_PREPARE) {
+						this.gameClient.setSeed(msg.seed);
+						this.gameClient.resetBoardDeltas();
+						this.gameClient.isLockstep = msg.isLockstep;
+						this.gameClient.replicas.clear();
 						for (Player player : this.gameClient.players.values()) {
 							player.setReady(false);
+							player.setAlive(true);
 						}
 						this.gameClient.changeState(GameState.IN_GAME);
-						for (OnPrepareGame callback : this.gameClient.prepareCallbacks) {
-							callback.onPrepareGame();
-						}
+						this.gameClient.publish(() -> {
+							for (OnPrepareGame callback : this.gameClient.prepareCallbacks) {
+								callback.onPrepareGame();
+							}
+						});
 						ClientConfirmStartMessage prepMsg = new ClientConfirmStartMessage();
-						sendReliable(prepMsg.serialize());
+						byte[] prepData = prepMsg.serialize();
+						sendReliable(prepData);
+						this.gameClient.notifyTraffic(prepData, true);
 					}
 					if (msg.state == ServerCountdownMessage.START) {
 						this.gameClient.callStartGame();
@@ -294,23 +681,87 @@ class GLClientHandler extends ClientHandler {
 				}
 				case MessageConstants.MESSAGE_SERVER_GARBAGE -> {
 					ServerGarbageMessage msg = new ServerGarbageMessage(bytes);
-					for (OnGarbageReceived callback : this.gameClient.garbageReceivedCallbacks) {
-						callback.onGarbageReceived(msg.garbage);
-					}
+					this.gameClient.publish(() -> {
+						for (OnGarbageReceived callback : this.gameClient.garbageReceivedCallbacks) {
+							callback.onGarbageReceived(msg.garbage);
+						}
+					});
 				}
 				case MessageConstants.MESSAGE_SERVER_GAME_END -> {
 					ServerGameEndMessage msg = new ServerGameEndMessage(bytes);
+					//also tells the finish callbacks
 					this.gameClient.changeState(GameState.LOBBY, msg.winningPlayer);
-					for (OnGameFinish callback : this.gameClient.finishCallbacks) {
-						callback.onGameFinish(msg.winningPlayer);
-					}
 				}
 				case MessageConstants.MESSAGE_SERVER_BOARD -> {
-					ServerBoardMessage msg = new ServerBoardMessage(bytes);
+					//servers only relay the compact layout
+					if (!BoardMessageView.isCompact(bytes)) {
+						return;
+					}
+					//read in place, names come from the kick table and player list so nothing is decoded from the message
+					BoardMessageView view = boardView.wrap(bytes);
+					long time = this.gameClient.getBoardTime(view);
+					String username = this.gameClient.getPlayerName(view.getPlayerId());
+					if (username == null) {
+						return;
+					}
+					PieceFactory kickTable = this.gameClient.getLobbySettings().getKickTable();
+					if (view.isToppedOut()) {
+						this.gameClient.updatePlayer(
+							username, true, kickTable.findName(view.getHoldIndex()), 0,
+							0, 0, null, kickTable.findName(view.getPieceIndex()),
+							null, null, time);
+						return;
+					}
+					TileState[][] board = this.gameClient.decodeBoard(username, bytes, view.getBoardOffset());
+					if (board == null) {
+						return;
+					}
 					this.gameClient.updatePlayer(
-						msg.username, msg.isToppedOut, msg.hold, msg.queue,
-						msg.pieceX, msg.pieceY, msg.pieceOrientation, msg.pieceName,
-						msg.garbageQueue, msg.board);
+						username, false, kickTable.findName(view.getHoldIndex()), view.getPiecesDealt(),
+						view.getPieceX(), view.getPieceY(), view.getPieceOrientation(), kickTable.findName(view.getPieceIndex()),
+						view.getGarbageQueue(), board, time);
+				}
+				case MessageConstants.MESSAGE_SERVER_INPUT -> {
+					ServerInputMessage msg = new ServerInputMessage(bytes);
+					this.gameClient.applyInputs(msg.playerId, msg.chunk);
+				}
+				case MessageConstants.MESSAGE_SERVER_PONG -> {
+					ServerPongMessage msg = new ServerPongMessage(bytes);
+					this.gameClient.onPong(msg.clientTime, msg.serverTime);
+				}
+				case MessageConstants.MESSAGE_SERVER_LATENCY -> {
+					ServerLatencyMessage msg = new ServerLatencyMessage(bytes);
+					for (Map.Entry<Integer, Integer> latency : msg.latencies.entrySet()) {
+						String name = this.gameClient.getPlayerName(latency.getKey());
+						Player player = name == null ? null : this.gameClient.getPlayer(name);
+						if (player != null) {
+							player.setLatency(latency.getValue());
+						}
+					}
+					List<Player> players = this.gameClient.getPlayerList();
+					this.gameClient.publish(() -> {
+						for (OnLobbyUpdate callback : this.gameClient.lobbyUpdateCallbacks) {
+							callback.onLobbyUpdate(players);
+						}
+					});
+				}
+				case MessageConstants.MESSAGE_SERVER_ROOM_LIST -> {
+					ServerRoomListMessage msg = new ServerRoomListMessage(bytes);
+					if (!msg.room.equals(this.gameClient.room)) {
+						//a new room, its lobby state follows this
+						this.gameClient.room = msg.room;
+						this.gameClient.clearPlayers();
+						this.gameClient.changeState(GameState.LOBBY);
+					}
+					this.gameClient.publish(() -> {
+						for (OnRoomList callback : this.gameClient.roomListCallbacks) {
+							callback.onRoomList(msg.room, msg.rooms);
+						}
+					});
+				}
+				case MessageConstants.MESSAGE_SERVER_BOARD_ACK -> {
+					ServerBoardAckMessage msg = new ServerBoardAckMessage(bytes);
+					this.gameClient.acknowledgeBoard(msg.sequence);
 				}
 			}
 		}
@@ -0,0 +1,662 @@
+package network.lobby;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import game.GLTrisSimulation;
+import game.Garbage;
+import game.SpinType;
+import network.general.*;
+import org.joml.Random;
+import settings.GameSettings;
+
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.util.*;
+import java.util.concurrent.*;
+
+//one lobby on a GameServer and the games played in it
+//everything a room does runs on the one worker thread it's pinned to, so its state is never shared with the network thread or other rooms
+public class GameRoom {
+	//everyone starts out here when they connect, it's never closed
+	public static final String DEFAULT_ROOM = "lobby";
+	public static final int MAX_NAME_LENGTH = 32;
+	//starting a game: how long players get to confirm they've prepared before they're dropped
+	public static final long PREPARE_TIMEOUT_MS = 5000;
+	//how often players are told each other's round trip times, if any changed
+	public static final long LATENCY_INTERVAL_MS = 2000;
+
+	final String name;
+	final GameServer server;
+	final ScheduledExecutorService worker;
+	ServerLobby lobby;
+	Random rng = new Random();
+	BiMap<String, SocketAddress> clients = HashBiMap.create();
+	//board updates are forwarded with their deltas untouched, receivers decode against the same baselines the sender diffed against
+	BoardRelay boardRelay = new BoardRelay(this);
+	ScheduledFuture<?> relayFlush;
+	GarbageTargeting targeting;
+	//attacks are sent on the next flush, everything for the same target in one message
+	Map<String, List<Garbage>> pendingGarbage = new LinkedHashMap<>();
+	boolean isLockstepEnabled;
+	//lockstep games: every player is re-simulated from their inputs, which is also where their attacks come from
+	Map<String, LockstepReplica> replicas = new HashMap<>();
+	//starting a game: players that haven't confirmed they've prepared, the countdown starts once it's empty or the timeout drops them
+	Set<String> unprepared = new HashSet<>();
+	CompletableFuture<Void> allPrepared;
+	ScheduledFuture<?> prepareTimeout;
+	List<ScheduledFuture<?>> countdown = new ArrayList<>();
+	//only touched from the worker, so one view is reused for every board update
+	BoardMessageView boardView = new BoardMessageView();
+	//players' round trip times changed since they were last sent out
+	boolean isLatencyChanged;
+	ScheduledFuture<?> latencyUpdate;
+	//read by the server from other threads for the room list and the server panel
+	volatile RoomInfo info;
+	volatile List<Player> players = List.of();
+
+	GameRoom(String name, GameServer server, ScheduledExecutorService worker, GameSettings settings, boolean isLockstepEnabled, TargetingStrategy targeting) {
+		this.name = name;
+		this.server = server;
+		this.worker = worker;
+		this.lobby = new ServerLobby(settings);
+		this.isLockstepEnabled = isLockstepEnabled;
+		this.targeting = new GarbageTargeting(targeting, rng);
+		this.info = new RoomInfo(name, 0, false);
+		relayFlush = worker.scheduleAtFixedRate(guarded(() -> {
+			long start = System.nanoTime();
+			if (flushGarbage() + boardRelay.flush() > 0) {
+				server.metrics.tickDuration.record(System.nanoTime() - start);
+			}
+		}), BoardRelay.FLUSH_INTERVAL_MS, BoardRelay.FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		latencyUpdate = worker.scheduleAtFixedRate(guarded(this::sendLatencies), LATENCY_INTERVAL_MS, LATENCY_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public RoomInfo getInfo() {
+		return info;
+	}
+
+	//runs the task on the room's worker, after everything already queued for the room
+	public void execute(Runnable task) {
+		Runnable guardedTask = guarded(task);
+		worker.execute(() -> {
+			long start = System.nanoTime();
+			guardedTask.run();
+			server.metrics.taskDuration.record(System.nanoTime() - start);
+		});
+	}
+
+	//one bad message shouldn't take the room, or the other rooms on its worker, down with it
+	//scheduled tasks go through this too, the executor would otherwise cancel a repeating one for good the first time it throws
+	private Runnable guarded(Runnable task) {
+		return () -> {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				log("Error: " + e);
+				e.printStackTrace();
+			}
+		};
+	}
+
+	//called on the worker once the server has taken the room off its list, nothing else is queued for it after this
+	void close() {
+		relayFlush.cancel(false);
+		latencyUpdate.cancel(false);
+		cancelStart();
+		boardRelay.clear();
+		pendingGarbage.clear();
+	}
+
+	//the command's arguments come after it, the room's name (if it was given) is left on the end
+	void onCommand(String[] args) {
+		String command = args[0];
+		if (command.equals("kick")) {
+			kick(args[1]);
+			return;
+		}
+		if (command.equals("targeting")) {
+			TargetingStrategy strategy = TargetingStrategy.getEnum(args[1]);
+			targeting.setStrategy(strategy);
+			log("Targeting " + strategy.name().toLowerCase() + ".");
+			return;
+		}
+		ServerState state = lobby.getState();
+		if (state instanceof ServerLobby.LobbyState) {
+			switch(command) {
+				case "start" -> {
+					startGame();
+				}
+				default -> {
+					log("Could not parse command: \"" + command + "\" in state: LOBBY");
+				}
+			}
+		}
+		else if (state instanceof ServerLobby.InGameState) {
+			switch(command) {
+				case "end" -> {
+					log("Ending game.");
+					endGame(new ArrayList<>());
+				}
+				default -> {
+					log("Could not parse command: \"" + command + "\" in state: IN_GAME");
+				}
+			}
+		}
+	}
+
+	private void kick(String username) {
+		SocketAddress address = clients.get(username);
+		if (address == null) {
+			log("Could not find player: \"" + username + "\"");
+			return;
+		}
+		log("Kicking " + username + ".");
+		server.disconnect(address);
+	}
+
+	//the kick table is by far the biggest part, and left out if they already have it
+	private void sendLobbyState(SocketAddress address, Player player) {
+		long kickTableHash = lobby.getKickTable().getHash();
+		Set<Long> kickTables = server.kickTables.get(address);
+		ServerLobbyStateMessage response = new ServerLobbyStateMessage(lobby.getLobbySettings(), lobby.getPlayers().stream().toList(), false,
+			player.getProtocolVersion(), player.getId(), kickTables != null && kickTables.contains(kickTableHash));
+		server.sendReliable(address, response.serialize());
+		if (kickTables != null && player.getProtocolVersion() >= MessageConstants.PROTOCOL_KICK_CACHE) {
+			kickTables.add(kickTableHash);
+		}
+	}
+
+	//their cache didn't have the table after all, the hashes they advertised were cleared before this
+	void resendLobbyState(SocketAddress address) {
+		String username = clients.inverse().get(address);
+		Player player = username == null ? null : lobby.getPlayer(username);
+		if (player == null) {
+			return;
+		}
+		sendLobbyState(address, player);
+	}
+
+	//false if someone in the room already has the name
+	boolean join(SocketAddress address, String username, int protocolVersion) {
+		if (!lobby.addPlayer(username)) {
+			return false;
+		}
+		Player player = lobby.getPlayer(username);
+		//speak the newest revision both sides know
+		player.setProtocolVersion(Math.min(protocolVersion, MessageConstants.PROTOCOL_VERSION));
+		clients.put(username, address);
+		log(username + " has connected.");
+		updateUsers();
+		server.sendReliable(address, server.getRoomListMessage(name).serialize());
+		sendLobbyState(address, player);
+		ServerLobbyPlayerUpdateMessage updatePlayer = new ServerLobbyPlayerUpdateMessage(username, player.getId(), false, false, false);
+		sendAll(updatePlayer);
+		return true;
+	}
+
+	//the player that was at this address, null if there wasn't one
+	Player leave(SocketAddress address) {
+		String username = clients.inverse().remove(address);
+		if (username == null) {
+			return null;
+		}
+		Player removed = lobby.removePlayer(username);
+		boardRelay.remove(username);
+		replicas.remove(username);
+		boolean wasAlive = targeting.isAlive(username);
+		targeting.remove(username);
+		onLeft(username);
+		log(username + " has disconnected.");
+		ServerLobbyPlayerUpdateMessage disconnectMessage = new ServerLobbyPlayerUpdateMessage(username, removed == null ? Player.NO_ID : removed.getId(), true, false, false);
+		sendAll(disconnectMessage);
+		updateUsers();
+		//leaving mid game is as good as topping out
+		if (wasAlive && targeting.getLivingCount() <= 1 && !(lobby.getState() instanceof ServerLobby.LobbyState)) {
+			endGame(getLivingPlayers());
+		}
+		return removed;
+	}
+
+	public void startGame() {
+		if (!(lobby.getState() instanceof ServerLobby.LobbyState)) {
+			log("Could not start game; a game is already running.");
+			return;
+		}
+		if (lobby.getPlayers().size() <= 0) {
+			log("Could not start game; there are no players in the lobby.");
+			return;
+		}
+		for (Player player : lobby.getPlayers()) {
+			if (!(player.isSpectator() || player.isReady())) {
+				log("Could not start game; one or more players are not ready.");
+				return;
+			}
+		}
+
+		log("Waiting for players to synchronize.");
+
+		lobby.changeState(GameState.IN_GAME);
+		clearBoardDeltas();
+		pendingGarbage.clear();
+
+		//a fresh seed every game, everyone gets the same pieces
+		long seed = Random.newSeed();
+		boolean isLockstep = isLockstepEnabled;
+		for (Player player : lobby.getPlayers()) {
+			isLockstep &= player.getProtocolVersion() >= MessageConstants.PROTOCOL_LOCKSTEP;
+		}
+		replicas.clear();
+		if (isLockstep) {
+			for (Player player : lobby.getPlayers()) {
+				if (!player.isSpectator()) {
+					String name = player.getName();
+					replicas.put(name, new LockstepReplica(lobby.getLobbySettings(), seed, true, (GLTrisSimulation simulation) -> {
+						simulation.registerOnPiecePlacedCallback((int rowsCleared, SpinType spinType, int attack) -> {
+							if (attack > 0) {
+								sendLockstepGarbage(name, attack);
+							}
+						});
+					}));
+				}
+			}
+			log("Playing in lockstep.");
+		}
+		cancelStart();
+		for (Player player : lobby.getPlayers()) {
+			player.setPrepared(false);
+			unprepared.add(player.getName());
+		}
+		CompletableFuture<Void> prepared = new CompletableFuture<>();
+		allPrepared = prepared;
+		prepared.thenRunAsync(() -> {
+			startCountdown(prepared);
+		}, this::execute);
+		prepareTimeout = worker.schedule(guarded(() -> {
+			dropUnprepared(prepared);
+		}), PREPARE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+		ServerCountdownMessage countdownMessage = new ServerCountdownMessage(ServerCountdownMessage.TELL_EVERYONE_TO_PREPARE, seed, isLockstep);
+		sendAll(countdownMessage);
+		updateUsers();
+	}
+
+	//a player confirmed they've prepared for the game being started
+	void onPrepared(String username) {
+		Player player = lobby.getPlayer(username);
+		if (player == null || allPrepared == null || allPrepared.isDone()) {
+			return;
+		}
+		player.setPrepared(true);
+		log(username + " is prepared");
+		onNoLongerWaitingOn(username);
+	}
+
+	//a player left, the game being started doesn't wait for them any more
+	void onLeft(String username) {
+		if (allPrepared != null && !allPrepared.isDone()) {
+			onNoLongerWaitingOn(username);
+		}
+	}
+
+	private void onNoLongerWaitingOn(String username) {
+		if (unprepared.remove(username) && unprepared.isEmpty()) {
+			prepareTimeout.cancel(false);
+			allPrepared.complete(null);
+		}
+	}
+
+	//whoever hasn't prepared by now is dropped, the game starts without them
+	private void dropUnprepared(CompletableFuture<Void> prepared) {
+		if (prepared != allPrepared || prepared.isDone()) {
+			return;
+		}
+		//they're out of the room before the countdown counts who's playing, disconnecting them only finishes on a later task
+		List<String> names = new ArrayList<>(unprepared);
+		unprepared.clear();
+		List<SocketAddress> dropped = new ArrayList<>();
+		for (String username : names) {
+			log(username + " did not prepare in time, disconnecting them.");
+			SocketAddress address = clients.get(username);
+			if (address != null) {
+				leave(address);
+				dropped.add(address);
+			}
+		}
+		prepared.complete(null);
+		for (SocketAddress address : dropped) {
+			server.disconnect(address);
+		}
+	}
+
+	private void startCountdown(CompletableFuture<Void> prepared) {
+		if (prepared != allPrepared) {
+			return;
+		}
+		allPrepared = null;
+		if (lobby.getPlayers().isEmpty()) {
+			endGame(new ArrayList<>());
+			return;
+		}
+		List<String> living = new ArrayList<>();
+		for (Player player : lobby.getPlayers()) {
+			player.setPrepared(false);
+			player.setAlive(!player.isSpectator());
+			if (player.isAlive()) {
+				living.add(player.getName());
+			}
+		}
+		targeting.reset(living);
+		for (byte i = 3; i >= 0; i--) {
+			byte state = i;
+			countdown.add(worker.schedule(guarded(() -> {
+				ServerCountdownMessage message = new ServerCountdownMessage(state);
+				sendAll(message);
+				if (state == ServerCountdownMessage.START) {
+					log("Game started.");
+				}
+				else {
+					log("Starting game in: " + message.state);
+				}
+			}), 1000L * (3 - i), TimeUnit.MILLISECONDS));
+		}
+	}
+
+	//stops a start that's still waiting on players or counting down
+	private void cancelStart() {
+		if (allPrepared != null) {
+			allPrepared.cancel(false);
+			allPrepared = null;
+		}
+		if (prepareTimeout != null) {
+			prepareTimeout.cancel(false);
+			prepareTimeout = null;
+		}
+		for (ScheduledFuture<?> step : countdown) {
+			step.cancel(false);
+		}
+		countdown.clear();
+		unprepared.clear();
+	}
+
+	public void endGame(List<Player> livingPlayers) {
+		cancelStart();
+		lobby.changeState(GameState.LOBBY);
+		replicas.clear();
+		targeting.reset(List.of());
+		pendingGarbage.clear();
+		String winningPlayer = livingPlayers.size() == 1 ? livingPlayers.get(0).getName() : "Game aborted.";
+		if (livingPlayers.size() == 1) {
+			log(winningPlayer + " has won.");
+		}
+		else {
+			log("Game ended with no winner.");
+		}
+		ServerGameEndMessage endMessage = new ServerGameEndMessage(winningPlayer);
+		sendAll(endMessage);
+		updateUsers();
+	}
+
+	//a player's client reported its round trip time
+	void onLatency(SocketAddress address, int latency) {
+		String username = clients.inverse().get(address);
+		Player player = username == null ? null : lobby.getPlayer(username);
+		if (player == null || player.getLatency() == latency) {
+			return;
+		}
+		player.setLatency(latency);
+		isLatencyChanged = true;
+	}
+
+	private void sendLatencies() {
+		if (!isLatencyChanged) {
+			return;
+		}
+		isLatencyChanged = false;
+		Map<Integer, Integer> latencies = new LinkedHashMap<>();
+		for (Player player : lobby.getPlayers()) {
+			if (player.getLatency() != Player.NO_LATENCY) {
+				latencies.put(player.getId(), player.getLatency());
+			}
+		}
+		byte[] data = new ServerLatencyMessage(latencies).serialize();
+		for (Map.Entry<String, SocketAddress> client : clients.entrySet()) {
+			Player player = lobby.getPlayer(client.getKey());
+			if (player != null && player.getProtocolVersion() >= MessageConstants.PROTOCOL_TIMING) {
+				sendReliable(client.getValue(), data);
+			}
+		}
+		//the server panel shows them too
+		updateUsers();
+	}
+
+	public void log(String s) {
+		server.log("[" + name + "] " + s);
+	}
+
+	public void updateUsers() {
+		players = List.copyOf(lobby.getPlayers());
+		info = new RoomInfo(name, players.size(), lobby.getState() instanceof ServerLobby.InGameState);
+		server.updateUsers();
+	}
+
+	void clearBoardDeltas() {
+		boardRelay.clear();
+	}
+
+	void sendAll(MessageSerializer message) {
+		byte[] data = message.serialize();
+		for (SocketAddress address : clients.values()) {
+			server.sendReliable(address, data);
+		}
+	}
+
+	void sendAllExcept(String username, byte[] data) {
+		for (Map.Entry<String, SocketAddress> client : clients.entrySet()) {
+			if (!client.getKey().equals(username)) {
+				server.sendReliable(client.getValue(), data);
+			}
+		}
+	}
+
+	void sendReliable(SocketAddress address, byte[] data) {
+		server.sendReliable(address, data);
+	}
+
+	void sendRaw(SocketAddress address, byte[] data) {
+		server.sendRaw(address, data);
+	}
+
+	//a living player other than the sender picked by the room's targeting, null if there's no one to send to
+	String pickGarbageTarget(String sender) {
+		return targeting.pick(sender);
+	}
+
+	//picks a target for the attack now, it's sent with the next flush
+	void queueGarbage(String sender, List<Garbage> garbage) {
+		String target = pickGarbageTarget(sender);
+		if (target == null) {
+			return;
+		}
+		int lines = 0;
+		for (Garbage attack : garbage) {
+			lines += attack.amount;
+		}
+		targeting.onSent(sender, target, lines);
+		pendingGarbage.computeIfAbsent(target, (String name) -> new ArrayList<>()).addAll(garbage);
+	}
+
+	//returns how many messages it sent. garbage for players that have topped out or left since is dropped
+	int flushGarbage() {
+		if (pendingGarbage.isEmpty()) {
+			return 0;
+		}
+		int sent = 0;
+		for (Map.Entry<String, List<Garbage>> pending : pendingGarbage.entrySet()) {
+			String target = pending.getKey();
+			SocketAddress destination = clients.get(target);
+			if (destination == null || !targeting.isAlive(target)) {
+				continue;
+			}
+			List<Garbage> garbage = pending.getValue();
+			LockstepReplica replica = replicas.get(target);
+			if (replica != null) {
+				//expected before it's sent, so the target's inputs can't mention it first
+				replica.expectGarbage(garbage);
+			}
+			sendReliable(destination, new ServerGarbageMessage(garbage).serialize());
+			sent++;
+		}
+		pendingGarbage.clear();
+		return sent;
+	}
+
+	//lockstep games: attacks come from the server's re-simulation of the sender rather than from the sender
+	void sendLockstepGarbage(String sender, int attack) {
+		List<Garbage> garbage = new ArrayList<>();
+		garbage.add(new Garbage(attack, rng.nextInt(lobby.getLobbySettings().getBoardWidth())));
+		queueGarbage(sender, garbage);
+	}
+
+	//a lockstep player's re-simulation topped out, or their inputs couldn't be trusted any more
+	void lockstepTopOut(String username, boolean isDesynced) {
+		Player player = lobby.getPlayer(username);
+		if (player == null || !player.isAlive()) {
+			return;
+		}
+		player.setAlive(false);
+		targeting.remove(username);
+		if (isDesynced) {
+			log(username + "'s inputs did not match the server's simulation, counting it as a top out.");
+			//everyone else's replica of them stops here too, so they're told about the top out directly
+			ServerBoardMessage compactMessage = new ServerBoardMessage(player.getId(), true, ServerBoardMessage.NO_PIECE, 0,
+				0, 0, null, ServerBoardMessage.NO_PIECE, null, null);
+			sendAllExcept(username, compactMessage.serialize());
+		}
+		if (targeting.getLivingCount() <= 1) {
+			endGame(getLivingPlayers());
+		}
+	}
+
+	public List<Player> getLivingPlayers() {
+		return lobby.getPlayers().stream()
+			.filter((Player player) -> {
+				return player.isAlive();
+			})
+			.toList();
+	}
+
+	//everything but connecting, which the server handles since it decides the room. receivedAt is when the network thread got it
+	void onReceive(SocketAddress socketAddress, byte[] bytes, long receivedAt) {
+		//sent before they left, or before they were let in
+		if (!clients.containsValue(socketAddress)) {
+			return;
+		}
+		if (bytes[0] == MessageConstants.CLIENT) {
+			switch (bytes[1]) {
+				case MessageConstants.MESSAGE_CLIENT_READY -> {
+					ClientReadyMessage msg = new ClientReadyMessage(bytes);
+					String username = clients.inverse().get(socketAddress);
+					Player player = lobby.getPlayer(username);
+					player.setReady(msg.isReady);
+					player.setSpectator(msg.isSpectating);
+					ServerLobbyPlayerUpdateMessage updatePlayer = new ServerLobbyPlayerUpdateMessage(username, player.getId(), false, msg.isReady, msg.isSpectating);
+					sendAll(updatePlayer);
+					log(username + " is " + (msg.isSpectating ? "spectating" : (msg.isReady ? "ready" : "not ready")) + ".");
+					updateUsers();
+
+				}
+				case MessageConstants.MESSAGE_CLIENT_CONFIRM_START -> {
+					//ClientConfirmStartMessage msg = new ClientConfirmStartMessage(bytes);
+					String username = clients.inverse().get(socketAddress);
+					if (username != null) {
+						onPrepared(username);
+					}
+				}
+				case MessageConstants.MESSAGE_CLIENT_GARBAGE -> {
+					//in lockstep games garbage only comes from the server's re-simulations
+					if (!replicas.isEmpty()) {
+						return;
+					}
+					//left over from the last game, or sent before the countdown has started
+					if (!(lobby.getState() instanceof ServerLobby.InGameState) || allPrepared != null) {
+						return;
+					}
+					ClientGarbageMessage msg = new ClientGarbageMessage(bytes);
+					if (targeting.getLivingCount() <= 1) {
+						endGame(getLivingPlayers());
+						return;
+					}
+					//redirect garbage to a player that's not the sender, the sender is who the message came from rather than who it says it's from
+					queueGarbage(clients.inverse().get(socketAddress), msg.garbage);
+				}
+				case MessageConstants.MESSAGE_CLIENT_INPUT -> {
+					String username = clients.inverse().get(socketAddress);
+					LockstepReplica replica = username == null ? null : replicas.get(username);
+					if (replica == null) {
+						return;
+					}
+					Player sender = lobby.getPlayer(username);
+					int senderId = sender == null ? Player.NO_ID : sender.getId();
+					ClientInputMessage msg;
+					try {
+						msg = new ClientInputMessage(bytes);
+					} catch (IllegalArgumentException | BufferUnderflowException e) {
+						//every chunk is needed to keep re-simulating, so a broken one ends their game
+						lockstepTopOut(username, true);
+						return;
+					}
+					//only inputs that check out are forwarded, the chunk just received goes out as it came in
+					List<InputChunk> applied = replica.receive(msg.chunk);
+					for (InputChunk chunk : applied) {
+						byte[] data = chunk == msg.chunk ? ClientInputMessage.toServerMessage(bytes, senderId) : new ServerInputMessage(senderId, chunk).serialize();
+						sendAllExcept(username, data);
+					}
+					if (!applied.isEmpty()) {
+						server.metrics.relayLatency.record(System.nanoTime() - receivedAt);
+					}
+					if (replica.isDesynced() || replica.isGameOver()) {
+						lockstepTopOut(username, replica.isDesynced());
+					}
+				}
+				case MessageConstants.MESSAGE_CLIENT_BOARD -> {
+					String username = clients.inverse().get(socketAddress);
+					//lockstep players don't get a say in their own board
+					if (username == null || !replicas.isEmpty()) {
+						return;
+					}
+					Player sender = lobby.getPlayer(username);
+					int senderId = sender == null ? Player.NO_ID : sender.getId();
+					//checked and forwarded as is, only the header changes
+					//the board delta is forwarded untouched, receivers decode it against the same baselines the sender used
+					if (!BoardMessageView.isCompact(bytes)) {
+						log(username + " sent a board update in the string layout, which is no longer supported.");
+						return;
+					}
+					BoardMessageView view = boardView.wrap(bytes);
+					if (!view.isValid()) {
+						log(username + " sent a malformed board update.");
+						return;
+					}
+					boolean isToppedOut = view.isToppedOut();
+					int sequence = isToppedOut ? BoardDelta.NO_BASELINE : view.getBoardSequence();
+					byte[] compactData = view.toServerCompact(senderId);
+					if (isToppedOut) {
+						lobby.getPlayer(username).setAlive(false);
+						targeting.remove(username);
+						if (targeting.getLivingCount() <= 1) {
+							endGame(getLivingPlayers());
+						}
+					}
+					boardRelay.enqueue(username, socketAddress, sequence, compactData, receivedAt);
+					if (isToppedOut) {
+						//replaces any board still waiting, and shouldn't wait for the next flush itself
+						boardRelay.flush(username);
+					}
+				}
+			}
+		}
+	}
+}
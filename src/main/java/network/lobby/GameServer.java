@@ -1,408 +1,498 @@
 package network.lobby;
 
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
 import network.Server;
 import network.ServerHandler;
 import network.general.*;
-import org.joml.Random;
-import server_interface.ServerPanel;
+import server_interface.AsyncLogger;
+import server_interface.ServerObserver;
 import settings.*;
 
 import java.io.IOException;
 import java.net.SocketAddress;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+//hosts any number of rooms behind one port. rooms are spread over one worker thread per core and each room stays on its worker,
+//so game traffic is handed straight to the room's worker and never waits on anything shared with other rooms
+//the only lock is the server's own, held while clients move between rooms
 public class GameServer extends Server {
-	ServerLobby lobby;
-	ServerPanel display;
-	Random rng = new Random();
-	BiMap<String, SocketAddress> clients = HashBiMap.create();
-
-	public GameServer(ServerSettings settings, ServerPanel display) throws IOException {
+	//anyone connected can open a room, this keeps them from opening them forever
+	public static final int MAX_ROOMS = 256;
+	//observers are sent the room lists at most this often, however often players come and go
+	public static final long ROOMS_UPDATE_INTERVAL_MS = 250;
+
+	//the server panel or the console, if there are any. nothing the rooms do waits on them
+	List<ServerObserver> observers = new CopyOnWriteArrayList<>();
+	AsyncLogger logger;
+	AtomicBoolean isRoomsChanged = new AtomicBoolean(true);
+	GameSettings gameSettings;
+	boolean isLockstepEnabled;
+	TargetingStrategy targeting;
+	ScheduledThreadPoolExecutor[] workers;
+	int[] roomsPerWorker;
+	GameRoom defaultRoom;
+	Map<String, GameRoom> rooms = new ConcurrentHashMap<>();
+	//the room each client is in, or is on their way to
+	Map<SocketAddress, GameRoom> roomsByAddress = new ConcurrentHashMap<>();
+	//how many clients are in each room, rooms other than the default one close once they're empty
+	Map<GameRoom, Integer> members = new HashMap<>();
+	//the kick tables each client has, by hash. added to as they're sent tables, so moving between rooms doesn't resend one
+	Map<SocketAddress, Set<Long>> kickTables = new ConcurrentHashMap<>();
+	ServerMetrics metrics = new ServerMetrics();
+	//reports on its own thread, so reading the metrics or updating the observers never holds up a room
+	ScheduledExecutorService reporter;
+	//where the metrics are written every report for servers run without a panel, null if they aren't
+	Path metricsFile;
+
+	public GameServer(ServerSettings settings) throws IOException {
 		super(settings.getPort());
 		this.setHandler(new GLServerHandler(this));
-		this.display = display;
-		display.addCommandCallback((String s) -> {
-			ServerState state = lobby.getState();
-			if (state instanceof ServerLobby.LobbyState) {
-				switch(s) {
-					case "start" -> {
-						startGame();
-					}
-					default -> {
-						display.log("Could not parse command: \"" + s + "\" in state: LOBBY");
-					}
-				}
-			}
-			else if (state instanceof ServerLobby.InGameState) {
-				switch(s) {
-					case "end" -> {
-						display.log("Ending game.");
-						endGame(new ArrayList<>());
-					}
-					default -> {
-						display.log("Could not parse command: \"" + s + "\" in state: IN_GAME");
-					}
-				}
+		logger = new AsyncLogger("GameServer log", (String lines) -> {
+			for (ServerObserver observer : observers) {
+				observer.appendLog(lines);
 			}
 		});
-		GameSettings gameSettings = new GameSettings(settings.getNumPreviews(), settings.getKickTable(), settings.getBoardHeight(), settings.getBoardWidth(), settings.getSpinDetector());
-		lobby = new ServerLobby(gameSettings);
+		gameSettings = new GameSettings(settings.getNumPreviews(), settings.getKickTable(), settings.getBoardHeight(), settings.getBoardWidth(), settings.getSpinDetector(), settings.getRandomizer());
+		isLockstepEnabled = settings.isLockstep();
+		targeting = settings.getTargeting();
+		workers = new ScheduledThreadPoolExecutor[Runtime.getRuntime().availableProcessors()];
+		roomsPerWorker = new int[workers.length];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new ScheduledThreadPoolExecutor(1, createThreadFactory("GameServer worker " + i));
+		}
+		reporter = Executors.newSingleThreadScheduledExecutor(createThreadFactory("GameServer metrics"));
+		metricsFile = settings.getMetricsFile().isBlank() ? null : Paths.get(settings.getMetricsFile());
+		defaultRoom = createRoom(GameRoom.DEFAULT_ROOM);
+	}
+
+	//the executor cancels a repeating task for good the first time it throws, so a bad report is logged and the next one still runs
+	private Runnable guarded(Runnable task) {
+		return () -> {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				log("Error: " + e);
+				e.printStackTrace();
+			}
+		};
+	}
+
+	private static ThreadFactory createThreadFactory(String threadName) {
+		return (Runnable runnable) -> {
+			Thread thread = new Thread(runnable, threadName);
+			thread.setDaemon(true);
+			return thread;
+		};
 	}
 
 	@Override
 	public void start() throws IOException {
 		super.start();
-		this.display.log("Started server.");
+		logger.start();
+		reporter.scheduleAtFixedRate(guarded(this::reportMetrics), ServerMetrics.REPORT_INTERVAL_MS, ServerMetrics.REPORT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		reporter.scheduleAtFixedRate(guarded(this::reportRooms), ROOMS_UPDATE_INTERVAL_MS, ROOMS_UPDATE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		log("Started server.");
 	}
 
-	public void startGame() {
-		if (lobby.getPlayers().size() <= 0) {
-			log("Could not start game; there are no players in the lobby.");
-			return;
-		}
-		for (Player player : lobby.getPlayers()) {
-			if (!(player.isSpectator() || player.isReady())) {
-				log("Could not start game; one or more players are not ready.");
-				return;
-			}
-		}
-
-		log("Waiting for players to synchronize.");
+	//every send goes through here to be counted
+	@Override
+	public void sendReliable(SocketAddress address, byte[] data) {
+		metrics.onSent(data);
+		super.sendReliable(address, data);
+	}
 
-		lobby.changeState(GameState.IN_GAME);
+	@Override
+	public void sendRaw(SocketAddress address, byte[] data) {
+		metrics.onSent(data);
+		super.sendRaw(address, data);
+	}
 
-		ServerCountdownMessage countdownMessage = new ServerCountdownMessage(ServerCountdownMessage.TELL_EVERYONE_TO_PREPARE);
-		sendAll(countdownMessage);
+	public ServerMetrics getMetrics() {
+		return metrics;
+	}
 
-		boolean isAllPrepped = false;
-		while (!isAllPrepped) {
-			isAllPrepped = true;
-			synchronized (lobby) {
-				for (Player player : lobby.getPlayers()) {
-					if (!player.isPrepared) {
-						isAllPrepped = false;
-						break;
-					}
+	private void reportMetrics() {
+		int[] queueDepths = new int[workers.length];
+		for (int i = 0; i < workers.length; i++) {
+			//the queue also holds every room's next relay flush, only what's due is actually waiting
+			for (Runnable task : workers[i].getQueue()) {
+				if (((Delayed) task).getDelay(TimeUnit.NANOSECONDS) <= 0) {
+					queueDepths[i]++;
 				}
 			}
 		}
-
-		synchronized (lobby) {
-			for (Player player : lobby.getPlayers()) {
-				player.setPrepared(false);
-				player.setAlive(!player.isSpectator());
+		Map<String, Integer> pendingBoards = new HashMap<>();
+		for (GameRoom room : rooms.values()) {
+			pendingBoards.put(room.getName(), room.boardRelay.size());
+		}
+		metrics.report(queueDepths, pendingBoards);
+		for (ServerObserver observer : observers) {
+			observer.updatePerformance(metrics.getText());
+		}
+		if (metricsFile != null) {
+			try {
+				//written next to it and moved over it, so whatever reads the file never sees half a report
+				Path temp = metricsFile.resolveSibling(metricsFile.getFileName() + ".tmp");
+				Files.writeString(temp, metrics.getReport().toJSONString());
+				Files.move(temp, metricsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				log("Could not write metrics to \"" + metricsFile + "\", no longer writing them: " + e);
+				metricsFile = null;
 			}
 		}
+	}
 
-		for (byte i = 3; i >= 0; i--) {
-			Timer timer = new Timer();
-			byte finalI = i;
-			timer.schedule(new TimerTask() {
-				@Override
-				public void run() {
-					ServerCountdownMessage countdown = new ServerCountdownMessage(finalI);
-					sendAll(countdown);
-					if (finalI == ServerCountdownMessage.START) {
-						log("Game started.");
-					}
-					else {
-						log("Starting game in: " + countdown.state);
-					}
+	public void registerObserver(ServerObserver observer) {
+		observers.add(observer);
+		isRoomsChanged.set(true);
+	}
+
+	public void unregisterObserver(ServerObserver observer) {
+		observers.remove(observer);
+	}
+
+	//from the server panel or the console. commands that act on a room take its name last, without one they go to the default room
+	public void onCommand(String s) {
+		String[] args = s.trim().split("\\s+");
+		switch (args[0]) {
+			case "" -> {
+				return;
+			}
+			case "help" -> {
+				log("Commands: start [room], end [room], kick <player> [room], targeting <random|even|attackers|kos> [room], status, rooms, metrics");
+				return;
+			}
+			case "metrics" -> {
+				log("Metrics:\n" + metrics.getText());
+				return;
+			}
+			case "rooms" -> {
+				for (GameRoom room : getRoomsByName().values()) {
+					RoomInfo info = room.getInfo();
+					log(info.getName() + ": " + info.getPlayerCount() + " players" + (info.isInGame() ? ", in game" : ""));
 				}
-			}, 1000L * (3 - i));
+				return;
+			}
+			case "status" -> {
+				log(getStatus());
+				return;
+			}
+		}
+		boolean hasArgument = args[0].equals("kick") || args[0].equals("targeting");
+		int roomArg = hasArgument ? 2 : 1;
+		if (args[0].equals("kick") && args.length < 2) {
+			log("Usage: kick <player> [room]");
+			return;
+		}
+		if (args[0].equals("targeting") && args.length < 2) {
+			log("Usage: targeting <random|even|attackers|kos> [room]");
+			return;
+		}
+		String roomName = args.length > roomArg ? args[roomArg] : GameRoom.DEFAULT_ROOM;
+		GameRoom room = rooms.get(roomName);
+		if (room == null) {
+			log("Could not find room: \"" + roomName + "\"");
+			return;
 		}
+		room.execute(() -> {
+			room.onCommand(args);
+		});
 	}
 
-	public void endGame(List<Player> livingPlayers) {
-		lobby.changeState(GameState.LOBBY);
-		String winningPlayer = livingPlayers.size() == 1 ? livingPlayers.get(0).getName() : "Game aborted.";
-		if (livingPlayers.size() == 1) {
-			log(winningPlayer + " has won.");
+	private String getStatus() {
+		StringBuilder s = new StringBuilder();
+		int players = 0;
+		int games = 0;
+		for (GameRoom room : rooms.values()) {
+			RoomInfo info = room.getInfo();
+			players += info.getPlayerCount();
+			games += info.isInGame() ? 1 : 0;
 		}
-		else {
-			log("Game ended with no winner.");
+		s.append(rooms.size()).append(" rooms, ").append(players).append(" players, ").append(games).append(" games running\n");
+		for (Map.Entry<String, GameRoom> room : getRoomsByName().entrySet()) {
+			s.append("[").append(room.getKey()).append("]").append(room.getValue().getInfo().isInGame() ? " in game" : "").append("\n");
+			for (Player player : room.getValue().players) {
+				String state = player.isSpectator() ? " spectating" : (player.isReady() ? " ready" : "");
+				String latency = player.getLatency() == Player.NO_LATENCY ? "" : " " + player.getLatency() + " ms";
+				s.append("  ").append(player.getName()).append(state).append(latency).append("\n");
+			}
 		}
-		ServerGameEndMessage endMessage = new ServerGameEndMessage(winningPlayer);
-		sendAll(endMessage);
-		updateUsers();
+		s.append(metrics.getText());
+		return s.toString();
 	}
 
-	public void log(String s) {
-		if (display == null) {
-			return;
-		}
-		display.log(s);
+	private Map<String, GameRoom> getRoomsByName() {
+		return new TreeMap<>(rooms);
 	}
 
-	public void updateUsers() {
-		if (display == null) {
-			return;
+	@Override
+	public void close() {
+		log("Stopping server.");
+		reporter.shutdownNow();
+		for (ScheduledExecutorService worker : workers) {
+			worker.shutdownNow();
 		}
-		display.updatePlayers(lobby.getPlayers());
+		metrics.close();
+		logger.close();
+		super.close();
 	}
 
-	void sendAll(MessageSerializer message) {
-		byte[] data = message.serialize();
-		super.sendAllReliable(data);
+	//null if there are too many rooms already. the room goes on whichever worker has the fewest
+	private synchronized GameRoom createRoom(String name) {
+		if (rooms.size() >= MAX_ROOMS) {
+			return null;
+		}
+		int worker = 0;
+		for (int i = 1; i < workers.length; i++) {
+			if (roomsPerWorker[i] < roomsPerWorker[worker]) {
+				worker = i;
+			}
+		}
+		roomsPerWorker[worker]++;
+		GameRoom room = new GameRoom(name, this, workers[worker], gameSettings, isLockstepEnabled, targeting);
+		rooms.put(name, room);
+		members.put(room, 0);
+		log("Opened room \"" + name + "\".");
+		return room;
 	}
 
-	public List<Player> getLivingPlayers() {
-		return lobby.getPlayers().stream()
-			.filter((Player player) -> {
-				return player.isAlive();
-			})
-			.toList();
+	private synchronized void assign(SocketAddress address, GameRoom room) {
+		GameRoom previous = roomsByAddress.put(address, room);
+		members.merge(room, 1, Integer::sum);
+		if (previous != null) {
+			release(previous);
+		}
 	}
-}
 
-class GLServerHandler extends ServerHandler {
-	GameServer gameServer;
-
-	public GLServerHandler(GameServer gameServer) {
-		this.gameServer = gameServer;
+	private synchronized void unassign(SocketAddress address, GameRoom room) {
+		if (roomsByAddress.remove(address, room)) {
+			release(room);
+		}
 	}
 
-	@Override
-	public void onConnect(SocketAddress socketAddress) {
+	private void release(GameRoom room) {
+		int count = members.merge(room, -1, Integer::sum);
+		if (count > 0 || room == defaultRoom) {
+			return;
+		}
+		rooms.remove(room.getName());
+		members.remove(room);
+		for (int i = 0; i < workers.length; i++) {
+			if (workers[i] == room.worker) {
+				roomsPerWorker[i]--;
+			}
+		}
+		//queued after whatever the room still has to do for the clients that left
+		room.execute(room::close);
+		log("Closed room \"" + room.getName() + "\".");
+	}
 
+	static boolean isValidRoomName(String name) {
+		return name != null && !name.isBlank() && name.length() <= GameRoom.MAX_NAME_LENGTH;
 	}
 
-	@Override
-	public void onDisconnect(SocketAddress socketAddress) {
-		String username = gameServer.clients.inverse().get(socketAddress);
-		gameServer.lobby.removePlayer(username);
-		gameServer.clients.inverse().remove(socketAddress);
-		gameServer.log(username + " has disconnected.");
-		gameServer.updateUsers();
-		ServerLobbyPlayerUpdateMessage disconnectMessage = new ServerLobbyPlayerUpdateMessage(username, true, false, false);
-		gameServer.sendAll(disconnectMessage);
+	//everyone starts in the default room
+	void connect(SocketAddress address, ClientConnectMessage msg) {
+		if (msg.protocolVersion < MessageConstants.PROTOCOL_MINIMUM) {
+			log(msg.username + " tried to connect with protocol revision " + msg.protocolVersion + ", at least " + MessageConstants.PROTOCOL_MINIMUM + " is needed.");
+			disconnect(address);
+			return;
+		}
+		synchronized (this) {
+			if (roomsByAddress.containsKey(address)) {
+				return;
+			}
+			Set<Long> hashes = ConcurrentHashMap.newKeySet();
+			for (long hash : msg.kickTableHashes) {
+				hashes.add(hash);
+			}
+			kickTables.put(address, hashes);
+			assign(address, defaultRoom);
+		}
+		joinRoom(address, defaultRoom, msg.username, msg.protocolVersion, null);
 	}
 
-	@Override
-	public void onReceive(SocketAddress socketAddress, byte[] bytes) {
-		if (bytes[0] == MessageConstants.CLIENT) {
-			switch (bytes[1]) {
-				case MessageConstants.MESSAGE_CLIENT_CONNECT -> {
-					ClientConnectMessage msg = new ClientConnectMessage(bytes);
-					if (!gameServer.lobby.addPlayer(msg.username)) {
-						disconnect(socketAddress);
-						gameServer.log(msg.username + " is already connected.");
-					}
-					else {
-						String username = msg.username;
-						gameServer.clients.put(username, socketAddress);
-						gameServer.log(msg.username + " has connected.");
-						ServerLobbyStateMessage response = new ServerLobbyStateMessage(gameServer.lobby.getLobbySettings(), gameServer.lobby.getPlayers().stream().toList(), false);
-						byte[] serializedResponse = response.serialize();
-						gameServer.sendReliable(socketAddress, serializedResponse);
-						ServerLobbyPlayerUpdateMessage updatePlayer = new ServerLobbyPlayerUpdateMessage(msg.username, false, false, false);
-						gameServer.sendAll(updatePlayer);
+	void onRoomRequest(SocketAddress address, ClientRoomMessage msg) {
+		GameRoom from = roomsByAddress.get(address);
+		if (from == null) {
+			return;
+		}
+		if (msg.request == ClientRoomMessage.REQUEST_LIST) {
+			sendReliable(address, getRoomListMessage(from.getName()).serialize());
+			return;
+		}
+		if (msg.request == ClientRoomMessage.REQUEST_KICK_TABLE) {
+			//none of what they advertised is trusted any more, so every table they're sent from now on is sent in full
+			Set<Long> hashes = kickTables.get(address);
+			if (hashes != null) {
+				hashes.clear();
+			}
+			from.execute(() -> {
+				from.resendLobbyState(address);
+			});
+			return;
+		}
+		GameRoom to;
+		synchronized (this) {
+			to = rooms.get(msg.room);
+			if (to == null && msg.request == ClientRoomMessage.REQUEST_JOIN_OR_CREATE && isValidRoomName(msg.room)) {
+				to = createRoom(msg.room);
+			}
+			if (to != null && to != from && roomsByAddress.get(address) == from) {
+				GameRoom target = to;
+				//queued before the move, so the room they're leaving doesn't close before they're out of it
+				from.execute(() -> {
+					Player player = from.leave(address);
+					if (player != null) {
+						joinRoom(address, target, player.getName(), player.getProtocolVersion(), from);
 					}
-					gameServer.updateUsers();
-				}
-				case MessageConstants.MESSAGE_CLIENT_READY -> {
-					ClientReadyMessage msg = new ClientReadyMessage(bytes);
-					String username = gameServer.clients.inverse().get(socketAddress);
-					Player player = gameServer.lobby.getPlayer(username);
-					player.setReady(msg.isReady);
-					player.setSpectator(msg.isSpectating);
-					ServerLobbyPlayerUpdateMessage updatePlayer = new ServerLobbyPlayerUpdateMessage(username, false, msg.isReady, msg.isSpectating);
-					gameServer.sendAll(updatePlayer);
-					gameServer.log(username + " is " + (msg.isSpectating ? "spectating" : (msg.isReady ? "ready" : "not ready")) + ".");
-					gameServer.updateUsers();
+				});
+				assign(address, to);
+				return;
+			}
+		}
+		//couldn't move, the list tells them they're still where they were
+		sendReliable(address, getRoomListMessage(from.getName()).serialize());
+	}
 
+	//if the room won't take them (someone there has their name) they go back to the fallback room, then the default one, then they're dropped
+	private void joinRoom(SocketAddress address, GameRoom room, String username, int protocolVersion, GameRoom fallback) {
+		room.execute(() -> {
+			//they disconnected on the way. if they've asked for another room since, the move is queued behind this
+			if (!roomsByAddress.containsKey(address)) {
+				return;
+			}
+			if (room.join(address, username, protocolVersion)) {
+				return;
+			}
+			room.log(username + " is already connected.");
+			GameRoom next = fallback;
+			synchronized (this) {
+				if (next != null && rooms.get(next.getName()) != next) {
+					next = defaultRoom;
 				}
-				case MessageConstants.MESSAGE_CLIENT_CONFIRM_START -> {
-					//ClientConfirmStartMessage msg = new ClientConfirmStartMessage(bytes);
-					String username = gameServer.clients.inverse().get(socketAddress);
-					gameServer.lobby.getPlayer(username).setPrepared(true);
-					gameServer.log(username + " is prepared");
-				}
-				case MessageConstants.MESSAGE_CLIENT_GARBAGE -> {
-					ClientGarbageMessage msg = new ClientGarbageMessage(bytes);
-					//redirect garbage to a player that's not the sender
-					List<Player> livingPlayers = gameServer.getLivingPlayers();
-					if (livingPlayers.size() <= 1) {
-						gameServer.endGame(livingPlayers);
-						return;
-					}
-					Player[] playerList = new Player[livingPlayers.size()];
-					livingPlayers.toArray(playerList);
-					for (int i = 0; i < playerList.length; i++) {
-						if (playerList[i].getName().equals(msg.username)) {
-							Player temp = playerList[playerList.length - 1];
-							playerList[playerList.length - 1] = playerList[i];
-							playerList[i] = temp;
-						}
+				GameRoom current = roomsByAddress.get(address);
+				if (next == null || next == room || current != room) {
+					if (current != null) {
+						unassign(address, current);
 					}
-					int index = gameServer.rng.nextInt(playerList.length - 1);
-					String destinationName = playerList[index].name;
-					SocketAddress destination = gameServer.clients.get(destinationName);
-					ServerGarbageMessage send = new ServerGarbageMessage(msg.garbage);
-					sendReliable(destination, send.serialize());
+					next = null;
 				}
-				case MessageConstants.MESSAGE_CLIENT_BOARD -> {
-					ClientBoardMessage msg = new ClientBoardMessage(bytes);
-					String username = gameServer.clients.inverse().get(socketAddress);
-					if (msg.isToppedOut) {
-						gameServer.lobby.getPlayer(username).setAlive(!msg.isToppedOut);
-						List<Player> livingPlayers = gameServer.getLivingPlayers();
-						if (livingPlayers.size() <= 1) {
-							gameServer.endGame(livingPlayers);
-						}
-					}
-					ServerBoardMessage boardMessage = new ServerBoardMessage(
-						msg.username, msg.isToppedOut, msg.hold, msg.queue,
-						msg.pieceX, msg.pieceY, msg.pieceOrientation, msg.pieceName,
-						msg.garbageQueue, msg.board);
-					gameServer.sendAll(boardMessage);
+				else {
+					assign(address, next);
 				}
 			}
+			if (next == null) {
+				disconnect(address);
+				return;
+			}
+			joinRoom(address, next, username, protocolVersion, next == defaultRoom ? null : defaultRoom);
+		});
+	}
 
-			gameServer.updateUsers();
+	void onDisconnect(SocketAddress address) {
+		GameRoom room = roomsByAddress.get(address);
+		if (room == null) {
+			return;
 		}
+		room.execute(() -> {
+			room.leave(address);
+		});
+		unassign(address, room);
+		kickTables.remove(address);
 	}
 
+	//null if there's no room with that name
+	public GameRoom getRoom(String name) {
+		return rooms.get(name);
+	}
 
+	ServerRoomListMessage getRoomListMessage(String currentRoom) {
+		List<RoomInfo> infos = new ArrayList<>();
+		for (GameRoom room : rooms.values()) {
+			infos.add(room.getInfo());
+		}
+		infos.sort(Comparator.comparing(RoomInfo::getName));
+		return new ServerRoomListMessage(currentRoom, infos);
+	}
 
-	/*
-	@Override
-	public void onConnection() {
-
+	//queued for the observers, the caller never waits on them
+	public void log(String s) {
+		logger.log(s);
 	}
 
-	@Override
-	public void onDisconnectedByLocal(String s) {
-		onDisconnect(s);
+	//the observers see it on the next rooms update
+	public void updateUsers() {
+		isRoomsChanged.set(true);
 	}
 
-	@Override
-	public void onDisconnectedByRemote(String s) {
-		onDisconnect(s);
+	private void reportRooms() {
+		if (observers.isEmpty() || !isRoomsChanged.getAndSet(false)) {
+			return;
+		}
+		Map<String, List<Player>> players = new TreeMap<>();
+		for (GameRoom room : rooms.values()) {
+			players.put(room.getName(), room.players);
+		}
+		for (ServerObserver observer : observers) {
+			observer.updateRooms(players);
+		}
 	}
+}
 
-	private void onDisconnect(String s) {
-		gameServer.lobby.removePlayer(this.username);
-		gameServer.clients.remove(this.username);
-		gameServer.log(this.username + " has disconnected.");
-		gameServer.updateUsers();
-		ServerLobbyPlayerUpdateMessage disconnectMessage = new ServerLobbyPlayerUpdateMessage(this.username, true, false, false);
-		gameServer.sendAll(disconnectMessage);
+class GLServerHandler extends ServerHandler {
+	GameServer gameServer;
+
+	public GLServerHandler(GameServer gameServer) {
+		this.gameServer = gameServer;
 	}
 
 	@Override
-	public void onPacketReceived(byte[] bytes) {
-		byte[] data = new byte[bytes.length - 3];
-		System.arraycopy(bytes, 3, data, 0, data.length);
-		decodePacket(data);
+	public void onConnect(SocketAddress socketAddress) {
+
 	}
 
 	@Override
-	public void onReliablePacketReceived(byte[] bytes) {
-		byte[] data = new byte[bytes.length - 3];
-		System.arraycopy(bytes, 3, data, 0, data.length);
-		decodePacket(data);
+	public void onDisconnect(SocketAddress socketAddress) {
+		gameServer.onDisconnect(socketAddress);
 	}
 
-	private void decodePacket(byte[] bytes) {
+	//everything past connecting and picking a room is handled on the room's worker
+	@Override
+	public void onReceive(SocketAddress socketAddress, byte[] bytes) {
+		gameServer.metrics.onReceived(bytes);
 		if (bytes[0] == MessageConstants.CLIENT) {
 			switch (bytes[1]) {
 				case MessageConstants.MESSAGE_CLIENT_CONNECT -> {
-					ClientConnectMessage msg = new ClientConnectMessage(bytes);
-					if (!gameServer.lobby.addPlayer(msg.username)) {
-						this.rudp.disconnect(msg.username + " is already connected.");
-						gameServer.log(msg.username + " is already connected.");
-					}
-					else {
-						this.username = msg.username;
-						gameServer.clients.put(this.username, this.rudp);
-						gameServer.log(msg.username + " has connected.");
-						ServerLobbyStateMessage response = new ServerLobbyStateMessage(gameServer.lobby.getLobbySettings(), gameServer.lobby.getPlayers().stream().toList(), false);
-						byte[][] serializedResponse = response.serialize();
-						for (int i = 0; i < serializedResponse.length; i++) {
-							this.rudp.sendReliablePacket(serializedResponse[i]);
-						}
-						ServerLobbyPlayerUpdateMessage updatePlayer = new ServerLobbyPlayerUpdateMessage(msg.username, false, false, false);
-						gameServer.sendAll(updatePlayer);
-					}
-					gameServer.updateUsers();
+					gameServer.connect(socketAddress, new ClientConnectMessage(bytes));
 				}
-				case MessageConstants.MESSAGE_CLIENT_READY -> {
-					ClientReadyMessage msg = new ClientReadyMessage(bytes);
-					Player player = gameServer.lobby.getPlayer(this.username);
-					player.setReady(msg.isReady);
-					player.setSpectator(msg.isSpectating);
-					ServerLobbyPlayerUpdateMessage updatePlayer = new ServerLobbyPlayerUpdateMessage(this.username, false, msg.isReady, msg.isSpectating);
-					gameServer.sendAll(updatePlayer);
-					gameServer.log(this.username + " is " + (msg.isSpectating ? "spectating" : (msg.isReady ? "ready" : "not ready")) + ".");
-					gameServer.updateUsers();
-
+				case MessageConstants.MESSAGE_CLIENT_ROOM -> {
+					gameServer.onRoomRequest(socketAddress, new ClientRoomMessage(bytes));
 				}
-				case MessageConstants.MESSAGE_CLIENT_CONFIRM_START -> {
-					//ClientConfirmStartMessage msg = new ClientConfirmStartMessage(bytes);
-					synchronized (gameServer.lobby) {
-						gameServer.lobby.getPlayer(this.username).setPrepared(true);
+				case MessageConstants.MESSAGE_CLIENT_PING -> {
+					//answered here rather than on the room's worker, so the round trip doesn't include the room's queue
+					ClientPingMessage msg = new ClientPingMessage(bytes);
+					gameServer.sendRaw(socketAddress, new ServerPongMessage(msg.clientTime, System.nanoTime()).serialize());
+					GameRoom room = gameServer.roomsByAddress.get(socketAddress);
+					if (room != null && msg.latency != ClientPingMessage.NO_LATENCY) {
+						room.execute(() -> {
+							room.onLatency(socketAddress, msg.latency);
+						});
 					}
-					gameServer.log(this.username + " is prepared");
 				}
-				case MessageConstants.MESSAGE_CLIENT_GARBAGE -> {
-					ClientGarbageMessage msg = new ClientGarbageMessage(bytes);
-					//redirect garbage to a player that's not the sender
-					List<Player> livingPlayers = getLivingPlayers();
-					if (livingPlayers.size() <= 1) {
-						gameServer.endGame(livingPlayers);
-						return;
-					}
-					Player[] playerList = new Player[livingPlayers.size()];
-					livingPlayers.toArray(playerList);
-					for (int i = 0; i < playerList.length; i++) {
-						if (playerList[i].getName().equals(msg.username)) {
-							Player temp = playerList[playerList.length - 1];
-							playerList[playerList.length - 1] = playerList[i];
-							playerList[i] = temp;
-						}
+				default -> {
+					GameRoom room = gameServer.roomsByAddress.get(socketAddress);
+					if (room != null) {
+						long receivedAt = System.nanoTime();
+						room.execute(() -> {
+							gameServer.metrics.queueDelay.record(System.nanoTime() - receivedAt);
+							room.onReceive(socketAddress, bytes, receivedAt);
+						});
 					}
-					int index = gameServer.rng.nextInt(playerList.length - 1);
-					String destinationName = playerList[index].name;
-					RUDPClient destination = gameServer.clients.get(destinationName);
-					ServerGarbageMessage send = new ServerGarbageMessage(msg.garbage);
-					destination.sendReliablePacket(send.serialize());
-				}
-				case MessageConstants.MESSAGE_CLIENT_BOARD -> {
-					ClientBoardMessage msg = new ClientBoardMessage(bytes);
-					if (msg.isToppedOut) {
-						this.gameServer.lobby.getPlayer(username).setAlive(!msg.isToppedOut);
-						List<Player> livingPlayers = getLivingPlayers();
-						if (livingPlayers.size() <= 1) {
-							gameServer.endGame(livingPlayers);
-						}
-					}
-					ServerBoardMessage boardMessage = new ServerBoardMessage(
-						msg.username, msg.isToppedOut, msg.hold, msg.queue,
-						msg.pieceX, msg.pieceY, msg.pieceOrientation, msg.pieceName,
-						msg.garbageQueue, msg.board);
-					gameServer.sendAll(boardMessage);
 				}
 			}
 		}
 	}
-
-	private List<Player> getLivingPlayers() {
-		Collection<Player> players = gameServer.lobby.getPlayers();
-		List<Player> livingPlayers = new ArrayList<>();
-		for (Player player : players) {
-			if (player.isAlive()) {
-				livingPlayers.add(player);
-			}
-		}
-		return livingPlayers;
-	}
-
-	@Override
-	public void onRemoteStatsReturned(int sentRemote, int sentRemoteR, int receivedRemote, int receivedRemoteR) {
-		gameServer.log("sentRemote: " + sentRemote + ", sentRemoteR: " + sentRemote + ", receivedRemote: " + receivedRemote + ", receivedRemoteR: " + receivedRemoteR);
-	}
-	*/
 }
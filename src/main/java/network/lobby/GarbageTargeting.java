@@ -0,0 +1,167 @@
+package network.lobby;
+
+import org.joml.Random;
+
+import java.util.*;
+
+//picks who garbage goes to. the living players are kept in a list that's updated as they top out or leave,
+//so a pick is a couple of lookups rather than going through every player on every attack
+//only used from the room's worker
+class GarbageTargeting {
+	TargetingStrategy strategy;
+	Random rng;
+	//in no particular order, a player that's removed is swapped with the last one
+	List<String> living = new ArrayList<>();
+	Map<String, Integer> indices = new HashMap<>();
+	//even: where each player is up to in the living list
+	Map<String, Integer> cursors = new HashMap<>();
+	//attackers: who last sent each player garbage
+	Map<String, String> lastAttackers = new HashMap<>();
+	//KOs: how many lines each player has been sent this game, and the two living players that have been sent the most
+	Map<String, Integer> received = new HashMap<>();
+	String mostReceived;
+	String secondMostReceived;
+
+	GarbageTargeting(TargetingStrategy strategy, Random rng) {
+		this.strategy = strategy;
+		this.rng = rng;
+	}
+
+	TargetingStrategy getStrategy() {
+		return strategy;
+	}
+
+	void setStrategy(TargetingStrategy strategy) {
+		this.strategy = strategy;
+	}
+
+	//a new game with these players alive
+	void reset(Collection<String> players) {
+		living.clear();
+		indices.clear();
+		cursors.clear();
+		lastAttackers.clear();
+		received.clear();
+		mostReceived = null;
+		secondMostReceived = null;
+		for (String player : players) {
+			indices.put(player, living.size());
+			living.add(player);
+		}
+	}
+
+	int getLivingCount() {
+		return living.size();
+	}
+
+	boolean isAlive(String player) {
+		return indices.containsKey(player);
+	}
+
+	//the player topped out, or left mid game
+	void remove(String player) {
+		Integer index = indices.remove(player);
+		if (index == null) {
+			return;
+		}
+		String last = living.remove(living.size() - 1);
+		if (!last.equals(player)) {
+			living.set(index, last);
+			indices.put(last, index);
+		}
+		if (player.equals(mostReceived) || player.equals(secondMostReceived)) {
+			findMostReceived();
+		}
+	}
+
+	//a living player other than the sender, null if there's no one to send to
+	String pick(String sender) {
+		switch (strategy) {
+			case EVEN -> {
+				return pickNext(sender);
+			}
+			case ATTACKERS -> {
+				String attacker = lastAttackers.get(sender);
+				if (isTarget(sender, attacker)) {
+					return attacker;
+				}
+			}
+			case KOS -> {
+				if (isTarget(sender, mostReceived)) {
+					return mostReceived;
+				}
+				if (isTarget(sender, secondMostReceived)) {
+					return secondMostReceived;
+				}
+			}
+		}
+		return pickRandom(sender);
+	}
+
+	//the garbage was sent, for the strategies that go by who's been sending what
+	void onSent(String sender, String target, int lines) {
+		lastAttackers.put(target, sender);
+		int total = received.merge(target, lines, Integer::sum);
+		if (target.equals(mostReceived)) {
+			return;
+		}
+		if (mostReceived == null || total > received.get(mostReceived)) {
+			secondMostReceived = mostReceived;
+			mostReceived = target;
+		}
+		else if (secondMostReceived == null || target.equals(secondMostReceived) || total > received.get(secondMostReceived)) {
+			secondMostReceived = target;
+		}
+	}
+
+	private boolean isTarget(String sender, String target) {
+		return target != null && !target.equals(sender) && isAlive(target);
+	}
+
+	private String pickRandom(String sender) {
+		Integer senderIndex = indices.get(sender);
+		int count = senderIndex == null ? living.size() : living.size() - 1;
+		if (count <= 0) {
+			return null;
+		}
+		//one less than the number of living players, everything from the sender on shifts up one to skip them
+		int index = rng.nextInt(count);
+		if (senderIndex != null && index >= senderIndex) {
+			index++;
+		}
+		return living.get(index);
+	}
+
+	private String pickNext(String sender) {
+		int size = living.size();
+		Integer senderIndex = indices.get(sender);
+		if (size == 0 || (size == 1 && senderIndex != null)) {
+			return null;
+		}
+		int index = cursors.computeIfAbsent(sender, (String player) -> rng.nextInt(size)) % size;
+		if (senderIndex != null && index == senderIndex) {
+			index = (index + 1) % size;
+		}
+		cursors.put(sender, index + 1);
+		return living.get(index);
+	}
+
+	//only when one of the two tops out, so going through everyone is fine
+	private void findMostReceived() {
+		mostReceived = null;
+		secondMostReceived = null;
+		for (String player : living) {
+			Integer total = received.get(player);
+			if (total == null) {
+				continue;
+			}
+			if (mostReceived == null || total > received.get(mostReceived)) {
+				secondMostReceived = mostReceived;
+				mostReceived = player;
+			}
+			else if (secondMostReceived == null || total > received.get(secondMostReceived)) {
+				secondMostReceived = player;
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package network.lobby;
+
+import game.*;
+import game.callbacks.*;
+import network.general.InputChunk;
+
+import java.util.Arrays;
+import java.util.List;
+
+//records the local player's inputs and incoming garbage, and sends them as one chunk per piece placed for lockstep games
+//the game has to be driven from a single thread (ticks, actions and addQueueGarbage alike), update is called from that thread too
+public class LockstepRecorder {
+	private final GameClient client;
+	private final GLTrisSimulation game;
+
+	private ActionCallback actionCallback;
+	private GarbageQueuedCallback garbageCallback;
+	private PiecePlacedCallback piecePlacedCallback;
+
+	private long[] frames = new long[64];
+	private int[] tags = new int[64];
+	private int[][] garbage = new int[64][];
+	private int eventCount = 0;
+	private int sequence = 0;
+	private boolean hasPlaced = false;
+	private boolean isFinished = false;
+
+	public LockstepRecorder(GameClient client, GLTrisSimulation game) {
+		this.client = client;
+		this.game = game;
+	}
+
+	public void start() {
+		actionCallback = (long frame, Action action) -> {
+			record(frame, action.getVal(), null);
+		};
+		garbageCallback = (long frame, List<Garbage> garbage) -> {
+			int[] entries = new int[2 * garbage.size()];
+			for (int i = 0; i < garbage.size(); i++) {
+				entries[2 * i] = garbage.get(i).amount;
+				entries[2 * i + 1] = garbage.get(i).column;
+			}
+			record(frame, InputChunk.TAG_GARBAGE, entries);
+		};
+		piecePlacedCallback = (int rowsCleared, SpinType spinType, int attack) -> {
+			hasPlaced = true;
+		};
+		game.registerOnActionListener(actionCallback);
+		game.registerOnGarbageQueuedListener(garbageCallback);
+		game.registerOnPiecePlacedCallback(piecePlacedCallback);
+	}
+
+	private synchronized void record(long frame, int tag, int[] entries) {
+		if (eventCount == frames.length) {
+			frames = Arrays.copyOf(frames, 2 * eventCount);
+			tags = Arrays.copyOf(tags, 2 * eventCount);
+			garbage = Arrays.copyOf(garbage, 2 * eventCount);
+		}
+		frames[eventCount] = frame;
+		tags[eventCount] = tag;
+		garbage[eventCount] = entries;
+		eventCount++;
+	}
+
+	//sends what's been recorded if a piece was placed or the game ended since the last call
+	public synchronized void update() {
+		if (isFinished || !(hasPlaced || game.isGameOver())) {
+			return;
+		}
+		//the first chunk says what handling to re-simulate with
+		Handling handling = sequence == 0 ? game.getHandling() : null;
+		InputChunk chunk = new InputChunk(sequence, handling, game.isGameOver(), game.getPiecesDealt(), game.getBoardHash(),
+			eventCount, Arrays.copyOf(frames, eventCount), Arrays.copyOf(tags, eventCount), Arrays.copyOf(garbage, eventCount));
+		client.sendInputs(chunk);
+		sequence++;
+		Arrays.fill(garbage, 0, eventCount, null);
+		eventCount = 0;
+		hasPlaced = false;
+		isFinished = game.isGameOver();
+	}
+
+	public void stop() {
+		game.unregisterOnActionListener(actionCallback);
+		game.unregisterOnGarbageQueuedListener(garbageCallback);
+		game.unregisterOnPiecePlacedCallback(piecePlacedCallback);
+	}
+}
@@ -0,0 +1,128 @@
+package network.lobby;
+
+import game.Action;
+import game.GLTrisSimulation;
+import game.Garbage;
+import network.general.InputChunk;
+import settings.GameSettings;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+//re-simulates a player from their input chunks: on the server to check them, on other clients to show that player's board
+//chunks are applied strictly in sequence, one that arrives early waits for the ones before it
+//a chunk that doesn't re-simulate to what its sender said it would desyncs the replica for good, nothing after it is applied
+public class LockstepReplica {
+	//a chunk can't skip further ahead than this, so a bad frame number can't keep the simulation ticking forever
+	public static final long MAX_FRAME_GAP = 10L * 60 * GLTrisSimulation.TPS;
+	public static final int MAX_EARLY_CHUNKS = 64;
+
+	private final GameSettings settings;
+	private final long seed;
+	//called with the simulation once the first chunk says what handling to create it with, before anything is applied
+	private final Consumer<GLTrisSimulation> onCreate;
+	//the server checks reported garbage against what it actually sent, clients take it as given
+	private final boolean isCheckingGarbage;
+	private final Deque<Garbage> expectedGarbage = new ArrayDeque<>();
+
+	private GLTrisSimulation simulation;
+	private int nextSequence = 0;
+	private final Map<Integer, InputChunk> earlyChunks = new HashMap<>();
+	private boolean isDesynced = false;
+
+	public LockstepReplica(GameSettings settings, long seed, boolean isCheckingGarbage, Consumer<GLTrisSimulation> onCreate) {
+		this.settings = settings;
+		this.seed = seed;
+		this.isCheckingGarbage = isCheckingGarbage;
+		this.onCreate = onCreate;
+	}
+
+	//returns the chunks applied because of this one, in order. empty if it has to wait for an earlier one or the replica is desynced
+	public synchronized List<InputChunk> receive(InputChunk chunk) {
+		List<InputChunk> applied = new ArrayList<>();
+		if (isDesynced || chunk.sequence < nextSequence) {
+			return applied;
+		}
+		earlyChunks.put(chunk.sequence, chunk);
+		if (earlyChunks.size() > MAX_EARLY_CHUNKS) {
+			desync();
+			return applied;
+		}
+		InputChunk next;
+		while ((next = earlyChunks.remove(nextSequence)) != null) {
+			nextSequence++;
+			if (!apply(next)) {
+				desync();
+				break;
+			}
+			applied.add(next);
+		}
+		return applied;
+	}
+
+	//garbage the server has sent this player, which has to show up in their inputs in the same order
+	public synchronized void expectGarbage(List<Garbage> garbage) {
+		for (Garbage g : garbage) {
+			expectedGarbage.add(new Garbage(g.amount, g.column));
+		}
+	}
+
+	private boolean apply(InputChunk chunk) {
+		if (simulation == null) {
+			if (chunk.handling == null) {
+				return false;
+			}
+			simulation = new GLTrisSimulation(settings, seed, chunk.handling);
+			onCreate.accept(simulation);
+			simulation.init();
+			simulation.setStarted(true);
+		}
+		for (int i = 0; i < chunk.eventCount; i++) {
+			long frame = chunk.frames[i];
+			if (frame < simulation.getFrame() || frame - simulation.getFrame() > MAX_FRAME_GAP) {
+				return false;
+			}
+			while (simulation.getFrame() < frame && !simulation.isGameOver()) {
+				simulation.tick();
+			}
+			if (chunk.tags[i] == InputChunk.TAG_GARBAGE) {
+				List<Garbage> garbage = new ArrayList<>();
+				for (int j = 0; j < chunk.garbage[i].length; j += 2) {
+					Garbage g = new Garbage(chunk.garbage[i][j], chunk.garbage[i][j + 1]);
+					if (isCheckingGarbage) {
+						Garbage expected = expectedGarbage.poll();
+						if (expected == null || expected.amount != g.amount || expected.column != g.column) {
+							return false;
+						}
+					}
+					garbage.add(g);
+				}
+				simulation.addQueueGarbage(garbage);
+			}
+			else {
+				simulation.apply(Action.getEnum(chunk.tags[i]));
+			}
+		}
+		return simulation.getPiecesDealt() == chunk.piecesDealt
+			&& simulation.getBoardHash() == chunk.boardHash
+			&& simulation.isGameOver() == chunk.isGameOver;
+	}
+
+	private void desync() {
+		isDesynced = true;
+		earlyChunks.clear();
+	}
+
+	public synchronized boolean isDesynced() {
+		return isDesynced;
+	}
+
+	public synchronized boolean isGameOver() {
+		return simulation != null && simulation.isGameOver();
+	}
+
+	//null until the first chunk arrives
+	public GLTrisSimulation getSimulation() {
+		return simulation;
+	}
+}
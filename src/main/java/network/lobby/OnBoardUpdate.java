@@ -4,5 +4,6 @@ import game.pieces.util.PieceColour;
 import game.pieces.util.TileState;
 
 public interface OnBoardUpdate {
-	void onBoardUpdate(String username, boolean isToppedOut, String hold, String[] queue, int pieceX, int pieceY, boolean[][] tileMap, PieceColour pieceColour, int[] garbageQueue, TileState[][] board);
+	//time is when the board was sent, as best we can tell, in our System.nanoTime
+	void onBoardUpdate(String username, boolean isToppedOut, String hold, String[] queue, int pieceX, int pieceY, boolean[][] tileMap, PieceColour pieceColour, int[] garbageQueue, TileState[][] board, long time);
 }
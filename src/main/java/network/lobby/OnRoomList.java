@@ -0,0 +1,7 @@
+package network.lobby;
+
+import java.util.List;
+
+public interface OnRoomList {
+	void onRoomList(String currentRoom, List<RoomInfo> rooms);
+}
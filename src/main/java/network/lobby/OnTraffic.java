@@ -0,0 +1,6 @@
+package network.lobby;
+
+//every message a client sends or receives, as it goes over the wire. called on whichever thread sent or received it
+public interface OnTraffic {
+	void onTraffic(byte[] data, boolean isSent);
+}
@@ -1,13 +1,23 @@
 package network.lobby;
 
 import game.pieces.util.TileState;
+import network.general.MessageConstants;
 
 public class Player {
+	public static final int NO_ID = -1;
+	public static final int NO_LATENCY = -1;
+
 	String name;
+	//assigned by the server, NO_ID until it's known
+	int id = NO_ID;
+	//only tracked by the server, the protocol revision this player's client was agreed to speak
+	int protocolVersion = MessageConstants.PROTOCOL_MINIMUM;
 	boolean isReady = false;
 	boolean isSpectator = false;
 	boolean isAlive = true;
 	boolean isPrepared = false;
+	//round trip time in ms as the player's client measured it, NO_LATENCY until it's known
+	int latency = NO_LATENCY;
 	TileState[][] board;
 
 	public Player(String name) {
@@ -56,6 +66,22 @@ public class Player {
 		isAlive = alive;
 	}
 
+	public int getId() {
+		return id;
+	}
+
+	public void setId(int id) {
+		this.id = id;
+	}
+
+	public int getProtocolVersion() {
+		return protocolVersion;
+	}
+
+	public void setProtocolVersion(int protocolVersion) {
+		this.protocolVersion = protocolVersion;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -72,6 +98,14 @@ public class Player {
 		isPrepared = prepared;
 	}
 
+	public int getLatency() {
+		return latency;
+	}
+
+	public void setLatency(int latency) {
+		this.latency = latency;
+	}
+
 	public TileState[][] getBoard() {
 		return board;
 	}
@@ -0,0 +1,26 @@
+package network.lobby;
+
+//what the room list says about a room
+public class RoomInfo {
+	String name;
+	int playerCount;
+	boolean isInGame;
+
+	public RoomInfo(String name, int playerCount, boolean isInGame) {
+		this.name = name;
+		this.playerCount = playerCount;
+		this.isInGame = isInGame;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getPlayerCount() {
+		return playerCount;
+	}
+
+	public boolean isInGame() {
+		return isInGame;
+	}
+}
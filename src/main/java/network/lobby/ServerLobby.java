@@ -32,6 +32,8 @@ public class ServerLobby {
 	* */
 	ServerState state;
 	Map<String, Player> players = new HashMap<>();
+	//ids go out on the wire as shorts
+	private int nextPlayerId = 0;
 	GameSettings gameSettings;
 
 	public ServerLobby(GameSettings settings) {
@@ -85,7 +87,10 @@ public class ServerLobby {
 		if (players.containsKey(name)) {
 			return false;
 		}
-		players.put(name, new Player(name));
+		Player player = new Player(name);
+		player.setId(nextPlayerId);
+		nextPlayerId = (nextPlayerId + 1) % Short.MAX_VALUE;
+		players.put(name, player);
 		return true;
 	}
 
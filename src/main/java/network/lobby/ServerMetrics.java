@@ -0,0 +1,246 @@
+package network.lobby;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import util.LatencyHistogram;
+
+import javax.management.*;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+//counters and latency histograms for a GameServer, cheap enough to leave on: a count is a striped add, a histogram sample one atomic add
+//the reporter reads them once an interval, it's the only thing that resets anything
+public class ServerMetrics {
+	public static final long REPORT_INTERVAL_MS = 1000;
+	//by message type, anything past these is counted as "other"
+	static final String[] CLIENT_MESSAGES = {"connect", "ready", "confirm start", "garbage", "board", "input", "room", "target", "ping"};
+	static final String[] SERVER_MESSAGES = {"lobby state", "player update", "countdown", "garbage", "game end", "board", "board ack", "input", "room list", "pong", "latency"};
+
+	private final Traffic in = new Traffic("in", CLIENT_MESSAGES);
+	private final Traffic out = new Traffic("out", SERVER_MESSAGES);
+	//from the network thread receiving an input chunk or board to the room sending it on, boards include the wait for the next flush
+	final Histogram relayLatency = new Histogram("relay latency", "relayLatency");
+	//from the network thread receiving a message to the room's worker getting to it
+	final Histogram queueDelay = new Histogram("queue delay", "queueDelay");
+	//how long each task a room ran on its worker took
+	final Histogram taskDuration = new Histogram("room task", "taskDuration");
+	//how long each relay flush that had boards to send took, the closest thing the server has to a tick
+	final Histogram tickDuration = new Histogram("relay flush", "tickDuration");
+	final Histogram gcPauses = new Histogram("gc pause", "gcPauses");
+
+	private final long startedAt = System.nanoTime();
+	private long lastReportAt = startedAt;
+	private final Map<NotificationEmitter, NotificationListener> gcListeners = new HashMap<>();
+	private volatile JSONObject report = new JSONObject();
+	private volatile String text = "";
+
+	public ServerMetrics() {
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (collector instanceof NotificationEmitter emitter) {
+				NotificationListener listener = this::onGarbageCollection;
+				emitter.addNotificationListener(listener, null, null);
+				gcListeners.put(emitter, listener);
+			}
+		}
+	}
+
+	private void onGarbageCollection(Notification notification, Object handback) {
+		if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+			return;
+		}
+		GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+		//concurrent collectors also report their background cycles, which don't stop anything
+		String name = info.getGcName();
+		if (name.contains("Concurrent") || name.contains("Cycles")) {
+			return;
+		}
+		gcPauses.record(info.getGcInfo().getDuration() * 1_000_000L);
+	}
+
+	void onReceived(byte[] data) {
+		in.count(data);
+	}
+
+	void onSent(byte[] data) {
+		out.count(data);
+	}
+
+	//the latest report, as json for dumping to a file
+	public JSONObject getReport() {
+		return report;
+	}
+
+	//the latest report, as lines for the server panel or the console
+	public String getText() {
+		return text;
+	}
+
+	//called by the reporter once an interval with what it saw of the rooms and their workers
+	@SuppressWarnings(value = "unchecked")
+	synchronized void report(int[] workerQueueDepths, Map<String, Integer> pendingBoards) {
+		long now = System.nanoTime();
+		double seconds = Math.max(1e-9, (now - lastReportAt) / 1e9);
+		lastReportAt = now;
+		StringBuilder s = new StringBuilder();
+		JSONObject json = new JSONObject();
+		json.put("uptimeSeconds", (now - startedAt) / 1e9);
+		json.put("intervalSeconds", seconds);
+		json.put("in", in.report(seconds, s));
+		json.put("out", out.report(seconds, s));
+		Histogram[] histograms = {relayLatency, queueDelay, taskDuration, tickDuration, gcPauses};
+		for (Histogram histogram : histograms) {
+			json.put(histogram.key, histogram.report(s));
+		}
+
+		JSONArray queues = new JSONArray();
+		s.append("worker queues ");
+		for (int depth : workerQueueDepths) {
+			queues.add(depth);
+			s.append(" ").append(depth);
+		}
+		s.append("\n");
+		json.put("workerQueueDepth", queues);
+
+		JSONObject pending = new JSONObject();
+		s.append("pending boards");
+		int waiting = 0;
+		for (Map.Entry<String, Integer> room : new TreeMap<>(pendingBoards).entrySet()) {
+			pending.put(room.getKey(), room.getValue());
+			if (room.getValue() > 0) {
+				s.append(waiting == 0 ? "  " : ", ").append(room.getKey()).append(" ").append(room.getValue());
+				waiting++;
+			}
+		}
+		s.append(waiting == 0 ? "  none\n" : "\n");
+		json.put("pendingBoards", pending);
+
+		report = json;
+		text = s.toString();
+	}
+
+	void close() {
+		for (Map.Entry<NotificationEmitter, NotificationListener> listener : gcListeners.entrySet()) {
+			try {
+				listener.getKey().removeNotificationListener(listener.getValue());
+			} catch (ListenerNotFoundException e) {
+				//already gone
+			}
+		}
+		gcListeners.clear();
+	}
+
+	private static String getTypeName(String[] names, int type) {
+		return type < names.length ? names[type] : "other";
+	}
+
+	//messages and bytes one way, by type
+	private static class Traffic {
+		final String name;
+		final String[] types;
+		final LongAdder[] messages;
+		final LongAdder[] bytes;
+		//only touched by the reporter
+		final long[] totalMessages;
+		final long[] totalBytes;
+
+		Traffic(String name, String[] types) {
+			this.name = name;
+			this.types = types;
+			messages = new LongAdder[types.length + 1];
+			bytes = new LongAdder[types.length + 1];
+			for (int i = 0; i < messages.length; i++) {
+				messages[i] = new LongAdder();
+				bytes[i] = new LongAdder();
+			}
+			totalMessages = new long[messages.length];
+			totalBytes = new long[messages.length];
+		}
+
+		void count(byte[] data) {
+			int type = data.length < 2 || data[1] < 0 ? types.length : Math.min(data[1], types.length);
+			messages[type].increment();
+			bytes[type].add(data.length);
+		}
+
+		@SuppressWarnings(value = "unchecked")
+		JSONObject report(double seconds, StringBuilder s) {
+			JSONObject json = new JSONObject();
+			JSONObject byType = new JSONObject();
+			long intervalMessages = 0;
+			long intervalBytes = 0;
+			StringBuilder types = new StringBuilder();
+			for (int i = 0; i < messages.length; i++) {
+				long count = messages[i].sumThenReset();
+				long size = bytes[i].sumThenReset();
+				totalMessages[i] += count;
+				totalBytes[i] += size;
+				intervalMessages += count;
+				intervalBytes += size;
+				if (totalMessages[i] > 0) {
+					JSONObject type = new JSONObject();
+					type.put("messages", totalMessages[i]);
+					type.put("bytes", totalBytes[i]);
+					type.put("messagesPerSecond", count / seconds);
+					type.put("bytesPerSecond", size / seconds);
+					byType.put(getTypeName(this.types, i), type);
+				}
+				if (count > 0) {
+					types.append(types.length() == 0 ? "" : ", ").append(getTypeName(this.types, i)).append(" ").append(Math.round(count / seconds));
+				}
+			}
+			json.put("messages", Arrays.stream(totalMessages).sum());
+			json.put("bytes", Arrays.stream(totalBytes).sum());
+			json.put("messagesPerSecond", intervalMessages / seconds);
+			json.put("bytesPerSecond", intervalBytes / seconds);
+			json.put("types", byType);
+			s.append(String.format("%-4s %7.0f msg/s %9.1f KB/s", name, intervalMessages / seconds, intervalBytes / seconds / 1024));
+			s.append(types.length() == 0 ? "" : "  (" + types + ")").append("\n");
+			return json;
+		}
+	}
+
+	//samples since the last report, and everything since the server started
+	static class Histogram {
+		final String name;
+		final String key;
+		final LatencyHistogram interval = new LatencyHistogram();
+		//only touched by the reporter
+		final LatencyHistogram total = new LatencyHistogram();
+
+		Histogram(String name, String key) {
+			this.name = name;
+			this.key = key;
+		}
+
+		void record(long nanos) {
+			interval.record(nanos);
+		}
+
+		@SuppressWarnings(value = "unchecked")
+		JSONObject report(StringBuilder s) {
+			LatencyHistogram last = new LatencyHistogram();
+			interval.drainTo(last);
+			JSONObject json = toJson(last);
+			s.append(String.format("%-14s p50 %7.2f  p99 %7.2f  max %7.2f ms  (%d)%n", name,
+				last.getValueAtPercentile(0.50) / 1e6, last.getValueAtPercentile(0.99) / 1e6, last.getMax() / 1e6, last.getCount()));
+			last.drainTo(total);
+			json.put("total", toJson(total));
+			return json;
+		}
+
+		@SuppressWarnings(value = "unchecked")
+		private static JSONObject toJson(LatencyHistogram histogram) {
+			JSONObject json = new JSONObject();
+			json.put("count", histogram.getCount());
+			json.put("p50Ms", histogram.getValueAtPercentile(0.50) / 1e6);
+			json.put("p90Ms", histogram.getValueAtPercentile(0.90) / 1e6);
+			json.put("p99Ms", histogram.getValueAtPercentile(0.99) / 1e6);
+			json.put("maxMs", histogram.getMax() / 1e6);
+			return json;
+		}
+	}
+}
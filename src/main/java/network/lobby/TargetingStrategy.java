@@ -0,0 +1,33 @@
+package network.lobby;
+
+//who a player's garbage is sent to, picked from the living players other than the sender
+public enum TargetingStrategy {
+	//anyone
+	RANDOM,
+	//everyone in turn
+	EVEN,
+	//whoever last sent them garbage
+	ATTACKERS,
+	//whoever has been sent the most garbage this game, they're the closest to topping out
+	KOS;
+
+	public static TargetingStrategy getEnum(String name) {
+		if (name == null) {
+			return RANDOM;
+		}
+		switch (name.toUpperCase()) {
+			case "EVEN" -> {
+				return EVEN;
+			}
+			case "ATTACKERS" -> {
+				return ATTACKERS;
+			}
+			case "KOS" -> {
+				return KOS;
+			}
+			default -> {
+				return RANDOM;
+			}
+		}
+	}
+}
@@ -86,6 +86,7 @@ public class GameScene extends Scene{
 		super.init();
 
 		gameComponent.init();
+		gameComponent.startRecording();
 		gameComponent.setStarted(true);
 
 		backButton = new Button(Constants.VIEWPORT_W - 600 - 50, 50, false, 600, 100, 25,
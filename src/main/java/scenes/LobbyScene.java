@@ -14,6 +14,7 @@ import util.Constants;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.lwjgl.glfw.GLFW.GLFW_RELEASE;
 
@@ -31,6 +32,12 @@ public class LobbyScene extends Scene {
 
 	boolean isSpectating = false;
 	boolean isReady = false;
+	boolean isAutoplay = false;
+
+	//practice bots added from this client, they stay in the lobby across games until this client disconnects
+	static final double BOT_PIECES_PER_SECOND = 2.0;
+	static List<BotClient> bots = new ArrayList<>();
+	static ForkJoinPool botPool;
 
 	boolean prepareForGame = false;
 	Scene nextScene;
@@ -42,6 +49,7 @@ public class LobbyScene extends Scene {
 		super(windowID, client);
 		createUIElements();
 		this.client.sendUsername();
+		this.client.joinRequestedRoom();
 	}
 
 	LobbyScene(long windowID, GameClient client, String winner) {
@@ -86,6 +94,7 @@ public class LobbyScene extends Scene {
 			widgetTexture,
 			(double mouseX, double mouseY, int button, int action, int mods) -> {
 				if (action == GLFW_RELEASE) {
+					removeBots();
 					client.disconnect();
 					nextScene = new LobbySearchScene(windowID, client);
 					shouldChangeScene = true;
@@ -109,10 +118,47 @@ public class LobbyScene extends Scene {
 					client.sendReadyState(isSpectating, isReady);
 				}
 			}));
+		lobbyFrame.addComponent(new Button(Constants.VIEWPORT_W - 600 - 50, 290, true,
+			600, 100, 20, "Autoplay",
+			widgetTexture,
+			(double mouseX, double mouseY, int button, int action, int mods) -> {
+				if (action == GLFW_RELEASE) {
+					isAutoplay = !isAutoplay;
+				}
+			}));
+		lobbyFrame.addComponent(new Button(Constants.VIEWPORT_W - 600 - 50, 410, true,
+			600, 100, 20, "Add Bot",
+			widgetTexture,
+			(double mouseX, double mouseY, int button, int action, int mods) -> {
+				if (action == GLFW_RELEASE) {
+					addBot();
+				}
+			}));
 		topFrame.addComponent(lobbyFrame);
 		topFrame.addComponent(postGameFrame);
 	}
 
+	private void addBot() {
+		if (botPool == null) {
+			botPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+		}
+		BotClient bot = new BotClient(client.getAddress(), client.getPort(), "Bot " + (bots.size() + 1), botPool, BOT_PIECES_PER_SECOND);
+		if (bot.start()) {
+			//bots play in whichever room we're in
+			if (client.getRoom() != null) {
+				bot.joinRoom(client.getRoom(), false);
+			}
+			bots.add(bot);
+		}
+	}
+
+	private static void removeBots() {
+		for (BotClient bot : bots) {
+			bot.close();
+		}
+		bots.clear();
+	}
+
 	private void updatePlayers() {
 		synchronized (topFrame) {
 			float nameSize = 24.0f;
@@ -121,6 +167,10 @@ public class LobbyScene extends Scene {
 			for (Player player : players) {
 				String text = player.getName();
 				this.playerListFrame.addComponent(new TextComponent(20, acc, text, nameSize, 0.0f, 0.0f, 0.0f, true));
+				if (player.getLatency() != Player.NO_LATENCY) {
+					String latency = player.getLatency() + "ms";
+					this.playerListFrame.addComponent(new TextComponent(500 - 20 - (latency.length() + 2) * nameSize, acc, latency, nameSize, 0.5f, 0.5f, 0.5f, true));
+				}
 				if (player.isSpectator()) {
 					this.playerListFrame.addComponent(new TextComponent(500 - 20 - nameSize, acc, "S", nameSize, 0.25f, 0.5f, 1.0f, true));
 				}
@@ -139,8 +189,9 @@ public class LobbyScene extends Scene {
 
 	@Override
 	public void update(double dt) {
+		client.dispatchEvents(GameClient.MAX_EVENTS_PER_FRAME);
 		if (prepareForGame) {
-			nextScene = new MultiplayerGameScene(windowID, client, isSpectating);
+			nextScene = new MultiplayerGameScene(windowID, client, isSpectating, isAutoplay);
 			shouldChangeScene = true;
 		}
 	}
@@ -57,6 +57,9 @@ public class LobbySearchScene extends Scene{
 		TextField textFieldPort = new TextField((Constants.VIEWPORT_W - 500) * 0.5, Constants.VIEWPORT_H * 0.5 - 140, 500, 50, true,
 			"Port", "", 24, 0, 0, 0);
 		topFrame.addComponent(textFieldPort);
+		TextField textFieldRoom = new TextField((Constants.VIEWPORT_W - 500) * 0.5, Constants.VIEWPORT_H * 0.5 - 210, 500, 50, true,
+			"Room (optional)", "", 24, 0, 0, 0);
+		topFrame.addComponent(textFieldRoom);
 		topFrame.addComponent(new Button((Constants.VIEWPORT_W - BUTTON_WIDTH) * 0.5, 50, true,
 			BUTTON_WIDTH, BUTTON_HEIGHT, BUTTON_BORDER_WIDTH, "Join",
 			widgetTexture,
@@ -65,6 +68,7 @@ public class LobbySearchScene extends Scene{
 					try {
 						InetAddress address = InetAddress.getByName(textFieldIP.getText());
 						client.setAddress(address, Integer.parseInt(textFieldPort.getText()), textFieldUsername.getText());
+						client.setRequestedRoom(textFieldRoom.getText());
 						boolean foundServer = client.start();
 						if (foundServer) {
 							nextScene = new LobbyScene(windowID, client);
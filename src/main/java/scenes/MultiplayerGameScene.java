@@ -1,6 +1,7 @@
 package scenes;
 
 import game.*;
+import game.bot.*;
 import game.callbacks.PiecePlacedCallback;
 import game.pieces.util.PieceColour;
 import game.pieces.util.TileState;
@@ -16,9 +17,12 @@ import render.manager.TextRenderer;
 import render.texture.TextureAtlas;
 import render.texture.TextureNineSlice;
 import settings.GameSettings;
+import settings.LocalSettings;
 import util.Constants;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
 
 public class MultiplayerGameScene extends Scene{
 
@@ -26,7 +30,10 @@ public class MultiplayerGameScene extends Scene{
 	public static final double GAME_Y_POS = 39.0;
 	public static final float GAME_TILE_SIZE = 36.0f;
 
-	public static final double BOARD_UPDATE_INTERVAL = 1.0;
+	public static final int AUTOPLAY_BEAM_WIDTH = 64;
+	public static final int AUTOPLAY_SEARCH_DEPTH = 3;
+	public static final long AUTOPLAY_TIME_BUDGET_NANOS = 50_000_000L;
+	public static final double AUTOPLAY_PIECES_PER_SECOND = 2.5;
 
 	private Shader shader;
 
@@ -43,6 +50,14 @@ public class MultiplayerGameScene extends Scene{
 	Map<String, GLTrisDisplayComponent> otherPlayerComponents;
 	List<GLTrisDisplayComponent> displayComponents;
 	boolean isSpectator;
+	ForkJoinPool botPool;
+	BotController botController;
+	//lockstep games send the local game's inputs instead of its board
+	LockstepRecorder lockstepRecorder;
+	//other games send the board whenever it changes
+	BoardPublisher boardPublisher;
+	//garbage arrives on the network thread, it's added to the game between frames so inputs and garbage stay in order
+	Queue<List<Garbage>> incomingGarbage = new ConcurrentLinkedQueue<>();
 
 	Scene nextScene;
 
@@ -57,7 +72,8 @@ public class MultiplayerGameScene extends Scene{
 	OnGameFinish finishCallback;
 	OnBoardUpdate boardUpdateCallback;
 
-	double nextBoardUpdateAccumulator = 0.0;
+	//other players' boards are shown this far behind when they were sent, in ns
+	long interpolationDelay;
 	int numLivingPlayers;
 	boolean shouldUpdateDisplay;
 
@@ -66,7 +82,8 @@ public class MultiplayerGameScene extends Scene{
 	boolean shouldSetNextScene = false;
 	String winner = "";
 
-	MultiplayerGameScene(long windowID, GameClient client, boolean isSpectating) {
+	//with isAutoplay, a bot plays the local board instead of the keyboard
+	MultiplayerGameScene(long windowID, GameClient client, boolean isSpectating, boolean isAutoplay) {
 		super(windowID, client);
 
 		this.isSpectator = isSpectating;
@@ -77,7 +94,7 @@ public class MultiplayerGameScene extends Scene{
 		};
 		boardUpdateCallback = (String username, boolean isToppedOut, String hold, String[] queue,
 							   int pieceX, int pieceY, boolean[][] tileMap, PieceColour pieceColour,
-							   int[] garbageQueue, TileState[][] board) -> {
+							   int[] garbageQueue, TileState[][] board, long time) -> {
 			GLTrisDisplayComponent player = otherPlayerComponents.get(username);
 			if (player == null) {
 				return;
@@ -87,12 +104,9 @@ public class MultiplayerGameScene extends Scene{
 				numLivingPlayers--;
 				return;
 			}
-			player.setBoard(board);
-			player.setHeldPiece(hold);
-			player.setQueue(queue);
-			player.setGarbageQueue(garbageQueue);
-			player.setCurrentPieceInfo(pieceX, pieceY, tileMap, pieceColour);
+			player.addSnapshot(time, board, hold, queue, garbageQueue, pieceX, pieceY, tileMap, pieceColour);
 		};
+		interpolationDelay = (long) (LocalSettings.getInterpolationDelay() * 1e9);
 		client.registerOnGameFinish(finishCallback);
 		client.registerOnBoardUpdate(boardUpdateCallback);
 
@@ -151,25 +165,41 @@ public class MultiplayerGameScene extends Scene{
 				gameComponent.setStarted(true);
 			};
 			garbageCallback = (List<Garbage> garbage) -> {
-				gameComponent.getGame().addQueueGarbage(garbage);
+				incomingGarbage.add(garbage);
 			};
 
 			client.registerOnGameStart(startGameCallback);
 			client.registerOnGarbageReceived(garbageCallback);
 
-			gameComponent = new GLTrisGameComponent(GAME_X_POS, GAME_Y_POS, GAME_TILE_SIZE, true, settings);
+			gameComponent = new GLTrisGameComponent(GAME_X_POS, GAME_Y_POS, GAME_TILE_SIZE, true, settings, client.getSeed());
 			GLTris game = gameComponent.getGame();
 			game.registerOnPiecePlacedCallback((int rowsCleared, SpinType spinType, int attack) -> {
-				if (attack > 0) {
+				//in lockstep the server works out attacks from our inputs
+				if (attack > 0 && lockstepRecorder == null) {
 					List<Garbage> garbage = new ArrayList<>();
-					garbage.add(new Garbage(attack, rng.nextInt(10)));
+					garbage.add(new Garbage(attack, rng.nextInt(settings.getBoardWidth())));
 					client.sendGarbage(garbage);
 				}
 			});
 
 			game.registerOnGameOverListener(() -> {
-				client.sendGameOver();
+				if (lockstepRecorder == null) {
+					client.sendGameOver();
+				}
 			});
+			if (client.isLockstep()) {
+				lockstepRecorder = new LockstepRecorder(client, game);
+			}
+			else {
+				boardPublisher = new BoardPublisher(client, game, LocalSettings.getBoardUpdateInterval(), LocalSettings.getBoardHeartbeatInterval());
+			}
+
+			if (isAutoplay) {
+				botPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+				BeamSearchBot bot = new BeamSearchBot(settings.getKickTable(), new HeuristicEvaluator(), botPool,
+					AUTOPLAY_BEAM_WIDTH, AUTOPLAY_SEARCH_DEPTH, AUTOPLAY_TIME_BUDGET_NANOS);
+				botController = new BotController(game, bot, botPool, AUTOPLAY_PIECES_PER_SECOND);
+			}
 		}
 	}
 
@@ -178,21 +208,42 @@ public class MultiplayerGameScene extends Scene{
 		super.init();
 		if (!this.isSpectator) {
 			gameComponent.init();
+			gameComponent.startRecording();
+			if (lockstepRecorder != null) {
+				lockstepRecorder.start();
+			}
+			if (boardPublisher != null) {
+				boardPublisher.start();
+			}
 		}
 	}
 
 	@Override
 	public void update(double dt) {
+		client.dispatchEvents(GameClient.MAX_EVENTS_PER_FRAME);
 		if (!this.isSpectator) {
+			List<Garbage> garbage;
+			while ((garbage = incomingGarbage.poll()) != null) {
+				gameComponent.getGame().addQueueGarbage(garbage);
+			}
 			gameComponent.update(dt);
-			nextBoardUpdateAccumulator += dt;
-			if (nextBoardUpdateAccumulator >= BOARD_UPDATE_INTERVAL) {
-				nextBoardUpdateAccumulator = 0.0;
-				GLTris game = this.gameComponent.getGame();
-				client.sendBoardUpdate(game.isGameOver(), game.getHeldPiece(), game.getPieceQueue(), game.getCurrentPiece(), game.getGarbageQueue(), game.getBoard());
+			if (botController != null) {
+				botController.update(dt);
+			}
+			if (lockstepRecorder != null) {
+				lockstepRecorder.update();
+			}
+			if (boardPublisher != null) {
+				boardPublisher.update(dt);
 			}
 		}
 
+		//boards reach us about half a round trip after the server got them, on top of the delay
+		long renderTime = System.nanoTime() - interpolationDelay - Math.max(0, client.getRoundTrip()) / 2;
+		for (GLTrisDisplayComponent component : displayComponents) {
+			component.update(renderTime);
+		}
+
 		if (shouldUpdateDisplay && numLivingPlayers <= 2) {
 			List<Player> players = client.getPlayerList();
 			for (Player player : players) {
@@ -260,6 +311,16 @@ public class MultiplayerGameScene extends Scene{
 		topFrame.destroy();
 		if (!isSpectator) {
 			gameComponent.destroy();
+			if (botController != null) {
+				botController.cancel();
+				botPool.shutdownNow();
+			}
+			if (lockstepRecorder != null) {
+				lockstepRecorder.stop();
+			}
+			if (boardPublisher != null) {
+				boardPublisher.stop();
+			}
 			client.unregisterOnGameStart(startGameCallback);
 			client.unregisterOnGarbageReceived(garbageCallback);
 		}
@@ -23,6 +23,7 @@ public class SettingsScene extends Scene{
 	private static final String ARR = "ARR";
 	private static final String DAS = "DAS";
 	private static final String DAS_CANCEL = "DAS Cancel";
+	private static final String RECORD_REPLAYS = "Record Replays";
 
 	private static final double BUTTON_WIDTH = 600.0;
 	private static final double BUTTON_HEIGHT = 100.0;
@@ -58,6 +59,7 @@ public class SettingsScene extends Scene{
 	double arr = LocalSettings.getARR();
 	double das = LocalSettings.getDAS();
 	boolean isDASCancel = LocalSettings.getDASCancel();
+	boolean isRecordingReplays = LocalSettings.getRecordReplays();
 
 	Scene nextScene;
 
@@ -113,6 +115,12 @@ public class SettingsScene extends Scene{
 			(boolean isOn) -> {
 				LocalSettings.setDASCancel(isOn);
 			}));
+		settingsFrame.addComponent(new Switch(SLIDER_POSITION_X + (RECORD_REPLAYS.length() - 3) * 30.0 * 0.75, SLIDER_POSITION_Y - SLIDER_SPACING * 4,
+			30.0, 10.0, isRecordingReplays, true,
+			widgetTexture, RECORD_REPLAYS,
+			(boolean isOn) -> {
+				LocalSettings.setRecordReplays(isOn);
+			}));
 
 		int[] moveLeftKeys = KeybindingSettings.getMoveLeftKeys();
 		int[] moveRightKeys = KeybindingSettings.getMoveRightKeys();
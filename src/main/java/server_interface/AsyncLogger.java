@@ -0,0 +1,77 @@
+package server_interface;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+//lines are timestamped and queued by whoever logs them, and written out in batches on the logger's own thread
+//so logging from a room's worker never waits on swing or the console
+public class AsyncLogger {
+	static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+	//how long closing waits for what's still queued to be written
+	public static final long CLOSE_TIMEOUT_MS = 1000;
+
+	private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+	private final Consumer<String> output;
+	private final Thread thread;
+
+	//output is given everything queued since the last batch as one string
+	public AsyncLogger(String threadName, Consumer<String> output) {
+		this.output = output;
+		thread = new Thread(this::run, threadName);
+		thread.setDaemon(true);
+	}
+
+	//lines logged before this are held until it's called, so they aren't written before there's anyone to write them to
+	public void start() {
+		thread.start();
+	}
+
+	public void log(String s) {
+		lines.add("[" + LocalTime.now().format(TIME_FORMAT) + "] " + s + "\n");
+	}
+
+	private void run() {
+		List<String> batch = new ArrayList<>();
+		try {
+			while (true) {
+				batch.add(lines.take());
+				write(batch);
+			}
+		} catch (InterruptedException e) {
+			//closing, whatever made it into the queue still gets written
+			write(batch);
+		}
+	}
+
+	private void write(List<String> batch) {
+		lines.drainTo(batch);
+		if (batch.isEmpty()) {
+			return;
+		}
+		StringBuilder s = new StringBuilder();
+		for (String line : batch) {
+			s.append(line);
+		}
+		batch.clear();
+		try {
+			output.accept(s.toString());
+		} catch (RuntimeException e) {
+			//a broken output shouldn't stop the log
+			e.printStackTrace();
+		}
+	}
+
+	public void close() {
+		thread.interrupt();
+		try {
+			thread.join(CLOSE_TIMEOUT_MS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
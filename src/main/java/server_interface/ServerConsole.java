@@ -0,0 +1,53 @@
+package server_interface;
+
+import network.lobby.Player;
+
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+
+//the server's front end when there's no display: commands are read from stdin and the log goes to stdout
+//rooms and metrics aren't printed as they change, the status and metrics commands show them when asked
+public class ServerConsole implements ServerObserver {
+	public static final String STOP_COMMAND = "stop";
+
+	private final BufferedReader in;
+	private final PrintStream out;
+
+	public ServerConsole(InputStream in, PrintStream out) {
+		this.in = new BufferedReader(new InputStreamReader(in));
+		this.out = out;
+	}
+
+	//passes every line to the callback until it reads the stop command (true) or runs out of input (false)
+	public boolean run(CommandCallback callback) {
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.trim().equals(STOP_COMMAND)) {
+					return true;
+				}
+				callback.onCommandReceived(line);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	@Override
+	public void appendLog(String lines) {
+		out.print(lines);
+		out.flush();
+	}
+
+	@Override
+	public void updateRooms(Map<String, List<Player>> rooms) {
+
+	}
+
+	@Override
+	public void updatePerformance(String text) {
+
+	}
+}
@@ -0,0 +1,18 @@
+package server_interface;
+
+import network.lobby.Player;
+
+import java.util.List;
+import java.util.Map;
+
+//something watching a GameServer, like the server panel. called from the server's own threads, never from a room's worker,
+//so an observer that's slow to update doesn't hold up a game
+public interface ServerObserver {
+	//one or more timestamped lines, each ending in a newline
+	void appendLog(String lines);
+
+	//every room's players, by room name
+	void updateRooms(Map<String, List<Player>> rooms);
+
+	void updatePerformance(String text);
+}
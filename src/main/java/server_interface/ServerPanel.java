@@ -5,20 +5,17 @@ import network.lobby.Player;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.List;
 
-public class ServerPanel extends JPanel{
+//the swing front end for a server, it only observes it. updates may come from any thread and are applied on swing's
+public class ServerPanel extends JPanel implements ServerObserver {
 	JTextArea textAreaLog;
 	JTextArea textAreaPlayerList;
+	JTextArea textAreaPerformance;
 
 	java.util.List<CommandCallback> commandCallbacks = new ArrayList<>();
 
-	static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
-
-	StringBuilder log = new StringBuilder();
-
 	public ServerPanel() {
 
 		this.setLayout(new GridLayout(1, 1));
@@ -30,6 +27,13 @@ public class ServerPanel extends JPanel{
 		JPanel performancePanel = new JPanel();
 		performancePanel.setLayout(new GridLayout(1, 1));
 		performancePanel.setBorder(BorderFactory.createTitledBorder("Performance"));
+		textAreaPerformance = new JTextArea();
+		textAreaPerformance.setLineWrap(false);
+		textAreaPerformance.setEditable(false);
+		//the metrics are laid out in columns
+		textAreaPerformance.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
+		JScrollPane scrollPanePerformance = new JScrollPane(textAreaPerformance);
+		performancePanel.add(scrollPanePerformance);
 		leftPanel.add(performancePanel);
 
 		JPanel playerListPanel = new JPanel();
@@ -87,14 +91,36 @@ public class ServerPanel extends JPanel{
 		super.paintComponent(g);
 	}
 
-	//automatically prepends timestamp to string
-	public void log(String s) {
-		log.append("[").append(LocalTime.now().format(TIME_FORMAT)).append("] ").append(s).append("\n");
-		textAreaLog.setText(log.toString());
+	//appended rather than setting the whole log again, which got slower with every line
+	@Override
+	public void appendLog(String lines) {
+		SwingUtilities.invokeLater(() -> {
+			textAreaLog.append(lines);
+		});
 	}
 
-	public void updatePlayers(Collection<Player> players) {
+	//one list per room, under the room's name
+	@Override
+	public void updateRooms(Map<String, List<Player>> rooms) {
 		StringBuilder s = new StringBuilder();
+		for (Map.Entry<String, List<Player>> room : rooms.entrySet()) {
+			s.append("[").append(room.getKey()).append("]\n");
+			appendPlayers(s, room.getValue());
+		}
+		SwingUtilities.invokeLater(() -> {
+			textAreaPlayerList.setText(s.toString());
+		});
+	}
+
+	//replaced by the server's latest metrics every second
+	@Override
+	public void updatePerformance(String text) {
+		SwingUtilities.invokeLater(() -> {
+			textAreaPerformance.setText(text);
+		});
+	}
+
+	private static void appendPlayers(StringBuilder s, Collection<Player> players) {
 		for (Player player : players) {
 			String state = "";
 			if (player.isSpectator()) {
@@ -103,9 +129,9 @@ public class ServerPanel extends JPanel{
 			else if (player.isReady()) {
 				state = " R";
 			}
-			s.append(player.getName()).append(state).append("\n");
+			String latency = player.getLatency() == Player.NO_LATENCY ? "" : "  " + player.getLatency() + " ms";
+			s.append(player.getName()).append(state).append(latency).append("\n");
 		}
-		textAreaPlayerList.setText(s.toString());
 	}
 
 
@@ -3,6 +3,7 @@ package settings;
 import game.SpinDetector;
 import game.pieces.PieceBuilder;
 import game.pieces.PieceFactory;
+import game.randomizer.RandomizerType;
 import org.ini4j.Wini;
 import org.json.simple.parser.ParseException;
 import util.Constants;
@@ -32,6 +33,7 @@ public class GameSettings {
 	protected static final String OPTION_NUM_PREVIEWS = "previews";
 	protected static final String OPTION_KICK_TABLE = "kick_table";
 	protected static final String OPTION_SPIN_DETECTOR = "spin_detector";
+	protected static final String OPTION_RANDOMIZER = "randomizer";
 
 	protected transient Wini properties;
 
@@ -41,6 +43,7 @@ public class GameSettings {
 	protected int boardHeight = Constants.BOARD_HEIGHT;
 	protected int boardWidth = Constants.BOARD_WIDTH;
 	protected SpinDetector spinDetector = SpinDetector.NONE;
+	protected RandomizerType randomizer = RandomizerType.BAG_7;
 
 	public GameSettings() {
 		getProperties();
@@ -53,11 +56,16 @@ public class GameSettings {
 	}
 
 	public GameSettings(int numPreviews, PieceFactory kickTable, int boardHeight, int boardWidth, SpinDetector spinDetector) {
+		this(numPreviews, kickTable, boardHeight, boardWidth, spinDetector, RandomizerType.BAG_7);
+	}
+
+	public GameSettings(int numPreviews, PieceFactory kickTable, int boardHeight, int boardWidth, SpinDetector spinDetector, RandomizerType randomizer) {
 		this.numPreviews = numPreviews;
 		this.kickTable = kickTable;
 		this.boardHeight = boardHeight;
 		this.boardWidth = boardWidth;
 		this.spinDetector = spinDetector;
+		this.randomizer = randomizer;
 
 		properties = getProperties();
 	}
@@ -71,6 +79,7 @@ public class GameSettings {
 		this.boardHeight = getBoardHeightINI();
 		this.boardWidth = getBoardWidthINI();
 		this.spinDetector = getSpinDetectorINI();
+		this.randomizer = getRandomizerINI();
 	}
 
 	protected Wini getProperties() {
@@ -105,6 +114,7 @@ public class GameSettings {
 		properties.put(SECTION_GENERAL, OPTION_BOARD_WIDTH, Constants.BOARD_WIDTH);
 
 		properties.put(SECTION_GENERAL, OPTION_SPIN_DETECTOR, "T_SPIN");
+		properties.put(SECTION_GENERAL, OPTION_RANDOMIZER, RandomizerType.BAG_7.name());
 	}
 
 	public void saveSettings() {
@@ -193,6 +203,19 @@ public class GameSettings {
 		p.put(SECTION_GENERAL, OPTION_SPIN_DETECTOR, detector.name());
 	}
 
+	private RandomizerType getRandomizerINI() {
+		Object propertyObject = getProperty(SECTION_GENERAL, OPTION_RANDOMIZER);
+		if (!(propertyObject instanceof String)) {
+			return RandomizerType.BAG_7;
+		}
+		return RandomizerType.getEnum((String) propertyObject);
+	}
+
+	private void setRandomizerINI(RandomizerType randomizer) {
+		Wini p = getProperties();
+		p.put(SECTION_GENERAL, OPTION_RANDOMIZER, randomizer.name());
+	}
+
 	public int getNumPreviews() {
 		return numPreviews;
 	}
@@ -251,4 +274,13 @@ public class GameSettings {
 		this.spinDetector = spinDetector;
 		setSpinDetectorINI(spinDetector);
 	}
+
+	public RandomizerType getRandomizer() {
+		return randomizer;
+	}
+
+	public void setRandomizer(RandomizerType randomizer) {
+		this.randomizer = randomizer;
+		setRandomizerINI(randomizer);
+	}
 }
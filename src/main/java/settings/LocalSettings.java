@@ -13,6 +13,11 @@ public class LocalSettings {
 	private static final double DEFAULT_ARR = 0.0;
 	private static final double DEFAULT_DAS = 8.0;
 	private static final int DEFAULT_SDF = 6;
+	//multiplayer board updates, in seconds. a heartbeat of 0 only sends boards when they change
+	private static final double DEFAULT_BOARD_UPDATE_INTERVAL = 0.1;
+	private static final double DEFAULT_BOARD_HEARTBEAT_INTERVAL = 1.0;
+	//how far behind other players' boards are shown, in seconds, so the piece can be moved smoothly between updates
+	private static final double DEFAULT_INTERPOLATION_DELAY = 0.15;
 
 	private static final String PATH = "./settings.nbt";
 
@@ -20,6 +25,10 @@ public class LocalSettings {
 	private static final String OPTION_ARR = "arr";
 	private static final String OPTION_DAS = "das";
 	private static final String OPTION_DAS_CANCEL = "das_cancel";
+	private static final String OPTION_BOARD_UPDATE_INTERVAL = "board_update_interval";
+	private static final String OPTION_BOARD_HEARTBEAT_INTERVAL = "board_heartbeat_interval";
+	private static final String OPTION_INTERPOLATION_DELAY = "interpolation_delay";
+	private static final String OPTION_RECORD_REPLAYS = "record_replays";
 
 	private LocalSettings() {}
 
@@ -61,6 +70,10 @@ public class LocalSettings {
 		properties.put(new DoubleTag(OPTION_ARR, DEFAULT_ARR));
 		properties.put(new DoubleTag(OPTION_DAS, DEFAULT_DAS));
 		properties.put(new ByteTag(OPTION_DAS_CANCEL, 0));
+		properties.put(new DoubleTag(OPTION_BOARD_UPDATE_INTERVAL, DEFAULT_BOARD_UPDATE_INTERVAL));
+		properties.put(new DoubleTag(OPTION_BOARD_HEARTBEAT_INTERVAL, DEFAULT_BOARD_HEARTBEAT_INTERVAL));
+		properties.put(new DoubleTag(OPTION_INTERPOLATION_DELAY, DEFAULT_INTERPOLATION_DELAY));
+		properties.put(new ByteTag(OPTION_RECORD_REPLAYS, 0));
 	}
 
 	public static int getSDF() {
@@ -122,4 +135,65 @@ public class LocalSettings {
 		CompoundTag p = getProperties();
 		p.put(new ByteTag(OPTION_DAS_CANCEL, isDASCancel ? 1 : 0));
 	}
+
+	public static double getBoardUpdateInterval() {
+		properties = getProperties();
+		DoubleTag tag = properties.getDouble(OPTION_BOARD_UPDATE_INTERVAL);
+		if (tag == null) {
+			setBoardUpdateInterval(DEFAULT_BOARD_UPDATE_INTERVAL);
+			tag = properties.getDouble(OPTION_BOARD_UPDATE_INTERVAL);
+		}
+		return tag.getValue();
+	}
+
+	public static void setBoardUpdateInterval(double interval) {
+		CompoundTag p = getProperties();
+		p.put(new DoubleTag(OPTION_BOARD_UPDATE_INTERVAL, interval));
+	}
+
+	public static double getBoardHeartbeatInterval() {
+		properties = getProperties();
+		DoubleTag tag = properties.getDouble(OPTION_BOARD_HEARTBEAT_INTERVAL);
+		if (tag == null) {
+			setBoardHeartbeatInterval(DEFAULT_BOARD_HEARTBEAT_INTERVAL);
+			tag = properties.getDouble(OPTION_BOARD_HEARTBEAT_INTERVAL);
+		}
+		return tag.getValue();
+	}
+
+	public static void setBoardHeartbeatInterval(double interval) {
+		CompoundTag p = getProperties();
+		p.put(new DoubleTag(OPTION_BOARD_HEARTBEAT_INTERVAL, interval));
+	}
+
+	public static double getInterpolationDelay() {
+		properties = getProperties();
+		DoubleTag tag = properties.getDouble(OPTION_INTERPOLATION_DELAY);
+		if (tag == null) {
+			setInterpolationDelay(DEFAULT_INTERPOLATION_DELAY);
+			tag = properties.getDouble(OPTION_INTERPOLATION_DELAY);
+		}
+		return tag.getValue();
+	}
+
+	public static void setInterpolationDelay(double delay) {
+		CompoundTag p = getProperties();
+		p.put(new DoubleTag(OPTION_INTERPOLATION_DELAY, delay));
+	}
+
+	//off unless turned on, every recorded game is kept in the replays folder
+	public static boolean getRecordReplays() {
+		properties = getProperties();
+		ByteTag tag = properties.getByte(OPTION_RECORD_REPLAYS);
+		if (tag == null) {
+			setRecordReplays(false);
+			tag = properties.getByte(OPTION_RECORD_REPLAYS);
+		}
+		return tag.getValue() != 0;
+	}
+
+	public static void setRecordReplays(boolean isRecordingReplays) {
+		CompoundTag p = getProperties();
+		p.put(new ByteTag(OPTION_RECORD_REPLAYS, isRecordingReplays ? 1 : 0));
+	}
 }
@@ -2,6 +2,8 @@ package settings;
 
 import game.SpinDetector;
 import game.pieces.PieceFactory;
+import game.randomizer.RandomizerType;
+import network.lobby.TargetingStrategy;
 import org.json.simple.parser.ParseException;
 import util.Utils;
 
@@ -18,6 +20,10 @@ public class ServerSettings {
 	public static final String BOARD_HEIGHT = "board_height";
 	public static final String BOARD_WIDTH = "board_width";
 	public static final String SPIN_DETECTOR = "spin_detector";
+	public static final String RANDOMIZER = "randomizer";
+	public static final String LOCKSTEP = "lockstep";
+	public static final String METRICS_FILE = "metrics_file";
+	public static final String TARGETING = "targeting";
 	protected int port;
 	protected int numPreviews;
 	protected String kickTableLocation;
@@ -25,6 +31,13 @@ public class ServerSettings {
 	protected int boardWidth;
 	protected int boardHeight;
 	protected SpinDetector spinDetector;
+	protected RandomizerType randomizer;
+	//games are played by sending inputs when every player supports it, otherwise by sending boards
+	protected boolean isLockstep;
+	//the server writes its metrics here as json every second, empty to not write them
+	protected String metricsFile;
+	//who garbage goes to in new rooms, rooms can be changed with the targeting command
+	protected TargetingStrategy targeting;
 
 	public ServerSettings() {
 		this.port = 2678;
@@ -39,6 +52,10 @@ public class ServerSettings {
 		this.boardHeight = 20;
 		this.boardWidth = 10;
 		this.spinDetector = SpinDetector.T_SPIN;
+		this.randomizer = RandomizerType.BAG_7;
+		this.isLockstep = false;
+		this.metricsFile = "";
+		this.targeting = TargetingStrategy.RANDOM;
 	}
 
 	public ServerSettings(File file) throws IOException, ParseException {
@@ -53,6 +70,11 @@ public class ServerSettings {
 		this.boardWidth = Integer.parseInt(properties.getProperty(BOARD_WIDTH));
 		this.boardHeight = Integer.parseInt(properties.getProperty(BOARD_HEIGHT));
 		this.spinDetector = SpinDetector.getEnum(properties.getProperty(SPIN_DETECTOR));
+		//older properties files don't have this, getEnum falls back to the 7-bag
+		this.randomizer = RandomizerType.getEnum(properties.getProperty(RANDOMIZER));
+		this.isLockstep = Boolean.parseBoolean(properties.getProperty(LOCKSTEP, "false"));
+		this.metricsFile = properties.getProperty(METRICS_FILE, "");
+		this.targeting = TargetingStrategy.getEnum(properties.getProperty(TARGETING));
 		in.close();
 	}
 
@@ -65,6 +87,10 @@ public class ServerSettings {
 		properties.setProperty(BOARD_HEIGHT, String.valueOf(this.boardHeight));
 		properties.setProperty(BOARD_WIDTH, String.valueOf(this.boardWidth));
 		properties.setProperty(SPIN_DETECTOR, this.spinDetector.name());
+		properties.setProperty(RANDOMIZER, this.randomizer.name());
+		properties.setProperty(LOCKSTEP, String.valueOf(this.isLockstep));
+		properties.setProperty(METRICS_FILE, this.metricsFile);
+		properties.setProperty(TARGETING, this.targeting.name());
 		properties.store(out, "");
 		out.close();
 	}
@@ -116,4 +142,36 @@ public class ServerSettings {
 	public void setSpinDetector(SpinDetector spinDetector) {
 		this.spinDetector = spinDetector;
 	}
+
+	public RandomizerType getRandomizer() {
+		return randomizer;
+	}
+
+	public void setRandomizer(RandomizerType randomizer) {
+		this.randomizer = randomizer;
+	}
+
+	public boolean isLockstep() {
+		return isLockstep;
+	}
+
+	public void setLockstep(boolean isLockstep) {
+		this.isLockstep = isLockstep;
+	}
+
+	public String getMetricsFile() {
+		return metricsFile;
+	}
+
+	public void setMetricsFile(String metricsFile) {
+		this.metricsFile = metricsFile;
+	}
+
+	public TargetingStrategy getTargeting() {
+		return targeting;
+	}
+
+	public void setTargeting(TargetingStrategy targeting) {
+		this.targeting = targeting;
+	}
 }
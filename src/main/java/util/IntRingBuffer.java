@@ -0,0 +1,64 @@
+package util;
+
+//growable FIFO of primitive ints, so queues of piece indices don't box every element
+public class IntRingBuffer {
+	private int[] data;
+	private int head = 0;
+	private int size = 0;
+
+	public IntRingBuffer() {
+		this(16);
+	}
+
+	public IntRingBuffer(int capacity) {
+		data = new int[Math.max(1, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1)];
+	}
+
+	public void offer(int value) {
+		if (size == data.length) {
+			grow();
+		}
+		data[(head + size) & (data.length - 1)] = value;
+		size++;
+	}
+
+	public int poll() {
+		if (size == 0) {
+			throw new IllegalStateException("Cannot poll an empty buffer.");
+		}
+		int value = data[head];
+		head = (head + 1) & (data.length - 1);
+		size--;
+		return value;
+	}
+
+	//index 0 is the element that would be polled next
+	public int get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size + ".");
+		}
+		return data[(head + index) & (data.length - 1)];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		head = 0;
+		size = 0;
+	}
+
+	private void grow() {
+		int[] newData = new int[data.length * 2];
+		int firstPart = Math.min(size, data.length - head);
+		System.arraycopy(data, head, newData, 0, firstPart);
+		System.arraycopy(data, 0, newData, firstPart, size - firstPart);
+		data = newData;
+		head = 0;
+	}
+}
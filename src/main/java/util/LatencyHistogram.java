@@ -0,0 +1,84 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//log-linear histogram in the style of HdrHistogram: 16 buckets per power of two, so a value is reported within about 6% of what was recorded
+//recording is one atomic add and safe from any thread. reading while others record gives a view that's at most a few samples off
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	//enough buckets for any non-negative long
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong max = new AtomicLong();
+
+	//negative values (a clock going backwards) are counted as 0
+	public void record(long value) {
+		value = Math.max(0, value);
+		counts.incrementAndGet(getIndex(value));
+		if (value > max.get()) {
+			max.accumulateAndGet(value, Math::max);
+		}
+	}
+
+	//moves everything recorded so far into the other histogram, this one starts over empty
+	public void drainTo(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			long count = counts.getAndSet(i, 0);
+			if (count != 0) {
+				other.counts.addAndGet(i, count);
+			}
+		}
+		other.max.accumulateAndGet(max.getAndSet(0), Math::max);
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			count += counts.get(i);
+		}
+		return count;
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	//the largest value that could have been recorded into the bucket the percentile falls in, 0 if nothing was recorded
+	public long getValueAtPercentile(double p) {
+		long count = getCount();
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(p * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				long highest = i + 1 < BUCKETS ? getLowestValue(i + 1) - 1 : Long.MAX_VALUE;
+				return Math.min(highest, getMax());
+			}
+		}
+		return getMax();
+	}
+
+	private static int getIndex(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long getLowestValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int subBucket = index % SUB_BUCKETS;
+		return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+	}
+}
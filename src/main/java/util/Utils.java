@@ -1,5 +1,7 @@
 package util;
 
+import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 import static org.lwjgl.glfw.GLFW.*;
@@ -219,7 +221,62 @@ public class Utils {
 		return val;
 	}
 
+	//unsigned LEB128: 7 bits per byte, high bit set on every byte except the last
+	public static void writeVarLong(DataOutput out, long val) throws IOException {
+		while ((val & ~0x7FL) != 0) {
+			out.writeByte((int) ((val & 0x7F) | 0x80));
+			val >>>= 7;
+		}
+		out.writeByte((int) val);
+	}
+
+	public static long readVarLong(DataInput in) throws IOException {
+		long val = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			int b = in.readUnsignedByte();
+			val |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return val;
+			}
+		}
+		throw new IOException("Malformed varint.");
+	}
+
+	public static void writeVarLong(ByteBuffer buffer, long val) {
+		while ((val & ~0x7FL) != 0) {
+			buffer.put((byte) ((val & 0x7F) | 0x80));
+			val >>>= 7;
+		}
+		buffer.put((byte) val);
+	}
+
+	public static long readVarLong(ByteBuffer buffer) {
+		long val = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			int b = buffer.get() & 0xFF;
+			val |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return val;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint.");
+	}
+
+	//number of bytes writeVarLong takes for val
+	public static int getVarLongSize(long val) {
+		int size = 1;
+		while ((val & ~0x7FL) != 0) {
+			val >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
 	public static String getKickTableLocation(String name) {
 		return "./kicks/" + name + ".json";
 	}
+
+	public static String getReplayLocation(String name) {
+		return "./replays/" + name + ".glr";
+	}
 }